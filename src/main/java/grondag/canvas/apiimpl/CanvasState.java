@@ -29,12 +29,14 @@ import grondag.canvas.CanvasMod;
 import grondag.canvas.apiimpl.rendercontext.CanvasBlockRenderContext;
 import grondag.canvas.apiimpl.rendercontext.CanvasEntityBlockRenderContext;
 import grondag.canvas.apiimpl.rendercontext.CanvasItemRenderContext;
+import grondag.canvas.apiimpl.rendercontext.encoder.QuadMaterialCache;
 import grondag.canvas.config.Configurator;
 import grondag.canvas.material.property.TextureMaterialState;
 import grondag.canvas.perf.ChunkRebuildCounters;
 import grondag.canvas.perf.Timekeeper;
 import grondag.canvas.pipeline.PipelineManager;
 import grondag.canvas.pipeline.config.PipelineLoader;
+import grondag.canvas.render.world.CanvasParticleRenderer;
 import grondag.canvas.shader.GlMaterialProgramManager;
 import grondag.canvas.shader.GlProgramManager;
 import grondag.canvas.shader.GlShaderManager;
@@ -73,6 +75,8 @@ public class CanvasState {
 		CanvasBlockRenderContext.reload();
 		CanvasEntityBlockRenderContext.reload();
 		CanvasItemRenderContext.reload();
+		CanvasParticleRenderer.reload();
+		QuadMaterialCache.reload();
 		ChunkRebuildCounters.reset();
 		ChunkColorCache.invalidate();
 		AoFace.clampExteriorVertices(Configurator.clampExteriorVertices);
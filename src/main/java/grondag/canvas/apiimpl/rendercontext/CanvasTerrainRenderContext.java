@@ -145,7 +145,9 @@ public class CanvasTerrainRenderContext extends BlockRenderContext<BlockAndTintG
 		addedBlockEntities.clear();
 		removedBlockEntities.clear();
 		region.prepare(protoRegion);
+		encoder.collectors.updateTerrainFormat();
 		encoder.animationBits.clear();
+		encoder.flushCacheCounts();
 
 		if (Configurator.lightSmoothing) {
 			LightSmoother.computeSmoothedBrightness(region);
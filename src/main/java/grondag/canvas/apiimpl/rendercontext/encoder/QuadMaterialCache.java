@@ -0,0 +1,115 @@
+/*
+ * This file is part of Canvas Renderer and is licensed to the project under
+ * terms that are compatible with the GNU Lesser General Public License.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership and licensing.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package grondag.canvas.apiimpl.rendercontext.encoder;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import it.unimi.dsi.fastutil.HashCommon;
+
+import grondag.canvas.material.state.CanvasRenderMaterial;
+import grondag.canvas.mixinterface.SpriteContentsExt;
+
+/**
+ * Shared cache of per-quad material results for terrain rebuilds.  For a given
+ * material and sprite the vertex material index and sprite animation index never
+ * change until resources reload, but resolving them goes through a synchronized
+ * indexer and a sprite lookup.  Terrain repeats the same few hundred combinations
+ * across every region, so we resolve each once and share the result.
+ *
+ * <p>The table is direct-mapped and fixed in size, so colliding combinations simply
+ * replace each other.  Entries are immutable and published through a plain array
+ * store, which is safe because all fields are final. Concurrent misses for the same
+ * key may both compute the result; they will agree.
+ */
+public final class QuadMaterialCache {
+	private static final int TABLE_SIZE = 8192;
+	private static final int TABLE_MASK = TABLE_SIZE - 1;
+
+	private static volatile Entry[] table = new Entry[TABLE_SIZE];
+
+	private static final AtomicLong hitCount = new AtomicLong();
+	private static final AtomicLong missCount = new AtomicLong();
+
+	private QuadMaterialCache() { }
+
+	/**
+	 * @param materialIndex vertex material index, not yet shifted into position
+	 * @param animationIndex sprite animation index, or -1 if the sprite isn't animated
+	 */
+	record Entry(long key, int materialIndex, int animationIndex) { }
+
+	/**
+	 * Hits and misses are counted on the encoder to avoid contention
+	 * and reported later via {@link #addCounts(int, int)}.
+	 */
+	static Entry get(CanvasRenderMaterial mat, int spriteId, TerrainQuadEncoder encoder) {
+		// Capture the table so an entry computed across a reload can't land in the new one
+		final Entry[] table = QuadMaterialCache.table;
+		final long key = ((long) mat.stateIndex() << 32) | (spriteId & 0xFFFFFFFFL);
+		final int slot = (int) HashCommon.mix(key) & TABLE_MASK;
+		Entry result = table[slot];
+
+		if (result == null || result.key != key) {
+			result = compute(key, mat, spriteId);
+			table[slot] = result;
+			++encoder.cacheMisses;
+		} else {
+			++encoder.cacheHits;
+		}
+
+		return result;
+	}
+
+	private static Entry compute(long key, CanvasRenderMaterial mat, int spriteId) {
+		int animationIndex = -1;
+
+		if (!mat.discardsTexture() && mat.texture().isAtlas()) {
+			animationIndex = ((SpriteContentsExt) mat.texture().spriteIndex().fromIndex(spriteId).contents()).canvas_animationIndex();
+		}
+
+		return new Entry(key, mat.materialIndexer().index(spriteId), animationIndex);
+	}
+
+	static void addCounts(int hits, int misses) {
+		if (hits != 0) {
+			hitCount.addAndGet(hits);
+		}
+
+		if (misses != 0) {
+			missCount.addAndGet(misses);
+		}
+	}
+
+	/**
+	 * Sprite IDs and material indexers are not stable across resource reloads.
+	 */
+	public static void reload() {
+		table = new Entry[TABLE_SIZE];
+		hitCount.set(0);
+		missCount.set(0);
+	}
+
+	public static String debugReport() {
+		final long hits = hitCount.get();
+		final long total = hits + missCount.get();
+		return String.format("Quad material cache: %d lookups %4.1f%% hit", total, total == 0 ? 0f : 100f * hits / total);
+	}
+}
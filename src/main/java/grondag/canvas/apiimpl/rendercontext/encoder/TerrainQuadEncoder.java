@@ -33,6 +33,10 @@ public class TerrainQuadEncoder extends BaseQuadEncoder {
 	/** Used by some terrain render configs to pass a region ID into vertex encoding. */
 	private int sectorId;
 	private int sectorRelativeRegionOrigin;
+	private int materialIndex;
+
+	int cacheHits;
+	int cacheMisses;
 
 	public TerrainQuadEncoder(BaseQuadEmitter emitter, InputContext inputContext) {
 		super(emitter, inputContext);
@@ -52,9 +56,28 @@ public class TerrainQuadEncoder extends BaseQuadEncoder {
 		sectorRelativeRegionOrigin = renderSector.sectorRelativeRegionOrigin(origin);
 	}
 
+	/** Vertex material index of the quad being encoded, not yet shifted into position. */
+	public final int materialIndex() {
+		return materialIndex;
+	}
+
 	public void encode() {
-		trackAnimation(emitter);
-		TerrainEncoder.encodeQuad(this, collectors.get((CanvasRenderMaterial) emitter.material()));
+		final CanvasRenderMaterial mat = (CanvasRenderMaterial) emitter.material();
+		final QuadMaterialCache.Entry entry = QuadMaterialCache.get(mat, emitter.spriteId(), this);
+
+		if (entry.animationIndex() >= 0) {
+			animationBits.set(entry.animationIndex());
+		}
+
+		materialIndex = entry.materialIndex();
+		TerrainEncoder.encodeQuad(this, collectors.get(mat));
+	}
+
+	/** Reports cache hits and misses accumulated since the last call. */
+	public void flushCacheCounts() {
+		QuadMaterialCache.addCounts(cacheHits, cacheMisses);
+		cacheHits = 0;
+		cacheMisses = 0;
 	}
 
 	public BaseQuadEmitter emitter() {
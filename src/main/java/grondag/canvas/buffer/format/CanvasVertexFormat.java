@@ -30,17 +30,27 @@ public class CanvasVertexFormat {
 	public final int vertexStrideInts;
 	public final int quadStrideInts;
 
+	/**
+	 * Attribute names in binding order. Identifies the attribute
+	 * locations baked into a linked program.
+	 */
+	public final String attributeSignature;
+
 	private final CanvasVertexFormatElement[] elements;
 
 	public CanvasVertexFormat(CanvasVertexFormatElement... elementsIn) {
 		elements = elementsIn;
 
 		int bytes = 0;
+		final StringBuilder signature = new StringBuilder();
 
 		for (final CanvasVertexFormatElement e : elements) {
 			bytes += e.byteSize;
+			signature.append(e.attributeName).append(';');
 		}
 
+		attributeSignature = signature.toString();
+
 		vertexStrideBytes = bytes;
 		vertexStrideInts = bytes / 4;
 		quadStrideInts = vertexStrideInts * 4;
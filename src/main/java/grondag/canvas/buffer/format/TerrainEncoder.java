@@ -51,6 +51,7 @@ import io.vram.frex.base.renderer.mesh.MeshEncodingHelper;
 
 import grondag.canvas.apiimpl.rendercontext.encoder.TerrainQuadEncoder;
 import grondag.canvas.buffer.input.VertexCollector;
+import grondag.canvas.config.Configurator;
 import grondag.canvas.material.state.CanvasRenderMaterial;
 
 public class TerrainEncoder {
@@ -71,7 +72,47 @@ public class TerrainEncoder {
 			LIGHTMAPS_2UB, MATERIAL_1US,
 			NORMAL_TANGENT_4B);
 
-	private static final int TERRAIN_VERTEX_STRIDE = TERRAIN_MATERIAL.vertexStrideInts;
+	/**
+	 * Same as {@link #TERRAIN_MATERIAL} without per-vertex normal and tangent.  The shader
+	 * derives both from an axis-aligned face index stored in the bits of the region
+	 * attribute that otherwise hold normal and tangent signs. Quads that don't face an
+	 * axis are shaded as if facing the nearest one, as vanilla diffuse shading does.
+	 *
+	 * <p>All other attributes have the same offsets as the full format so that code
+	 * reading positions from collected vertex data works with either.
+	 */
+	public static final CanvasVertexFormat COMPACT_TERRAIN_MATERIAL = new CanvasVertexFormat(
+			REGION,
+			BLOCK_POS_AO,
+			BASE_RGBA_4UB,
+			BASE_TEX_2US,
+			LIGHTMAPS_2UB, MATERIAL_1US);
+
+	/** Format for terrain buffered from now on. Existing slabs keep the format they were created with. */
+	public static CanvasVertexFormat terrainFormat() {
+		return Configurator.compactTerrainVertex ? COMPACT_TERRAIN_MATERIAL : TERRAIN_MATERIAL;
+	}
+
+	/**
+	 * Index of the axis direction nearest the given packed normal, in
+	 * the same order as {@link net.minecraft.core.Direction#get3DDataValue()}.
+	 */
+	private static int nearestFaceIndex(int packedNormal) {
+		final int x = (byte) packedNormal;
+		final int y = (byte) (packedNormal >> 8);
+		final int z = (byte) (packedNormal >> 16);
+		final int ax = Math.abs(x);
+		final int ay = Math.abs(y);
+		final int az = Math.abs(z);
+
+		if (ay >= ax && ay >= az) {
+			return y < 0 ? 0 : 1;
+		} else if (az >= ax) {
+			return z < 0 ? 2 : 3;
+		} else {
+			return x < 0 ? 4 : 5;
+		}
+	}
 
 	public static void encodeQuad(TerrainQuadEncoder encoder, VertexCollector buff) {
 		final var quad = encoder.emitter();
@@ -105,22 +146,42 @@ public class TerrainEncoder {
 		int packedTangent = 0;
 		int transformedTangent = 0;
 
-		final int material = mat.materialIndexer().index(quad.spriteId()) << 16;
+		final int material = encoder.materialIndex() << 16;
 		final boolean unlit = mat.unlit();
 
 		final int[] target = buff.target();
 		final int baseSourceIndex = quad.vertexStart();
 		final int[] source = quad.data();
 
+		// collectors are sized for the format in effect when they were created
+		final CanvasVertexFormat format = encoder.collectors.format();
+		assert target.length == format.quadStrideInts;
+		final boolean isCompact = format == COMPACT_TERRAIN_MATERIAL;
+		final int vertexStride = format.vertexStrideInts;
+
 		// This and pos vertex encoding are the only differences from standard format
 		final int sectorId = encoder.sectorId();
 		assert sectorId >= 0;
 		final int sectorRelativeRegionOrigin = encoder.sectorRelativeRegionOrigin();
 
+		if (isCompact) {
+			// Normal and tangent sign bits are replaced by the face index
+			final int packedFaceNormal = quad.packedFaceNormal();
+			final int faceBits = nearestFaceIndex(isNormalMatrixUseful ? FrexMathUtil.transformPacked3f(normalMatrix, packedFaceNormal) : packedFaceNormal) << 13;
+
+			for (int i = 0; i < 4; i++) {
+				encodeVertex(target, i * vertexStride, source, baseSourceIndex + i * MESH_VERTEX_STRIDE, sectorId | faceBits,
+						matrix, sectorRelativeRegionOrigin, aoDisabled ? 0xFF000000 : (aoData[i] << 24), material, unlit);
+			}
+
+			buff.commit(quad.effectiveCullFaceId(), mat.castShadows());
+			return;
+		}
+
 		for (int i = 0; i < 4; i++) {
 			final int vertexMask = 1 << i;
 			final int fromIndex = baseSourceIndex + i * MESH_VERTEX_STRIDE;
-			final int toIndex = i * TERRAIN_VERTEX_STRIDE;
+			final int toIndex = i * vertexStride;
 
 			// We do this here because we need to pack the normal Z sign bit with sector ID
 			final int p = ((quadNormalFlags & vertexMask) == 0) ? faceNormal : source[fromIndex + VERTEX_NORMAL];
@@ -142,48 +203,56 @@ public class TerrainEncoder {
 				transformedTangent = transformedTangent << 16;
 			}
 
-			// PERF: Consider fixed precision integer math
-			final float x = Float.intBitsToFloat(source[fromIndex + VERTEX_X]);
-			final float y = Float.intBitsToFloat(source[fromIndex + VERTEX_Y]);
-			final float z = Float.intBitsToFloat(source[fromIndex + VERTEX_Z]);
-
-			final float xOut = matrix.m00() * x + matrix.m10() * y + matrix.m20() * z + matrix.m30();
-			final float yOut = matrix.m01() * x + matrix.m11() * y + matrix.m21() * z + matrix.m31();
-			final float zOut = matrix.m02() * x + matrix.m12() * y + matrix.m22() * z + matrix.m32();
-
-			int xInt = Mth.floor(xOut);
-			int yInt = Mth.floor(yOut);
-			int zInt = Mth.floor(zOut);
-
-			final int xFract = Math.round((xOut - xInt) * 0xFFFF);
-			final int yFract = Math.round((yOut - yInt) * 0xFFFF);
-			final int zFract = Math.round((zOut - zInt) * 0xFFFF);
-
-			// because our integer component could be negative, we have to unpack and re-pack the sector components
-			xInt += (sectorRelativeRegionOrigin & 0xFF);
-			yInt += ((sectorRelativeRegionOrigin >> 8) & 0xFF);
-			zInt += ((sectorRelativeRegionOrigin >> 16) & 0xFF);
-
-			target[toIndex] = sectorId | normalSignBit | tangentInverseSignBits | (xFract << 16);
-			target[toIndex + 1] = yFract | (zFract << 16);
-
-			final int ao = aoDisabled ? 0xFF000000 : (aoData[i] << 24);
-			target[toIndex + 2] = xInt | (yInt << 8) | (zInt << 16) | ao;
-
-			target[toIndex + 3] = source[fromIndex + VERTEX_COLOR];
-
-			target[toIndex + 4] = (source[fromIndex + VERTEX_U] + UV_ROUNDING_BIT) >> UV_EXTRA_PRECISION
-					| ((source[fromIndex + VERTEX_V] + UV_ROUNDING_BIT) >> UV_EXTRA_PRECISION << 16);
-
-			// TODO: should probably pass unlit as a flag vs forcing lightmap
-			final int packedLight = unlit ? MeshEncodingHelper.FULL_BRIGHTNESS : source[fromIndex + VERTEX_LIGHTMAP];
-			final int blockLight = packedLight & 0xFF;
-			final int skyLight = (packedLight >> 16) & 0xFF;
-			target[toIndex + 5] = blockLight | (skyLight << 8) | material;
+			encodeVertex(target, toIndex, source, fromIndex, sectorId | normalSignBit | tangentInverseSignBits,
+					matrix, sectorRelativeRegionOrigin, aoDisabled ? 0xFF000000 : (aoData[i] << 24), material, unlit);
 
 			target[toIndex + 6] = transformedNormal | transformedTangent;
 		}
 
 		buff.commit(quad.effectiveCullFaceId(), mat.castShadows());
 	}
+
+	/**
+	 * Writes the first six integers of a vertex, which are the same in the full and compact
+	 * formats except for the flag bits packed with the sector ID in the low half of the first.
+	 */
+	private static void encodeVertex(int[] target, int toIndex, int[] source, int fromIndex, int lowBits,
+			Matrix4f matrix, int sectorRelativeRegionOrigin, int ao, int material, boolean unlit) {
+		// PERF: Consider fixed precision integer math
+		final float x = Float.intBitsToFloat(source[fromIndex + VERTEX_X]);
+		final float y = Float.intBitsToFloat(source[fromIndex + VERTEX_Y]);
+		final float z = Float.intBitsToFloat(source[fromIndex + VERTEX_Z]);
+
+		final float xOut = matrix.m00() * x + matrix.m10() * y + matrix.m20() * z + matrix.m30();
+		final float yOut = matrix.m01() * x + matrix.m11() * y + matrix.m21() * z + matrix.m31();
+		final float zOut = matrix.m02() * x + matrix.m12() * y + matrix.m22() * z + matrix.m32();
+
+		int xInt = Mth.floor(xOut);
+		int yInt = Mth.floor(yOut);
+		int zInt = Mth.floor(zOut);
+
+		final int xFract = Math.round((xOut - xInt) * 0xFFFF);
+		final int yFract = Math.round((yOut - yInt) * 0xFFFF);
+		final int zFract = Math.round((zOut - zInt) * 0xFFFF);
+
+		// because our integer component could be negative, we have to unpack and re-pack the sector components
+		xInt += (sectorRelativeRegionOrigin & 0xFF);
+		yInt += ((sectorRelativeRegionOrigin >> 8) & 0xFF);
+		zInt += ((sectorRelativeRegionOrigin >> 16) & 0xFF);
+
+		target[toIndex] = lowBits | (xFract << 16);
+		target[toIndex + 1] = yFract | (zFract << 16);
+		target[toIndex + 2] = xInt | (yInt << 8) | (zInt << 16) | ao;
+
+		target[toIndex + 3] = source[fromIndex + VERTEX_COLOR];
+
+		target[toIndex + 4] = (source[fromIndex + VERTEX_U] + UV_ROUNDING_BIT) >> UV_EXTRA_PRECISION
+				| ((source[fromIndex + VERTEX_V] + UV_ROUNDING_BIT) >> UV_EXTRA_PRECISION << 16);
+
+		// TODO: should probably pass unlit as a flag vs forcing lightmap
+		final int packedLight = unlit ? MeshEncodingHelper.FULL_BRIGHTNESS : source[fromIndex + VERTEX_LIGHTMAP];
+		final int blockLight = packedLight & 0xFF;
+		final int skyLight = (packedLight >> 16) & 0xFF;
+		target[toIndex + 5] = blockLight | (skyLight << 8) | material;
+	}
 }
@@ -85,6 +85,16 @@ public abstract class ArrayVertexCollector extends BaseVertexCollector {
 		return false;
 	}
 
+	@Override
+	public int sortDirtyStartQuad() {
+		return 0;
+	}
+
+	@Override
+	public int sortDirtyEndQuad() {
+		return 0;
+	}
+
 	@Override
 	public FaceBucket[] faceBuckets() {
 		return null;
@@ -123,6 +133,17 @@ public abstract class ArrayVertexCollector extends BaseVertexCollector {
 		}
 	}
 
+	@Override
+	public final long mark() {
+		return integerSize;
+	}
+
+	@Override
+	public final void rollback(long mark) {
+		assert mark <= integerSize;
+		integerSize = (int) mark;
+	}
+
 	private static AtomicInteger arrayCount = new AtomicInteger();
 	private static AtomicInteger arryBytes = new AtomicInteger();
 
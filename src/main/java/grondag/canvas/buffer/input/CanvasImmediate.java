@@ -78,18 +78,25 @@ public class CanvasImmediate extends BufferSource {
 		CanvasRenderMaterial mat = ((RenderTypeExt) renderLayer).canvas_materialState();
 
 		if (mat.isMissing()) {
-			return super.getBuffer(renderLayer);
+			return fallbackBuffer(renderLayer);
 		}
 
 		mat = contextState.mapMaterial(mat);
 
 		if (mat.isMissing()) {
-			return super.getBuffer(renderLayer);
+			return fallbackBuffer(renderLayer);
 		} else {
 			return collectors.emitter.prepare(mat);
 		}
 	}
 
+	/**
+	 * Vanilla buffer for render types we don't handle.
+	 */
+	protected VertexConsumer fallbackBuffer(RenderType renderLayer) {
+		return super.getBuffer(renderLayer);
+	}
+
 	public VertexEmitter getConsumer(RenderMaterial material) {
 		final CanvasRenderMaterial mat = contextState.mapMaterial((CanvasRenderMaterial) material);
 		return collectors.emitter.prepare(mat);
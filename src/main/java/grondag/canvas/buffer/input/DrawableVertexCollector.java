@@ -57,11 +57,33 @@ public interface DrawableVertexCollector extends VertexCollector {
 
 	boolean sortTerrainQuads(Vec3 sortPos, RegionRenderSector sector);
 
+	/**
+	 * First quad moved by the most recent {@link #sortTerrainQuads(Vec3, RegionRenderSector)}.
+	 * Quads outside the dirty range kept their position.
+	 */
+	int sortDirtyStartQuad();
+
+	/**
+	 * Quad index after the last quad moved by the most recent sort. Equal to
+	 * {@link #sortDirtyStartQuad()} if nothing moved.
+	 */
+	int sortDirtyEndQuad();
+
 	@Nullable
 	int[] saveState(@Nullable int[] translucentState);
 
 	void loadState(int[] state);
 
+	/**
+	 * Captures the current content size for {@link #rollback(long)}.
+	 */
+	long mark();
+
+	/**
+	 * Discards everything committed since the given {@link #mark()}.
+	 */
+	void rollback(long mark);
+
 	FaceBucket[] faceBuckets();
 
 	FaceBucket faceBucket(int index);
@@ -107,6 +107,16 @@ public class ShadowVertexCollector extends BaseVertexCollector {
 		throw new UnsupportedOperationException("ShadowVertexCollector vertex collector does not support sortTerrainQuads.");
 	}
 
+	@Override
+	public int sortDirtyStartQuad() {
+		throw new UnsupportedOperationException("ShadowVertexCollector vertex collector does not support sortDirtyStartQuad.");
+	}
+
+	@Override
+	public int sortDirtyEndQuad() {
+		throw new UnsupportedOperationException("ShadowVertexCollector vertex collector does not support sortDirtyEndQuad.");
+	}
+
 	@Override
 	public @Nullable int[] saveState(@Nullable int[] translucentState) {
 		throw new UnsupportedOperationException("ShadowVertexCollector vertex collector does not support saveState.");
@@ -117,6 +127,18 @@ public class ShadowVertexCollector extends BaseVertexCollector {
 		throw new UnsupportedOperationException("ShadowVertexCollector vertex collector does not support loadState");
 	}
 
+	@Override
+	public long mark() {
+		return ((long) common.integerSize << 32) | colorOnly.integerSize;
+	}
+
+	@Override
+	public void rollback(long mark) {
+		common.rollback(mark >>> 32);
+		colorOnly.rollback(mark & 0xFFFFFFFFL);
+		integerSize = common.integerSize + colorOnly.integerSize;
+	}
+
 	@Override
 	public FaceBucket[] faceBuckets() {
 		throw new UnsupportedOperationException("ShadowVertexCollector vertex collector does not support vertexBuckets");
@@ -20,8 +20,7 @@
 
 package grondag.canvas.buffer.input;
 
-import it.unimi.dsi.fastutil.Swapper;
-import it.unimi.dsi.fastutil.ints.IntComparator;
+import java.util.Arrays;
 
 import net.minecraft.util.Mth;
 import net.minecraft.world.phys.Vec3;
@@ -30,14 +29,31 @@ import grondag.canvas.material.state.RenderState;
 import grondag.canvas.render.terrain.TerrainSectorMap.RegionRenderSector;
 
 public class SortingVertexCollector extends SimpleVertexCollector {
-	private float[] perQuadDistance = new float[512];
-	private final int[] swapData;
-	private boolean didSwap = false;
+	private static final int RADIX_BITS = 8;
+	private static final int RADIX_SIZE = 1 << RADIX_BITS;
+	private static final int RADIX_MASK = RADIX_SIZE - 1;
+
+	/**
+	 * Insertion sort gives up and falls back to radix sort after this many
+	 * element moves per quad. Small camera movements need far fewer.
+	 */
+	private static final int INSERTION_SORT_MOVES_PER_QUAD = 8;
+
+	/**
+	 * Packed sort keys.  High 32 bits are the inverted float bits of the quad distance
+	 * so that ascending key order is farthest first. Low 32 bits are the quad index
+	 * before sorting, which makes every key unique and the result stable.
+	 */
+	private long[] sortKeys = new long[512];
+	private long[] sortScratch = new long[512];
+	private int[] vertexScratch = new int[1024];
+	private final int[] radixCounts = new int[RADIX_SIZE];
+	private int dirtyStartQuad = 0;
+	private int dirtyEndQuad = 0;
 	final QuadDistanceFunc distanceFunc;
 
 	public SortingVertexCollector(RenderState renderState, boolean isTerrain, int[] target) {
 		super(renderState, target);
-		swapData = new int[quadStrideInts * 2];
 		distanceFunc = isTerrain ? this::getDistanceSqTerrain : this::getDistanceSq;
 	}
 
@@ -50,57 +66,199 @@ public class SortingVertexCollector extends SimpleVertexCollector {
 		);
 	}
 
+	@Override
+	public int sortDirtyStartQuad() {
+		return dirtyStartQuad;
+	}
+
+	@Override
+	public int sortDirtyEndQuad() {
+		return dirtyEndQuad;
+	}
+
+	/**
+	 * Sorts quads farthest first.  Order of quads at equal distance is preserved -
+	 * stability is important here, unstable sorts cause visible problems.
+	 *
+	 * <p>Quads are usually loaded in the order of the previous sort, so when the camera
+	 * has moved only a little the input is nearly sorted. We try insertion sort first
+	 * in that case and fall back to radix sort if there are too many inversions.
+	 * Only the range of quads that actually moved is rewritten.
+	 *
+	 * @return true if quad order changed
+	 */
 	private boolean sortQuads(float x, float y, float z) {
 		final int quadCount = quadCount();
-		final QuadDistanceFunc distanceFunc = this.distanceFunc;
+		dirtyStartQuad = 0;
+		dirtyEndQuad = 0;
+
+		if (quadCount < 2) {
+			return false;
+		}
 
-		if (perQuadDistance.length < quadCount) {
-			perQuadDistance = new float[Mth.smallestEncompassingPowerOfTwo(quadCount)];
+		if (sortKeys.length < quadCount) {
+			final int newSize = Mth.smallestEncompassingPowerOfTwo(quadCount);
+			sortKeys = new long[newSize];
+			sortScratch = new long[newSize];
 		}
 
+		final long[] keys = sortKeys;
+		final QuadDistanceFunc distanceFunc = this.distanceFunc;
+		boolean isSorted = true;
+		long lastKey = Long.MIN_VALUE;
+
 		for (int j = 0; j < quadCount; ++j) {
-			perQuadDistance[j] = distanceFunc.compute(x, y, z, j);
+			final long key = distanceKey(distanceFunc.compute(x, y, z, j)) | j;
+			isSorted &= key > lastKey;
+			keys[j] = key;
+			lastKey = key;
 		}
 
-		didSwap = false;
+		// Nothing moves if existing order is already farthest-first
+		if (isSorted) {
+			return false;
+		}
 
-		// sort the indexes by distance - farthest first
-		// mergesort is important here - quicksort causes problems
-		// PERF: consider sorting primitive packed long array with distance in high bits
-		// and then use result to reorder the array. Will need to copy vertex data.
-		it.unimi.dsi.fastutil.Arrays.mergeSort(0, quadCount, comparator, swapper);
+		System.arraycopy(keys, 0, sortScratch, 0, quadCount);
 
-		return didSwap;
+		if (!insertionSort(quadCount, quadCount * INSERTION_SORT_MOVES_PER_QUAD)) {
+			// Too far out of order - restore input order and do it the hard way
+			final long[] swap = sortKeys;
+			sortKeys = sortScratch;
+			sortScratch = swap;
+			radixSort(quadCount);
+		}
+
+		findDirtyRange(quadCount);
+		gatherQuads();
+		return true;
 	}
 
-	private interface QuadDistanceFunc {
-		float compute(float x, float y, float z, int quadIndex);
+	/**
+	 * Stable because keys are unique and include the input index.
+	 *
+	 * @return false if more than maxMoves were needed, leaving keys partially sorted
+	 */
+	private boolean insertionSort(int quadCount, int maxMoves) {
+		final long[] keys = sortKeys;
+
+		for (int i = 1; i < quadCount; ++i) {
+			final long key = keys[i];
+			int j = i - 1;
+
+			while (j >= 0 && keys[j] > key) {
+				keys[j + 1] = keys[j];
+				--j;
+
+				if (--maxMoves < 0) {
+					return false;
+				}
+			}
+
+			keys[j + 1] = key;
+		}
+
+		return true;
 	}
 
-	private final IntComparator comparator = new IntComparator() {
-		@Override
-		public int compare(int a, int b) {
-			return Float.compare(perQuadDistance[b], perQuadDistance[a]);
+	private void findDirtyRange(int quadCount) {
+		final long[] keys = sortKeys;
+		int start = 0;
+
+		while (start < quadCount && (int) keys[start] == start) {
+			++start;
+		}
+
+		int end = quadCount;
+
+		while (end > start && (int) keys[end - 1] == end - 1) {
+			--end;
 		}
-	};
-
-	private final Swapper swapper = new Swapper() {
-		@Override
-		public void swap(int a, int b) {
-			didSwap = true;
-			final float distSwap = perQuadDistance[a];
-			perQuadDistance[a] = perQuadDistance[b];
-			perQuadDistance[b] = distSwap;
-
-			final int aIndex = a * quadStrideInts;
-			final int bIndex = b * quadStrideInts;
-
-			System.arraycopy(vertexData, aIndex, swapData, 0, quadStrideInts);
-			System.arraycopy(vertexData, bIndex, swapData, quadStrideInts, quadStrideInts);
-			System.arraycopy(swapData, 0, vertexData, bIndex, quadStrideInts);
-			System.arraycopy(swapData, quadStrideInts, vertexData, aIndex, quadStrideInts);
+
+		dirtyStartQuad = start;
+		dirtyEndQuad = end;
+	}
+
+	/**
+	 * Distances are always non-negative, so float bits sort the same as the float values.
+	 * Inverting them gives farthest first in ascending (signed) key order.
+	 */
+	private static long distanceKey(float distance) {
+		return (long) (~Float.floatToRawIntBits(distance)) << 32;
+	}
+
+	/**
+	 * Stable LSD radix sort on the distance half of the packed keys.  The low half is
+	 * already in ascending order and LSD passes are stable, so it never needs sorting.
+	 * Passes where every key has the same digit are skipped.
+	 */
+	private void radixSort(int quadCount) {
+		long[] src = sortKeys;
+		long[] dst = sortScratch;
+		final int[] counts = radixCounts;
+
+		for (int shift = 32; shift < 64; shift += RADIX_BITS) {
+			Arrays.fill(counts, 0);
+
+			for (int i = 0; i < quadCount; ++i) {
+				++counts[(int) (src[i] >>> shift) & RADIX_MASK];
+			}
+
+			if (counts[(int) (src[0] >>> shift) & RADIX_MASK] == quadCount) {
+				continue;
+			}
+
+			int offset = 0;
+
+			for (int d = 0; d < RADIX_SIZE; ++d) {
+				final int c = counts[d];
+				counts[d] = offset;
+				offset += c;
+			}
+
+			for (int i = 0; i < quadCount; ++i) {
+				final long key = src[i];
+				dst[counts[(int) (key >>> shift) & RADIX_MASK]++] = key;
+			}
+
+			final long[] swap = src;
+			src = dst;
+			dst = swap;
 		}
-	};
+
+		// Keep sorted result in sortKeys
+		sortKeys = src;
+		sortScratch = dst;
+	}
+
+	/**
+	 * Copies vertex data for the dirty range to scratch in sorted order
+	 * with a single pass and then copies it back.
+	 */
+	private void gatherQuads() {
+		final int quadStrideInts = this.quadStrideInts;
+		final int start = dirtyStartQuad;
+		final int end = dirtyEndQuad;
+		final int integerSize = (end - start) * quadStrideInts;
+
+		if (vertexScratch.length < integerSize) {
+			vertexScratch = new int[Mth.smallestEncompassingPowerOfTwo(integerSize)];
+		}
+
+		final int[] vertexData = this.vertexData;
+		final int[] scratch = vertexScratch;
+		final long[] keys = sortKeys;
+
+		for (int i = start; i < end; ++i) {
+			System.arraycopy(vertexData, (int) keys[i] * quadStrideInts, scratch, (i - start) * quadStrideInts, quadStrideInts);
+		}
+
+		System.arraycopy(scratch, 0, vertexData, start * quadStrideInts, integerSize);
+	}
+
+	private interface QuadDistanceFunc {
+		float compute(float x, float y, float z, int quadIndex);
+	}
 
 	private float getDistanceSq(float x, float y, float z, int quadIndex) {
 		final int integerStride = quadStrideInts / 4;
@@ -119,6 +119,16 @@ public class TerrainVertexCollector extends BaseVertexCollector {
 		throw new UnsupportedOperationException("Compound vertex collector does not support sortTerrainQuads.");
 	}
 
+	@Override
+	public int sortDirtyStartQuad() {
+		throw new UnsupportedOperationException("Compound vertex collector does not support sortDirtyStartQuad.");
+	}
+
+	@Override
+	public int sortDirtyEndQuad() {
+		throw new UnsupportedOperationException("Compound vertex collector does not support sortDirtyEndQuad.");
+	}
+
 	@Override
 	public @Nullable int[] saveState(@Nullable int[] translucentState) {
 		throw new UnsupportedOperationException("Compound vertex collector does not support saveState.");
@@ -129,6 +139,16 @@ public class TerrainVertexCollector extends BaseVertexCollector {
 		throw new UnsupportedOperationException("Compound vertex collector does not support loadState");
 	}
 
+	@Override
+	public long mark() {
+		throw new UnsupportedOperationException("Compound vertex collector does not support mark");
+	}
+
+	@Override
+	public void rollback(long mark) {
+		throw new UnsupportedOperationException("Compound vertex collector does not support rollback");
+	}
+
 	@Override
 	public FaceBucket faceBucket(int index) {
 		throw new UnsupportedOperationException("Compound vertex collector does not support faceBucket");
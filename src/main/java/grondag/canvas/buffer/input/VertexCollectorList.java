@@ -20,6 +20,7 @@
 
 package grondag.canvas.buffer.input;
 
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.function.Predicate;
 
@@ -31,6 +32,7 @@ import io.vram.frex.base.renderer.context.input.AbsentInputContext;
 import io.vram.frex.base.renderer.mesh.MeshEncodingHelper;
 import io.vram.frex.base.renderer.mesh.RootQuadEmitter;
 
+import grondag.canvas.buffer.format.CanvasVertexFormat;
 import grondag.canvas.buffer.format.CanvasVertexFormats;
 import grondag.canvas.buffer.format.StandardEncoder;
 import grondag.canvas.buffer.format.TerrainEncoder;
@@ -51,16 +53,45 @@ public class VertexCollectorList {
 	private final ObjectArrayList<DrawableVertexCollector> active = new ObjectArrayList<>();
 	private final DrawableVertexCollector[] collectors = new DrawableVertexCollector[RenderState.MAX_COUNT];
 	private final ObjectArrayList<DrawableVertexCollector> drawList = new ObjectArrayList<>();
+	/** Lists whose collectors are drawn along with ours. */
+	private final ObjectArrayList<VertexCollectorList> attached = new ObjectArrayList<>();
+	/** Collector content sizes captured by {@link #mark()}, in active order. */
+	private long[] marks = new long[16];
+	private int markedCount = 0;
 	/** If true, will segregate quads by face. */
 	public final boolean trackFaces;
 	/** If true, will segregate quads by shadow casting ability. */
-	private final int[] target;
+	private int[] target;
 	protected final boolean isTerrain;
+	/** Format of all collectors in this list. Terrain format can change on reload. */
+	private CanvasVertexFormat format;
 
 	public VertexCollectorList(boolean trackFaces, boolean isTerrain) {
 		this.trackFaces = trackFaces;
 		this.isTerrain = isTerrain;
-		target = new int[isTerrain ? TerrainEncoder.TERRAIN_MATERIAL.quadStrideInts : CanvasVertexFormats.STANDARD_MATERIAL_FORMAT.quadStrideInts];
+		format = isTerrain ? TerrainEncoder.terrainFormat() : CanvasVertexFormats.STANDARD_MATERIAL_FORMAT;
+		target = new int[format.quadStrideInts];
+	}
+
+	public final CanvasVertexFormat format() {
+		return format;
+	}
+
+	/**
+	 * Call before each terrain build. Collectors are sized for the format in effect when they
+	 * were created, so if the terrain format changed since then they are discarded and
+	 * recreated in the new format as needed.
+	 */
+	public void updateTerrainFormat() {
+		final CanvasVertexFormat terrainFormat = TerrainEncoder.terrainFormat();
+
+		if (isTerrain && terrainFormat != format) {
+			format = terrainFormat;
+			target = new int[terrainFormat.quadStrideInts];
+			Arrays.fill(collectors, null);
+			active.clear();
+			markedCount = 0;
+		}
 	}
 
 	/**
@@ -108,6 +139,40 @@ public class VertexCollectorList {
 		}
 	}
 
+	/**
+	 * Remembers the content of all collectors so that output emitted after this
+	 * call can be discarded by {@link #rollback()}.
+	 */
+	public void mark() {
+		final int limit = active.size();
+
+		if (marks.length < limit) {
+			marks = new long[Math.max(limit, marks.length * 2)];
+		}
+
+		for (int i = 0; i < limit; i++) {
+			marks[i] = active.get(i).mark();
+		}
+
+		markedCount = limit;
+	}
+
+	/**
+	 * Discards output emitted since the last {@link #mark()}.
+	 * Collectors created after the mark are cleared.
+	 */
+	public void rollback() {
+		final int limit = active.size();
+
+		for (int i = 0; i < limit; i++) {
+			if (i < markedCount) {
+				active.get(i).rollback(marks[i]);
+			} else {
+				active.get(i).clear();
+			}
+		}
+	}
+
 	public final DrawableVertexCollector getIfExists(CanvasRenderMaterial materialState) {
 		return materialState.isMissing() ? null : collectors[materialState.collectorIndex()];
 	}
@@ -178,17 +243,12 @@ public class VertexCollectorList {
 	public ObjectArrayList<DrawableVertexCollector> sortedDrawList(Predicate<RenderState> predicate) {
 		final ObjectArrayList<DrawableVertexCollector> drawList = this.drawList;
 		drawList.clear();
+		addPopulated(drawList, predicate);
 
-		final int limit = active.size();
-
-		if (limit != 0) {
-			for (int i = 0; i < limit; ++i) {
-				final DrawableVertexCollector collector = get(i);
+		final int attachedCount = attached.size();
 
-				if (!collector.isEmpty() && predicate.test(collector.renderState())) {
-					drawList.add(collector);
-				}
-			}
+		for (int i = 0; i < attachedCount; ++i) {
+			attached.get(i).addPopulated(drawList, predicate);
 		}
 
 		if (drawList.size() > 1) {
@@ -198,6 +258,32 @@ public class VertexCollectorList {
 		return drawList;
 	}
 
+	private void addPopulated(ObjectArrayList<DrawableVertexCollector> drawList, Predicate<RenderState> predicate) {
+		final int limit = active.size();
+
+		for (int i = 0; i < limit; ++i) {
+			final DrawableVertexCollector collector = get(i);
+
+			if (!collector.isEmpty() && predicate.test(collector.renderState())) {
+				drawList.add(collector);
+			}
+		}
+	}
+
+	/**
+	 * Includes populated collectors of the given list in {@link #sortedDrawList(Predicate)}
+	 * until {@link #detachAll()} is called. Used to draw output encoded on other threads
+	 * together with ours, in draw priority order and from the same buffer.
+	 */
+	public void attach(VertexCollectorList other) {
+		assert other != this && !other.attached.contains(this);
+		attached.add(other);
+	}
+
+	public void detachAll() {
+		attached.clear();
+	}
+
 	private static final Comparator<DrawableVertexCollector> DRAW_SORT = (a, b) -> {
 		// note reverse argument order - higher priority wins
 		return Long.compare(b.renderState().drawPriority, a.renderState().drawPriority);
@@ -47,6 +47,7 @@ public class StreamBufferAllocator {
 	public static void forceReload() {
 		assert RenderSystem.isOnRenderThread();
 		ALLOCATORS.values().forEach(BufferAllocator::forceReload);
+		StreamRingBuffer.forceReload();
 	}
 
 	static void release(StreamBuffer streamBuffer) {
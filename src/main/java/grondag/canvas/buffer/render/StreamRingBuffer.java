@@ -0,0 +1,203 @@
+/*
+ * This file is part of Canvas Renderer and is licensed to the project under
+ * terms that are compatible with the GNU Lesser General Public License.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership and licensing.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package grondag.canvas.buffer.render;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.IdentityHashMap;
+
+import org.jetbrains.annotations.Nullable;
+
+import com.mojang.blaze3d.systems.RenderSystem;
+
+import grondag.canvas.buffer.format.BufferVAO;
+import grondag.canvas.buffer.format.CanvasVertexFormat;
+import grondag.canvas.buffer.util.BufferSynchronizer;
+import grondag.canvas.buffer.util.BufferSynchronizer.SynchronizedBuffer;
+import grondag.canvas.varia.CanvasGlHelper;
+import grondag.canvas.varia.GFX;
+
+/**
+ * Coherent, persistently mapped vertex buffer for immediate draws, one per vertex format.
+ * Claims are written directly into the mapping in sequence and wrap to the start when
+ * the end is reached, so immediate batches never map, orphan or flush buffers.
+ *
+ * <p>Space written between two {@link BufferSynchronizer} check points is covered by
+ * the fence taken at the later check point and is reused only after that fence signals.
+ * If a claim doesn't fit in reusable space the ring is replaced by a larger one instead
+ * of waiting on the GPU. The replaced ring is deleted once its last writes are done.
+ *
+ * <p>Requires buffer storage support. Render thread only.
+ */
+public class StreamRingBuffer extends AbstractGlBuffer {
+	private static final int INITIAL_CAPACITY_BYTES = 0x400000;
+	private static final int MAP_FLAGS = GFX.GL_MAP_WRITE_BIT | GFX.GL_MAP_PERSISTENT_BIT | GFX.GL_MAP_COHERENT_BIT;
+	private static final IdentityHashMap<CanvasVertexFormat, StreamRingBuffer> RINGS = new IdentityHashMap<>();
+
+	public final CanvasVertexFormat format;
+	private final BufferVAO vao;
+	private ByteBuffer mappedBuffer;
+
+	/** Total bytes ever claimed, including bytes skipped to wrap. Claims start at {@code head % capacityBytes}. */
+	private long head;
+
+	/** Bytes before this total are no longer read by the GPU and may be written again. */
+	private long tail;
+
+	/** Accepts writes since the last check point, or null if there were none. */
+	private @Nullable Segment segment;
+
+	private StreamRingBuffer(CanvasVertexFormat format, int capacityBytes) {
+		// keep capacity a multiple of vertex stride so that every claim starts on a vertex boundary
+		super(capacityBytes - capacityBytes % format.vertexStrideBytes, GFX.GL_ARRAY_BUFFER, 0);
+		this.format = format;
+		vao = new BufferVAO(format, () -> glBufferId(), () -> 0);
+		glBufferId();
+		assert mappedBuffer != null;
+	}
+
+	@Override
+	protected void createBuffer() {
+		GFX.bufferStorage(bindTarget, capacityBytes, MAP_FLAGS);
+		mappedBuffer = GFX.mapBufferRange(bindTarget, 0, capacityBytes, MAP_FLAGS);
+	}
+
+	/**
+	 * Ring for the given format with room for a claim of the given size, or null if
+	 * persistent mapping isn't supported and callers must use {@link StreamBuffer} instead.
+	 */
+	public static @Nullable StreamRingBuffer forClaim(CanvasVertexFormat format, int bytes) {
+		assert RenderSystem.isOnRenderThread();
+
+		if (!CanvasGlHelper.supportsPersistentMapped()) {
+			return null;
+		}
+
+		StreamRingBuffer result = RINGS.get(format);
+
+		if (result == null) {
+			result = new StreamRingBuffer(format, Math.max(INITIAL_CAPACITY_BYTES, bytes * 2));
+			RINGS.put(format, result);
+		} else if (result.start(bytes) < 0) {
+			// Should happen only while the ring is growing to fit peak demand
+			result.retire();
+			result = new StreamRingBuffer(format, Math.max(result.capacityBytes * 2, bytes * 2));
+			RINGS.put(format, result);
+		}
+
+		return result;
+	}
+
+	/** Start offset of a claim of the given size, or -1 if it would overwrite bytes still in use. */
+	private long start(int bytes) {
+		final long wrapOffset = head % capacityBytes;
+		final long start = wrapOffset + bytes > capacityBytes ? head + capacityBytes - wrapOffset : head;
+		return start + bytes - tail > capacityBytes ? -1 : start;
+	}
+
+	/**
+	 * Reserves bytes for vertices and returns the byte offset where they should be written.
+	 * Must follow {@link #forClaim(CanvasVertexFormat, int)} with the same size.
+	 */
+	public int claim(int bytes) {
+		assert bytes % format.vertexStrideBytes == 0;
+		final long start = start(bytes);
+		assert start >= 0 : "Stream ring claim without room";
+		head = start + bytes;
+
+		if (segment == null || segment.checkPoint != BufferSynchronizer.checkPointCount()) {
+			segment = new Segment();
+			BufferSynchronizer.accept(segment);
+		}
+
+		segment.end = head;
+		return (int) (start % capacityBytes);
+	}
+
+	/** View of the mapped memory for a claim. Writes are visible to subsequent draws without a flush. */
+	public IntBuffer intBuffer(int byteOffset, int bytes) {
+		return mappedBuffer.slice(byteOffset, bytes).order(mappedBuffer.order()).asIntBuffer();
+	}
+
+	@Override
+	public void bind() {
+		vao.bind();
+	}
+
+	/** Deletes the ring after the GPU has finished with everything written to it so far. */
+	private void retire() {
+		BufferSynchronizer.accept(new SynchronizedBuffer() {
+			@Override
+			public void onBufferSync() {
+				StreamRingBuffer.this.shutdown();
+			}
+
+			@Override
+			public void shutdown() {
+				StreamRingBuffer.this.shutdown();
+			}
+		});
+	}
+
+	@Override
+	protected void onShutdown() {
+		GFX.bindBuffer(bindTarget, glBufferId());
+		GFX.unmapBuffer(bindTarget);
+		GFX.bindBuffer(bindTarget, 0);
+		mappedBuffer = null;
+		vao.shutdown();
+	}
+
+	public static void forceReload() {
+		assert RenderSystem.isOnRenderThread();
+		RINGS.values().forEach(StreamRingBuffer::shutdown);
+		RINGS.clear();
+	}
+
+	public static String debugString() {
+		long inUse = 0;
+		long capacity = 0;
+
+		for (final var ring : RINGS.values()) {
+			inUse += ring.head - ring.tail;
+			capacity += ring.capacityBytes;
+		}
+
+		return String.format("Stream ring: %5.1fMb of %5.1fMb in flight", (double) inUse / 0x100000, (double) capacity / 0x100000);
+	}
+
+	/** Writes made between two check points. Frees their space once the fence of the later check point signals. */
+	private class Segment implements SynchronizedBuffer {
+		private final int checkPoint = BufferSynchronizer.checkPointCount();
+		private long end;
+
+		@Override
+		public void onBufferSync() {
+			// segments are released in the order written
+			tail = end;
+		}
+
+		@Override
+		public void shutdown() {
+			// NOOP
+		}
+	}
+}
@@ -24,6 +24,7 @@ import net.minecraft.util.Mth;
 
 public record BinIndex(int binIndex, int capacityBytes) {
 	public static final int MIN_BIN_SIZE = 0x1000;
+	private static final int MIN_BIN_SHIFT = 12;
 	public static final int BIN_INDEX_SHIFT = 11;
 	public static final int MAX_BIN_INDEX = 18;
 	public static final int BIN_COUNT = MAX_BIN_INDEX + 1;
@@ -44,6 +45,11 @@ public record BinIndex(int binIndex, int capacityBytes) {
 		assert binIndex(0x1FFF) == 1;
 		assert binIndex(0x2000) == 2;
 		assert binIndex(0x0001 << (MAX_BIN_INDEX + BIN_INDEX_SHIFT)) == MAX_BIN_INDEX;
+		assert MIN_BIN_SIZE == 1 << MIN_BIN_SHIFT;
+		assert fitting(1).binIndex == 0;
+		assert fitting(0x1000).binIndex == 0;
+		assert fitting(0x1001).binIndex == 1;
+		assert fitting(MAX_BIN_SIZE).binIndex == MAX_BIN_INDEX;
 	}
 
 	public static final int binIndex(int size) {
@@ -58,4 +64,10 @@ public record BinIndex(int binIndex, int capacityBytes) {
 		assert capacityBytes > 0;
 		return BINS[binIndex(capacityBytes)];
 	}
+
+	/** Smallest bin with capacity of at least the given size, which must not exceed {@link #MAX_BIN_SIZE}. */
+	public static final BinIndex fitting(int bytes) {
+		assert bytes > 0 && bytes <= MAX_BIN_SIZE;
+		return BINS[Math.max(0, Mth.ceillog2(bytes) - MIN_BIN_SHIFT)];
+	}
 }
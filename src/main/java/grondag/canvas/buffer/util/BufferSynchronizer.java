@@ -28,6 +28,7 @@ import grondag.canvas.varia.GFX;
 public class BufferSynchronizer {
 	private static final ObjectArrayFIFOQueue<SyncBufferList> queue = new ObjectArrayFIFOQueue<>(4);
 	private static SyncBufferList currentFrameAccumultator = new SyncBufferList();
+	private static int checkPointCount;
 
 	public static void accept(SynchronizedBuffer buffer) {
 		currentFrameAccumultator.add(buffer);
@@ -41,6 +42,16 @@ public class BufferSynchronizer {
 			queue.enqueue(currentFrameAccumultator);
 			currentFrameAccumultator = new SyncBufferList();
 		}
+
+		++checkPointCount;
+	}
+
+	/**
+	 * Changes at each check point.  Buffers accepted while this value is unchanged
+	 * are covered by the same fence and will be released together.
+	 */
+	public static int checkPointCount() {
+		return checkPointCount;
 	}
 
 	private static void releaseBuffers() {
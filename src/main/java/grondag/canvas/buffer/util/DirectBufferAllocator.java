@@ -24,9 +24,12 @@ import java.lang.ref.PhantomReference;
 import java.lang.ref.Reference;
 import java.lang.ref.ReferenceQueue;
 import java.nio.ByteBuffer;
+import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.function.Consumer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 import org.jetbrains.annotations.Nullable;
 import org.lwjgl.BufferUtils;
@@ -37,88 +40,182 @@ import com.mojang.blaze3d.systems.RenderSystem;
 import grondag.canvas.CanvasMod;
 import grondag.canvas.config.Configurator;
 
+/**
+ * Off-heap byte buffers pooled by {@link BinIndex} size class.  Claims are rounded up to
+ * the capacity of their class and released blocks are kept for reuse, first in a small
+ * cache owned by the releasing thread and then in a lock-free pool shared by all threads.
+ * Steady-state claims therefore neither allocate native memory nor contend with each other.
+ * Claims larger than the largest class are allocated and freed directly.
+ *
+ * <p>Blocks must be released explicitly. Leaked blocks are detected and recovered only when
+ * native memory debug is enabled so that reference processing costs nothing otherwise.
+ *
+ * <p>Once per second the shared pools are trimmed to the number of blocks claimed from
+ * each class in the prior second.
+ */
 public class DirectBufferAllocator {
 	public static class DirectBufferReference {
 		private ByteBuffer buffer;
-		private final Runnable dealloc;
+		private final int classIndex;
+		private final @Nullable PhantomReference<DirectBufferReference> leakReference;
 
-		private DirectBufferReference(ByteBuffer buffer, Runnable dealloc) {
+		private DirectBufferReference(ByteBuffer buffer, int classIndex) {
 			this.buffer = buffer;
-			this.dealloc = dealloc;
+			this.classIndex = classIndex;
+
+			if (TRACK_LEAKS) {
+				leakReference = new PhantomReference<>(this, LEAK_QUEUE);
+				LEAK_MAP.put(leakReference, new LeakedBlock(buffer, classIndex));
+			} else {
+				leakReference = null;
+			}
 		}
 
+		/** Position zero and limit at the claimed size.  Capacity may be larger. */
 		public @Nullable ByteBuffer buffer() {
 			return buffer;
 		}
 
 		public void release() {
 			if (buffer != null) {
-				dealloc.run();
+				if (leakReference != null) {
+					LEAK_MAP.remove(leakReference);
+				}
+
+				free(buffer, classIndex);
 				buffer = null;
 			}
 		}
 	}
 
-	private static class Deallocator implements Runnable {
-		private ByteBuffer buffer;
-		private final Consumer<ByteBuffer> dealloc;
+	private record LeakedBlock(ByteBuffer buffer, int classIndex) { }
 
-		Deallocator (ByteBuffer buffer, Consumer<ByteBuffer> dealloc) {
-			this.buffer = buffer;
-			this.dealloc = dealloc;
+	/** Blocks cached by one thread.  Only classes up to {@link #MAX_LOCAL_CLASS} are cached. */
+	private static class LocalCache {
+		private final ByteBuffer[][] blocks = new ByteBuffer[MAX_LOCAL_CLASS + 1][LOCAL_CACHE_DEPTH];
+		private final int[] counts = new int[MAX_LOCAL_CLASS + 1];
+	}
+
+	private static final int LOCAL_CACHE_DEPTH = 4;
+
+	/** Larger blocks go straight to the shared pool so that idle threads don't hold much memory. */
+	private static final int MAX_LOCAL_CLASS = BinIndex.fitting(0x100000).binIndex();
+
+	/** Statistics index for claims too large to pool. */
+	private static final int OVERSIZE_CLASS = BinIndex.BIN_COUNT;
+	private static final int CLASS_COUNT = BinIndex.BIN_COUNT + 1;
+
+	private static final ThreadLocal<LocalCache> LOCAL = ThreadLocal.withInitial(LocalCache::new);
+	@SuppressWarnings("unchecked")
+	private static final ConcurrentLinkedQueue<ByteBuffer>[] SHARED = new ConcurrentLinkedQueue[BinIndex.BIN_COUNT];
+
+	private static final boolean TRACK_LEAKS = Configurator.debugNativeMemoryAllocation.get();
+	private static final ReferenceQueue<DirectBufferReference> LEAK_QUEUE = new ReferenceQueue<>();
+	private static final ConcurrentHashMap<PhantomReference<DirectBufferReference>, LeakedBlock> LEAK_MAP = new ConcurrentHashMap<>();
+
+	private static final AtomicLongArray LIVE_BYTES = new AtomicLongArray(CLASS_COUNT);
+	private static final AtomicLongArray PEAK_BYTES = new AtomicLongArray(CLASS_COUNT);
+	private static final AtomicLongArray POOLED_BYTES = new AtomicLongArray(CLASS_COUNT);
+	private static final AtomicIntegerArray INTERVAL_CLAIMS = new AtomicIntegerArray(CLASS_COUNT);
+	private static final AtomicLong ALLOCATED_BYTES = new AtomicLong();
+
+	private static long nextCleanupTimeMilliseconds;
+	private static long lastAllocatedBytes;
+	private static long sampleBytes;
+
+	static {
+		for (int i = 0; i < BinIndex.BIN_COUNT; ++i) {
+			SHARED[i] = new ConcurrentLinkedQueue<>();
+		}
+	}
+
+	public static DirectBufferReference claim(int bytes) {
+		assert bytes > 0;
+		final int classIndex;
+		ByteBuffer buffer = null;
+
+		if (bytes > BinIndex.MAX_BIN_SIZE) {
+			classIndex = OVERSIZE_CLASS;
+		} else {
+			classIndex = BinIndex.fitting(bytes).binIndex();
+			buffer = takePooled(classIndex);
 		}
 
-		@Override
-		public void run() {
-			synchronized (buffer) {
-				if (buffer != null) {
-					openBytes.addAndGet(-buffer.capacity());
-					//openCount.decrementAndGet();
-					dealloc.accept(buffer);
-					buffer = null;
-				}
-			}
+		if (buffer == null) {
+			buffer = allocate(classIndex == OVERSIZE_CLASS ? bytes : BinIndex.fromIndex(classIndex).capacityBytes());
 		}
 
-		public void releaseIfLeaked() {
-			if (buffer != null) {
-				CanvasMod.LOG.warn("Memory leak detected. This should not normally occur. Bytes recovered: " + buffer.capacity());
-				run();
+		final int capacity = buffer.capacity();
+		final long live = LIVE_BYTES.addAndGet(classIndex, capacity);
+		PEAK_BYTES.accumulateAndGet(classIndex, live, Math::max);
+		INTERVAL_CLAIMS.incrementAndGet(classIndex);
+
+		buffer.clear().limit(bytes);
+		return new DirectBufferReference(buffer, classIndex);
+	}
+
+	private static @Nullable ByteBuffer takePooled(int classIndex) {
+		ByteBuffer result = null;
+
+		if (classIndex <= MAX_LOCAL_CLASS) {
+			final LocalCache local = LOCAL.get();
+			final int count = local.counts[classIndex];
+
+			if (count > 0) {
+				local.counts[classIndex] = count - 1;
+				result = local.blocks[classIndex][count - 1];
+				local.blocks[classIndex][count - 1] = null;
 			}
 		}
-	}
 
-	//private static final AtomicReference<LinkedTransferQueue<BufferReferenceHolder>> REFERENCES = new AtomicReference<>(new LinkedTransferQueue<>());
-	//private static LinkedTransferQueue<BufferReferenceHolder> idleList = new LinkedTransferQueue<>();
-	private static final ReferenceQueue<DirectBufferReference> REFERENCES = new ReferenceQueue<>();
-	private static final ConcurrentHashMap<PhantomReference<DirectBufferReference>, Deallocator> MAP = new ConcurrentHashMap<>();
+		if (result == null) {
+			result = SHARED[classIndex].poll();
+		}
 
-	private static long nextCleanupTimeMilliseconds;
-	//private static int lastCount;
-	private static int lastBytes;
-	//private static int sampleCount;
-	private static int sampleBytes;
-	//private static final AtomicInteger openCount = new AtomicInteger();
-	private static final AtomicInteger openBytes = new AtomicInteger();
-	//private static final AtomicInteger totalCount = new AtomicInteger();
-	private static final AtomicInteger totalBytes = new AtomicInteger();
+		if (result != null) {
+			POOLED_BYTES.addAndGet(classIndex, -result.capacity());
+		}
 
-	public static DirectBufferReference claim(int bytes) {
-		final boolean safe = Configurator.safeNativeMemoryAllocation.get();
-		final ByteBuffer buffer = safe ? BufferUtils.createByteBuffer(bytes) : MemoryUtil.memAlloc(bytes);
-
-		//openCount.incrementAndGet();
-		openBytes.addAndGet(bytes);
-		//totalCount.incrementAndGet();
-		totalBytes.addAndGet(bytes);
-
-		final Consumer<ByteBuffer> free = safe ? b -> { } : MemoryUtil::memFree;
-		final var dealloc = new Deallocator(buffer, free);
-		final var result = new DirectBufferReference(buffer, dealloc);
-		MAP.put(new PhantomReference<>(result, REFERENCES), dealloc);
 		return result;
 	}
 
+	private static void free(ByteBuffer buffer, int classIndex) {
+		final int capacity = buffer.capacity();
+		LIVE_BYTES.addAndGet(classIndex, -capacity);
+
+		if (classIndex == OVERSIZE_CLASS) {
+			deallocate(buffer);
+			return;
+		}
+
+		POOLED_BYTES.addAndGet(classIndex, capacity);
+
+		if (classIndex <= MAX_LOCAL_CLASS) {
+			final LocalCache local = LOCAL.get();
+			final int count = local.counts[classIndex];
+
+			if (count < LOCAL_CACHE_DEPTH) {
+				local.blocks[classIndex][count] = buffer;
+				local.counts[classIndex] = count + 1;
+				return;
+			}
+		}
+
+		SHARED[classIndex].offer(buffer);
+	}
+
+	private static ByteBuffer allocate(int bytes) {
+		ALLOCATED_BYTES.addAndGet(bytes);
+		return Configurator.safeNativeMemoryAllocation.get() ? BufferUtils.createByteBuffer(bytes) : MemoryUtil.memAlloc(bytes);
+	}
+
+	private static void deallocate(ByteBuffer buffer) {
+		// heap-managed buffers are freed by the garbage collector
+		if (!Configurator.safeNativeMemoryAllocation.get()) {
+			MemoryUtil.memFree(buffer);
+		}
+	}
+
 	public static void update() {
 		assert RenderSystem.isOnRenderThread();
 
@@ -127,38 +224,93 @@ public class DirectBufferAllocator {
 		if (time > nextCleanupTimeMilliseconds) {
 			nextCleanupTimeMilliseconds = time + 1000;
 
-			Reference<? extends DirectBufferReference> ref;
+			if (TRACK_LEAKS) {
+				recoverLeaks();
+			}
 
-			while ((ref = REFERENCES.poll()) != null) {
-				final Deallocator dealloc = MAP.remove(ref);
+			for (int i = 0; i < BinIndex.BIN_COUNT; ++i) {
+				trim(i, INTERVAL_CLAIMS.getAndSet(i, 0));
+			}
 
-				if (dealloc == null) {
-					CanvasMod.LOG.error("Direct buffer reference not found for finalization");
-				} else {
-					dealloc.releaseIfLeaked();
-				}
+			final long newBytes = ALLOCATED_BYTES.get();
+			sampleBytes = newBytes - lastAllocatedBytes;
+			lastAllocatedBytes = newBytes;
+		}
+	}
+
+	private static void recoverLeaks() {
+		Reference<? extends DirectBufferReference> ref;
+
+		while ((ref = LEAK_QUEUE.poll()) != null) {
+			// absent if released normally after the reference became unreachable
+			final LeakedBlock leaked = LEAK_MAP.remove(ref);
+
+			if (leaked != null) {
+				CanvasMod.LOG.warn("Memory leak detected. This should not normally occur. Bytes recovered: " + leaked.buffer.capacity());
+				free(leaked.buffer, leaked.classIndex);
 			}
+		}
+	}
+
+	/** Frees shared blocks beyond recent demand.  Thread caches are small and not trimmed. */
+	private static void trim(int classIndex, int demand) {
+		final ConcurrentLinkedQueue<ByteBuffer> pool = SHARED[classIndex];
+		int excess = pool.size() - demand;
 
-			//final int newCount = totalCount.get();
-			final int newBytes = totalBytes.get();
+		while (excess-- > 0) {
+			final ByteBuffer buffer = pool.poll();
+
+			if (buffer == null) {
+				break;
+			}
 
-			//sampleCount = newCount - lastCount;
-			sampleBytes = newBytes - lastBytes;
-			//lastCount = newCount;
-			lastBytes = newBytes;
+			POOLED_BYTES.addAndGet(classIndex, -buffer.capacity());
+			deallocate(buffer);
 		}
 	}
 
-	public static String debugString() {
+	/** Bytes claimed and not yet released in the given {@link BinIndex} class. */
+	public static long liveBytes(int binIndex) {
+		return LIVE_BYTES.get(binIndex);
+	}
+
+	/** Highest value of {@link #liveBytes(int)} seen for the given class. */
+	public static long peakBytes(int binIndex) {
+		return PEAK_BYTES.get(binIndex);
+	}
+
+	/** Bytes held for reuse in the given class, including blocks cached by threads. */
+	public static long pooledBytes(int binIndex) {
+		return POOLED_BYTES.get(binIndex);
+	}
+
+	/**
+	 * Adds totals to the debug output and, when native memory debug is enabled,
+	 * one line for each size class that has been used.
+	 */
+	public static void debugReport(List<String> target) {
+		long live = 0;
+		long pooled = 0;
+
+		for (int i = 0; i < CLASS_COUNT; ++i) {
+			live += LIVE_BYTES.get(i);
+			pooled += POOLED_BYTES.get(i);
+		}
+
 		final String type = Configurator.safeNativeMemoryAllocation.get() ? "Heap" : "Off-heap";
+		target.add(String.format("%s buffers:%5.1fMb pool:%5.1fMb alloc rate:%5.1fMb", type, mb(live), mb(pooled), mb(sampleBytes)));
+
+		if (TRACK_LEAKS) {
+			for (int i = 0; i < CLASS_COUNT; ++i) {
+				if (PEAK_BYTES.get(i) > 0) {
+					final String name = i == OVERSIZE_CLASS ? "large" : (BinIndex.fromIndex(i).capacityBytes() >> 10) + "Kb";
+					target.add(String.format(" %s live:%5.1fMb peak:%5.1fMb pool:%5.1fMb", name, mb(LIVE_BYTES.get(i)), mb(PEAK_BYTES.get(i)), mb(POOLED_BYTES.get(i))));
+				}
+			}
+		}
+	}
 
-		return String.format("%s buffers:%5.1fMb rate:%5.1fMb",
-				type,
-				//return String.format("Off-heap buffers :%3d %5.1fMb  rate:%4d %5.1fMb",
-				//openCount.get(),
-				(double) openBytes.get() / 0x100000,
-				//sampleCount,
-				(double) sampleBytes / 0x100000
-				);
+	private static double mb(long bytes) {
+		return (double) bytes / 0x100000;
 	}
 }
@@ -32,11 +32,19 @@ import grondag.canvas.buffer.format.CanvasVertexFormats;
 import grondag.canvas.buffer.input.DrawableVertexCollector;
 import grondag.canvas.buffer.input.FaceBucket;
 import grondag.canvas.buffer.render.StreamBuffer;
+import grondag.canvas.buffer.render.StreamRingBuffer;
 import grondag.canvas.material.state.RenderState;
 import grondag.canvas.varia.GFX;
 
+/**
+ * Vertices of one or more immediate batches, drawn from a shared {@link StreamRingBuffer}
+ * when persistent mapping is available or from a claimed {@link StreamBuffer} otherwise.
+ */
 public class DrawableStream implements AutoCloseable {
 	@Nullable private StreamBuffer buffer;
+	@Nullable private StreamRingBuffer ring;
+	/** First vertex of our claim in the ring.  Zero for stream buffers. */
+	private final int baseVertex;
 	private final int limit;
 	private final FaceBucket[] buckets;
 	private final RenderState[] states;
@@ -52,12 +60,23 @@ public class DrawableStream implements AutoCloseable {
 			bytes += collector.byteSize();
 		}
 
-		buffer = StreamBuffer.claim(bytes, CanvasVertexFormats.STANDARD_MATERIAL_FORMAT);
-		final IntBuffer intBuffer = buffer.intBuffer();
+		final var format = CanvasVertexFormats.STANDARD_MATERIAL_FORMAT;
+		final IntBuffer intBuffer;
+		ring = StreamRingBuffer.forClaim(format, bytes);
+
+		if (ring == null) {
+			buffer = StreamBuffer.claim(bytes, format);
+			intBuffer = buffer.intBuffer();
+			intBuffer.position(0);
+			baseVertex = 0;
+		} else {
+			final int byteOffset = ring.claim(bytes);
+			intBuffer = ring.intBuffer(byteOffset, bytes);
+			baseVertex = byteOffset / format.vertexStrideBytes;
+		}
+
 		buckets = new FaceBucket[limit];
 		states = new RenderState[limit];
-
-		intBuffer.position(0);
 		int startIndex = 0;
 
 		for (int i = 0; i < limit; ++i) {
@@ -70,19 +89,28 @@ public class DrawableStream implements AutoCloseable {
 		}
 
 		drawList.clear();
-		buffer.upload();
+
+		if (buffer != null) {
+			buffer.upload();
+		}
 	}
 
 	private DrawableStream() {
 		buffer = null;
+		ring = null;
+		baseVertex = 0;
 		limit = 0;
 		buckets = null;
 		states = null;
 	}
 
 	public void draw(boolean isShadow) {
-		if (buffer != null) {
-			buffer.bind();
+		if (buffer != null || ring != null) {
+			if (ring != null) {
+				ring.bind();
+			} else {
+				buffer.bind();
+			}
 
 			for (int i = 0; i < limit; ++i) {
 				final RenderState state = states[i];
@@ -96,7 +124,7 @@ public class DrawableStream implements AutoCloseable {
 				final RenderSystem.AutoStorageIndexBuffer indexBuffer = RenderSystem.getSequentialBuffer(Mode.QUADS);
 				indexBuffer.bind(elementCount); // can cause runtime exception?
 				final int elementType = indexBuffer.type().asGLType;
-				GFX.drawElementsBaseVertex(Mode.QUADS.asGLMode, elementCount, elementType, 0L, startIndex);
+				GFX.drawElementsBaseVertex(Mode.QUADS.asGLMode, elementCount, elementType, 0L, baseVertex + startIndex);
 			}
 
 			RenderState.disable();
@@ -110,6 +138,9 @@ public class DrawableStream implements AutoCloseable {
 			buffer.release();
 			buffer = null;
 		}
+
+		// ring space is reclaimed by fence, nothing to release
+		ring = null;
 	}
 
 	public static final DrawableStream EMPTY = new DrawableStream();
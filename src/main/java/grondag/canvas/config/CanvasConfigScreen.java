@@ -180,6 +180,12 @@ public class CanvasConfigScreen extends BaseScreen {
 				DEFAULTS.cullEntityRender,
 				"config.canvas.help.cull_entity_render").listItem());
 
+		list.addItem(optionSession.booleanOption("config.canvas.value.parallel_entity_render",
+				() -> editing.parallelEntityRender,
+				b -> editing.parallelEntityRender = b,
+				DEFAULTS.parallelEntityRender,
+				"config.canvas.help.parallel_entity_render").listItem());
+
 		list.addItem(optionSession.booleanOption("config.canvas.value.greedy_render_thread",
 				() -> editing.greedyRenderThread,
 				b -> editing.greedyRenderThread = b,
@@ -242,6 +248,16 @@ public class CanvasConfigScreen extends BaseScreen {
 				DEFAULTS.useCombinedThreadPool,
 				"config.canvas.help.use_combined_thread_pool").listItem());
 
+		list.addItem(optionSession.booleanOption("config.canvas.value.use_work_stealing_terrain_executor",
+				() -> editing.useWorkStealingTerrainExecutor,
+				b -> {
+					requiresRestart |= Configurator.useWorkStealingTerrainExecutor.get() != b;
+					editing.useWorkStealingTerrainExecutor = b;
+				},
+				Configurator.useWorkStealingTerrainExecutor,
+				DEFAULTS.useWorkStealingTerrainExecutor,
+				"config.canvas.help.use_work_stealing_terrain_executor").listItem());
+
 		list.addItem(optionSession.enumOption("config.canvas.value.transfer_buffer_mode",
 				() -> editing.transferBufferMode,
 				e -> {
@@ -276,6 +292,51 @@ public class CanvasConfigScreen extends BaseScreen {
 				DEFAULTS.cullBackfacingTerrain,
 				"config.canvas.help.cull_backfacing_terrain").listItem());
 
+		list.addItem(optionSession.booleanOption("config.canvas.value.multi_draw_indirect",
+				() -> editing.multiDrawIndirect,
+				b -> editing.multiDrawIndirect = b,
+				DEFAULTS.multiDrawIndirect,
+				"config.canvas.help.multi_draw_indirect").listItem());
+
+		list.addItem(optionSession.booleanOption("config.canvas.value.snapshot_region_input",
+				() -> editing.snapshotRegionInput,
+				b -> editing.snapshotRegionInput = b,
+				DEFAULTS.snapshotRegionInput,
+				"config.canvas.help.snapshot_region_input").listItem());
+
+		list.addItem(optionSession.booleanOption("config.canvas.value.urgent_rebuilds_off_thread",
+				() -> editing.urgentRebuildsOffThread,
+				b -> editing.urgentRebuildsOffThread = b,
+				DEFAULTS.urgentRebuildsOffThread,
+				"config.canvas.help.urgent_rebuilds_off_thread").listItem());
+
+		list.addItem(optionSession.intOption("config.canvas.value.urgent_rebuild_fence_millis",
+				0,
+				20,
+				1,
+				() -> editing.urgentRebuildFenceMillis,
+				i -> editing.urgentRebuildFenceMillis = i,
+				DEFAULTS.urgentRebuildFenceMillis,
+				"config.canvas.help.urgent_rebuild_fence_millis").listItem());
+
+		list.addItem(optionSession.booleanOption("config.canvas.value.frame_uniform_buffer",
+				() -> editing.frameUniformBuffer,
+				b -> {
+					reload |= Configurator.frameUniformBuffer != b;
+					editing.frameUniformBuffer = b;
+				},
+				DEFAULTS.frameUniformBuffer,
+				"config.canvas.help.frame_uniform_buffer").listItem());
+
+		list.addItem(optionSession.booleanOption("config.canvas.value.compact_terrain_vertex",
+				() -> editing.compactTerrainVertex,
+				b -> {
+					reload |= Configurator.compactTerrainVertex != b;
+					editing.compactTerrainVertex = b;
+				},
+				DEFAULTS.compactTerrainVertex,
+				"config.canvas.help.compact_terrain_vertex").listItem());
+
 		// DEBUG
 		final int indexDebug = list.addCategory("config.canvas.category.debug");
 
@@ -338,6 +399,12 @@ public class CanvasConfigScreen extends BaseScreen {
 				DEFAULTS.preprocessShaderSource,
 				"config.canvas.help.preprocess_shader_source").listItem());
 
+		list.addItem(optionSession.booleanOption("config.canvas.value.program_binary_cache",
+				() -> editing.programBinaryCache,
+				b -> editing.programBinaryCache = b,
+				DEFAULTS.programBinaryCache,
+				"config.canvas.help.program_binary_cache").listItem());
+
 		list.addItem(optionSession.booleanOption("config.canvas.value.concise_errors",
 				() -> editing.conciseErrors,
 				b -> editing.conciseErrors = b,
@@ -69,6 +69,8 @@ class ConfigData {
 	boolean terrainSetupOffThread = true;
 	@Comment("Use more efficient entity culling. Improves framerate in most scenes.")
 	boolean cullEntityRender = true;
+	@Comment("Encode block entities and entities with known thread-safe renderers on worker threads. Helps scenes with thousands of them.")
+	boolean parallelEntityRender = false;
 	@Comment("When true, render thread does not yield to other threads every frame. Vanilla behavior is false (yields).")
 	boolean greedyRenderThread = true;
 	@Comment("Use more efficient model loading. Improves chunk rebuild speed and reduces memory use.")
@@ -83,6 +85,8 @@ class ConfigData {
 	boolean cullParticles = true;
 	@Comment("Use Canvas thread pool for rendering and local server tasks. May reduce lag spikes caused by thread contention.")
 	boolean useCombinedThreadPool = false;
+	@Comment("Terrain worker threads keep separate task queues and steal work from each other. Reduces contention on many-core machines. Ignored if combined thread pool is enabled. Requires restart.")
+	boolean useWorkStealingTerrainExecutor = false;
 	@Comment("Strategy used to prime shadow regions. Tiered has fewer gaps but is more expensive, while Padded is slightly cleverer than Naive.")
 	TerrainIterator.ShadowPriming shadowPrimingStrategy = TerrainIterator.ShadowPriming.PADDED;
 	@Comment("Maximum shadow render distance to be compared against render distance. TEMPORARY, meant to become a pipeline configuration.")
@@ -99,6 +103,18 @@ class ConfigData {
 	boolean disableUnseenSpriteAnimation = true;
 	@Comment("When true, terrain facing away from the camera is not rendered.  Usually improves frame rate.")
 	boolean cullBackfacingTerrain = true;
+	@Comment("Submits terrain draws from a GPU command buffer when supported. Reduces driver overhead at long render distances.")
+	boolean multiDrawIndirect = true;
+	@Comment("Copies block states and light for terrain rebuilds on the main thread so workers rarely read live world data. Costs some main thread time per rebuild.")
+	boolean snapshotRegionInput = false;
+	@Comment("Rebuilds near and urgent terrain regions on worker threads instead of the render thread. Reduces stutter when many blocks change nearby.")
+	boolean urgentRebuildsOffThread = false;
+	@Comment("Milliseconds the render thread will wait for urgent off-thread rebuilds before drawing the prior version. 0-20")
+	int urgentRebuildFenceMillis = 4;
+	@Comment("Shares per-frame shader data between all shader programs in one uniform buffer. Disable if shaders fail to compile or render incorrectly.")
+	boolean frameUniformBuffer = true;
+	@Comment("Stores terrain with 24 instead of 28 bytes per vertex by deriving normals from the nearest block face. Saves video memory at long render distances. Curved or angled surfaces may be shaded less accurately.")
+	boolean compactTerrainVertex = false;
 	@Comment("Enabling may help performance by drawing fewer regions but some regions may flicker as you move around nearby blocks.")
 	boolean enableNearOccluders = false;
 	@Comment("Method used to transfer data to GPU. AUTO is recommended but performance can be specific to your system. Other options are DIRECT, HYBRID, and MAPPED")
@@ -111,6 +127,8 @@ class ConfigData {
 	boolean shaderDebug = false;
 	@Comment("Pre-process OpenGL source before compilation. Makes source more concise but possibly harder to read.")
 	boolean preprocessShaderSource = true;
+	@Comment("Saves linked shader programs to disk and reuses them when source and driver are unchanged. Speeds up loading and pipeline changes.")
+	boolean programBinaryCache = true;
 	//@Comment("Shows HD lightmap pixels for debug purposes. Also looks cool.")
 	//boolean lightmapDebug = false;
 	@Comment("Summarizes multiple errors and warnings to single-line entries in the log.")
@@ -47,6 +47,7 @@ public class Configurator {
 	public static boolean advancedTerrainCulling = DEFAULTS.advancedTerrainCulling;
 	public static boolean terrainSetupOffThread = DEFAULTS.terrainSetupOffThread;
 	public static boolean cullEntityRender = DEFAULTS.cullEntityRender;
+	public static boolean parallelEntityRender = DEFAULTS.parallelEntityRender;
 	public static boolean greedyRenderThread = DEFAULTS.greedyRenderThread;
 	public static boolean forceJmxModelLoading = DEFAULTS.forceJmxModelLoading;
 	public static StartupFinalBoolean reduceResolutionOnMac = new StartupFinalBoolean(DEFAULTS.reduceResolutionOnMac);
@@ -54,8 +55,10 @@ public class Configurator {
 	public static int dynamicFrustumPadding = DEFAULTS.dynamicFrustumPadding;
 	public static boolean cullParticles = DEFAULTS.cullParticles;
 	public static StartupFinalBoolean useCombinedThreadPool = new StartupFinalBoolean(DEFAULTS.useCombinedThreadPool);
+	public static StartupFinalBoolean useWorkStealingTerrainExecutor = new StartupFinalBoolean(DEFAULTS.useWorkStealingTerrainExecutor);
 	public static boolean shaderDebug = DEFAULTS.shaderDebug;
 	public static boolean preprocessShaderSource = DEFAULTS.preprocessShaderSource;
+	public static boolean programBinaryCache = DEFAULTS.programBinaryCache;
 	// public static boolean lightmapDebug = DEFAULTS.lightmapDebug;
 	public static TerrainIterator.ShadowPriming shadowPrimingStrategy = DEFAULTS.shadowPrimingStrategy;
 	// TODO: TEMPORARY, make into pipeline configuration -> this could be the 0th cascade distance
@@ -93,6 +96,12 @@ public class Configurator {
 	public static boolean steadyDebugScreen = DEFAULTS.steadyDebugScreen;
 	public static boolean disableUnseenSpriteAnimation = DEFAULTS.disableUnseenSpriteAnimation;
 	public static boolean cullBackfacingTerrain = DEFAULTS.cullBackfacingTerrain;
+	public static boolean multiDrawIndirect = DEFAULTS.multiDrawIndirect;
+	public static boolean snapshotRegionInput = DEFAULTS.snapshotRegionInput;
+	public static boolean urgentRebuildsOffThread = DEFAULTS.urgentRebuildsOffThread;
+	public static int urgentRebuildFenceMillis = DEFAULTS.urgentRebuildFenceMillis;
+	public static boolean frameUniformBuffer = DEFAULTS.frameUniformBuffer;
+	public static boolean compactTerrainVertex = DEFAULTS.compactTerrainVertex;
 	public static boolean debugSpriteAtlas = DEFAULTS.debugSpriteAtlas;
 	public static boolean traceTextureLoad = DEFAULTS.traceTextureLoad;
 
@@ -129,6 +138,7 @@ public class Configurator {
 
 		shaderDebug = config.shaderDebug;
 		preprocessShaderSource = config.preprocessShaderSource;
+		programBinaryCache = config.programBinaryCache;
 		//maxLightmapDelayFrames = config.maxLightmapDelayFrames;
 		//moreLightmap = config.moreLightmap;
 
@@ -145,6 +155,7 @@ public class Configurator {
 		terrainSetupOffThread = config.terrainSetupOffThread;
 		safeNativeMemoryAllocation.set(config.safeNativeMemoryAllocation, isStartup);
 		cullEntityRender = config.cullEntityRender;
+		parallelEntityRender = config.parallelEntityRender;
 		greedyRenderThread = config.greedyRenderThread;
 		forceJmxModelLoading = config.forceJmxModelLoading;
 		reduceResolutionOnMac.set(config.reduceResolutionOnMac, isStartup);
@@ -152,6 +163,7 @@ public class Configurator {
 		staticFrustumPadding = Mth.clamp(config.staticFrustumPadding, 0, 20);
 		cullParticles = config.cullParticles;
 		useCombinedThreadPool.set(config.useCombinedThreadPool, isStartup);
+		useWorkStealingTerrainExecutor.set(config.useWorkStealingTerrainExecutor, isStartup);
 		transferBufferMode = config.transferBufferMode;
 		steadyDebugScreen = config.steadyDebugScreen;
 
@@ -183,6 +195,12 @@ public class Configurator {
 		enableNearOccluders = config.enableNearOccluders;
 		disableUnseenSpriteAnimation = config.disableUnseenSpriteAnimation;
 		cullBackfacingTerrain = config.cullBackfacingTerrain;
+		multiDrawIndirect = config.multiDrawIndirect;
+		snapshotRegionInput = config.snapshotRegionInput;
+		urgentRebuildsOffThread = config.urgentRebuildsOffThread;
+		urgentRebuildFenceMillis = Mth.clamp(config.urgentRebuildFenceMillis, 0, 20);
+		frameUniformBuffer = config.frameUniformBuffer;
+		compactTerrainVertex = config.compactTerrainVertex;
 		debugSpriteAtlas = config.debugSpriteAtlas;
 		traceTextureLoad = config.traceTextureLoad;
 	}
@@ -195,6 +213,7 @@ public class Configurator {
 
 		config.shaderDebug = shaderDebug;
 		config.preprocessShaderSource = preprocessShaderSource;
+		config.programBinaryCache = programBinaryCache;
 		//config.maxLightmapDelayFrames = maxLightmapDelayFrames;
 
 		// config.hdLightmaps = hdLightmaps;
@@ -210,6 +229,7 @@ public class Configurator {
 		config.terrainSetupOffThread = terrainSetupOffThread;
 		config.safeNativeMemoryAllocation = safeNativeMemoryAllocation.current;
 		config.cullEntityRender = cullEntityRender;
+		config.parallelEntityRender = parallelEntityRender;
 		config.greedyRenderThread = greedyRenderThread;
 		config.forceJmxModelLoading = forceJmxModelLoading;
 		config.reduceResolutionOnMac = reduceResolutionOnMac.current;
@@ -217,6 +237,7 @@ public class Configurator {
 		config.dynamicFrustumPadding = dynamicFrustumPadding;
 		config.cullParticles = cullParticles;
 		config.useCombinedThreadPool = useCombinedThreadPool.current;
+		config.useWorkStealingTerrainExecutor = useWorkStealingTerrainExecutor.current;
 		config.transferBufferMode = transferBufferMode;
 		config.steadyDebugScreen = steadyDebugScreen;
 
@@ -248,6 +269,12 @@ public class Configurator {
 		config.enableNearOccluders = enableNearOccluders;
 		config.disableUnseenSpriteAnimation = disableUnseenSpriteAnimation;
 		config.cullBackfacingTerrain = cullBackfacingTerrain;
+		config.multiDrawIndirect = multiDrawIndirect;
+		config.snapshotRegionInput = snapshotRegionInput;
+		config.urgentRebuildsOffThread = urgentRebuildsOffThread;
+		config.urgentRebuildFenceMillis = urgentRebuildFenceMillis;
+		config.frameUniformBuffer = frameUniformBuffer;
+		config.compactTerrainVertex = compactTerrainVertex;
 		config.debugSpriteAtlas = debugSpriteAtlas;
 		config.traceTextureLoad = traceTextureLoad;
 	}
@@ -24,13 +24,28 @@ import net.minecraft.core.BlockPos;
 import net.minecraft.util.Mth;
 import net.minecraft.world.level.block.state.BlockState;
 
+import grondag.canvas.config.Configurator;
+import grondag.canvas.perf.ChunkRebuildCounters;
 import grondag.canvas.terrain.region.input.InputRegion;
+import grondag.canvas.terrain.util.RenderRegionStateIndexer;
 
 // TODO: look at VoxelShapes.method_1080 as a way to not propagate thru slabs
 // Also BlockState.hasSidedTransparency seems promising
 
+/**
+ * Blurs block and sky light over a region and its margin and writes the
+ * result into the region's light cache.
+ *
+ * <p>Both channels are packed into one long, block light in the low 32 bits and
+ * sky light in the high 32 bits, so each pass handles both at once. Channel values
+ * stay below 2^10 and weighted sums below 2^26, so lanes never carry into each other.
+ * Opaque cells are marked with {@link #OPAQUE} in both lanes at once.
+ *
+ * <p>Arrays are laid out with X varying fastest and every pass walks them in that
+ * order. The X pass keeps a three-cell window in locals as it slides along each row.
+ */
 public class LightSmoother {
-	public static final int OPAQUE = -1;
+	public static final long OPAQUE = -1;
 	private static final int BLUR_RADIUS = 2;
 	private static final int MARGIN = BLUR_RADIUS + 2;
 	private static final int POS_DIAMETER = 16 + MARGIN * 2;
@@ -41,186 +56,155 @@ public class LightSmoother {
 	private static final int INNER_DIST = 28966; // fractional part of 0xFFFF
 	private static final int OUTER_DIST = (0xFFFF - INNER_DIST) / 2;
 	private static final int INNER_PLUS = INNER_DIST + OUTER_DIST;
+	private static final long ROUND = 0x7FFFL | (0x7FFFL << 32);
+	private static final long LANE_MASK = 0xFFFFL | (0xFFFFL << 32);
+
+	/** Smoothing positions that fall inside the region interior. */
+	private static final int REGION_MIN = MARGIN;
+	private static final int REGION_MAX = REGION_MIN + 16;
 
 	public static void computeSmoothedBrightness(InputRegion region) {
+		if (ChunkRebuildCounters.ENABLED) {
+			ChunkRebuildCounters.startSmooth();
+		}
+
 		final Helper help = helpers.get();
-		final BlockPos.MutableBlockPos smoothPos = help.smoothPos;
-		final int[] sky = help.a;
-		final int[] block = help.b;
+		final long[] light = help.a;
+		final long[] work = help.b;
+
+		capture(region, light, help.smoothPos);
+
+		smooth(BLUR_RADIUS + 1, light, work);
+		smooth(BLUR_RADIUS, work, light);
 
 		final int minX = region.originX() - MARGIN;
 		final int minY = region.originY() - MARGIN;
 		final int minZ = region.originZ() - MARGIN;
+		final int limit = 16 + MARGIN + 1;
+
+		for (int z = MARGIN - 1; z < limit; z++) {
+			for (int y = MARGIN - 1; y < limit; y++) {
+				for (int x = MARGIN - 1; x < limit; x++) {
+					final long packed = light[index(x, y, z)];
+					final int b = Mth.clamp((((int) packed) * 104 + 51) / 100, 0, 240);
+					final int k = Mth.clamp((((int) (packed >> 32)) * 104 + 51) / 100, 0, 240);
+					region.setLightCache(x + minX, y + minY, z + minZ, ((b + 2) & 0b11111100) | (((k + 2) & 0b11111100) << 16));
+				}
+			}
+		}
+
+		if (ChunkRebuildCounters.ENABLED) {
+			ChunkRebuildCounters.completeSmooth();
+		}
+	}
+
+	/**
+	 * Block states come from the region where it has them. Interior opacity comes from
+	 * the region's occlusion bits, which are the same test unless white glass is being
+	 * treated as an occluder. Light is only looked up for cells that aren't opaque.
+	 */
+	private static void capture(InputRegion region, long[] light, BlockPos.MutableBlockPos smoothPos) {
+		final int minX = region.originX() - MARGIN;
+		final int minY = region.originY() - MARGIN;
+		final int minZ = region.originZ() - MARGIN;
+		final boolean useClosedBits = !Configurator.renderWhiteGlassAsOccluder;
+
+		for (int z = 0; z < POS_DIAMETER; z++) {
+			final boolean zInterior = z >= REGION_MIN && z < REGION_MAX;
 
-		for (int x = 0; x < POS_DIAMETER; x++) {
 			for (int y = 0; y < POS_DIAMETER; y++) {
-				for (int z = 0; z < POS_DIAMETER; z++) {
+				final boolean yzInterior = zInterior && y >= REGION_MIN && y < REGION_MAX;
+				int i = index(0, y, z);
+
+				for (int x = 0; x < POS_DIAMETER; x++, i++) {
 					final int bx = x + minX;
 					final int by = y + minY;
 					final int bz = z + minZ;
-					smoothPos.set(bx, by, bz);
-
 					final BlockState state = region.getBlockState(bx, by, bz);
-					// don't use cache here because we are populating the cache
-					final int packedLight = region.directBrightness(smoothPos);
+					smoothPos.set(bx, by, bz);
 
-					final boolean opaque = state.isSolidRender(region, smoothPos);
+					final boolean opaque;
 
-					final int i = index(x, y, z);
+					if (useClosedBits && yzInterior && x >= REGION_MIN && x < REGION_MAX) {
+						opaque = region.isClosed(RenderRegionStateIndexer.interiorIndex(x - REGION_MIN, y - REGION_MIN, z - REGION_MIN));
+					} else {
+						opaque = state.isSolidRender(region, smoothPos);
+					}
 
 					if (opaque) {
-						block[i] = OPAQUE;
-						sky[i] = OPAQUE;
-					} else if (packedLight == 0) {
-						block[i] = 0;
-						sky[i] = 0;
+						light[i] = OPAQUE;
 					} else {
-						block[i] = (packedLight & 0xFF);
-						sky[i] = ((packedLight >>> 16) & 0xFF);
+						// don't use cache here because we are populating the cache
+						final int packedLight = region.directBrightness(state, smoothPos);
+						light[i] = (packedLight & 0xFF) | ((long) ((packedLight >>> 16) & 0xFF) << 32);
 					}
 				}
 			}
 		}
-
-		final int[] work = help.c;
-		smooth(BLUR_RADIUS + 1, block, work);
-		smooth(BLUR_RADIUS, work, block);
-		//        smooth(1, block, work);
-		//        float[] swap = block;
-		//        block = work;
-		//        work = swap;
-
-		smooth(BLUR_RADIUS + 1, sky, work);
-		smooth(BLUR_RADIUS, work, sky);
-		//        smooth(1, sky, work);
-		//        swap = sky;
-		//        sky = work;
-		//        work = swap;
-
-		final int limit = 16 + MARGIN + 1;
-
-		for (int x = MARGIN - 1; x < limit; x++) {
-			for (int y = MARGIN - 1; y < limit; y++) {
-				for (int z = MARGIN - 1; z < limit; z++) {
-					final int i = index(x, y, z);
-					final int b = Mth.clamp(((block[i]) * 104 + 51) / 100, 0, 240);
-					final int k = Mth.clamp(((sky[i]) * 104 + 51) / 100, 0, 240);
-					region.setLightCache(x + minX, y + minY, z + minZ, ((b + 2) & 0b11111100) | (((k + 2) & 0b11111100) << 16));
-				}
-			}
-		}
 	}
 
 	private static int index(int x, int y, int z) {
 		return x + y * Y_INC + z * Z_INC;
 	}
 
-	private static void smooth(int margin, int[] src, int[] dest) {
-		final int xBase = MARGIN - margin;
-		final int xLimit = POS_DIAMETER - MARGIN + margin;
-
-		final int yBase = xBase * Y_INC;
-		final int yLimit = xLimit * Y_INC;
-		final int zBase = xBase * Z_INC;
-		final int zLimit = xLimit * Z_INC;
-
-		// X PASS
-		for (int x = xBase; x < xLimit; x++) {
-			for (int y = yBase; y < yLimit; y += Y_INC) {
-				for (int z = zBase; z < zLimit; z += Z_INC) {
-					final int i = x + y + z;
-
-					final int c = src[i];
-
-					if (c == OPAQUE) {
-						dest[i] = OPAQUE;
-						continue;
-					}
+	private static long blend(long a, long b, long c) {
+		if (a == OPAQUE) {
+			if (b == OPAQUE) {
+				return c;
+			} else {
+				return ((b * OUTER_DIST + c * INNER_PLUS + ROUND) >>> 16) & LANE_MASK;
+			}
+		} else if (b == OPAQUE) {
+			return ((a * OUTER_DIST + c * INNER_PLUS + ROUND) >>> 16) & LANE_MASK;
+		} else {
+			return ((a * OUTER_DIST + b * OUTER_DIST + c * INNER_DIST + ROUND) >>> 16) & LANE_MASK;
+		}
+	}
 
-					//                    int a = src[index(x + 1, y, z)];
-					//                    int b = src[index(x - 1, y, z)];
-					final int a = src[i + 1];
-					final int b = src[i - 1];
-
-					if (a == OPAQUE) {
-						if (b == OPAQUE) {
-							dest[i] = c;
-						} else {
-							dest[i] = (b * OUTER_DIST + c * INNER_PLUS + 0x7FFF) >> 16;
-						}
-					} else if (b == OPAQUE) {
-						dest[i] = (a * OUTER_DIST + c * INNER_PLUS + 0x7FFF) >> 16;
-					} else {
-						dest[i] = (a * OUTER_DIST + b * OUTER_DIST + c * INNER_DIST + 0x7FFF) >> 16;
-					}
+	/**
+	 * Runs X, Y and Z passes over the cube that extends {@code margin}
+	 * beyond the interior. Result ends up in {@code dest}.
+	 */
+	private static void smooth(int margin, long[] src, long[] dest) {
+		final int base = MARGIN - margin;
+		final int limit = POS_DIAMETER - MARGIN + margin;
+
+		// X PASS - slide a window along each row
+		for (int z = base; z < limit; z++) {
+			for (int y = base; y < limit; y++) {
+				int i = index(base, y, z);
+				long b = src[i - 1];
+				long c = src[i];
+
+				for (int x = base; x < limit; x++, i++) {
+					final long a = src[i + 1];
+					dest[i] = c == OPAQUE ? OPAQUE : blend(a, b, c);
+					b = c;
+					c = a;
 				}
 			}
 		}
 
-		// Y PASS
-		for (int x = xBase; x < xLimit; x++) {
-			for (int y = yBase; y < yLimit; y += Y_INC) {
-				for (int z = zBase; z < zLimit; z += Z_INC) {
-					final int i = x + y + z;
-
-					// Note arrays are swapped here
-					final int c = dest[i];
-
-					if (c == OPAQUE) {
-						src[i] = OPAQUE;
-						continue;
-					}
+		// Y PASS - note arrays are swapped here
+		for (int z = base; z < limit; z++) {
+			for (int y = base; y < limit; y++) {
+				int i = index(base, y, z);
 
-					//                    int a = dest[index(x, y - 1, z)];
-					//                    int b = dest[index(x, y + 1, z)];
-					final int a = dest[i + Y_INC];
-					final int b = dest[i - Y_INC];
-
-					if (a == OPAQUE) {
-						if (b == OPAQUE) {
-							src[i] = c;
-						} else {
-							src[i] = (b * OUTER_DIST + c * INNER_PLUS + 0x7FFF) >> 16;
-						}
-					} else if (b == OPAQUE) {
-						src[i] = (a * OUTER_DIST + c * INNER_PLUS + 0x7FFF) >> 16;
-					} else {
-						src[i] = (a * OUTER_DIST + b * OUTER_DIST + c * INNER_DIST + 0x7FFF) >> 16;
-					}
+				for (int x = base; x < limit; x++, i++) {
+					final long c = dest[i];
+					src[i] = c == OPAQUE ? OPAQUE : blend(dest[i + Y_INC], dest[i - Y_INC], c);
 				}
 			}
 		}
 
-		// Z PASS
-		for (int x = xBase; x < xLimit; x++) {
-			for (int y = yBase; y < yLimit; y += Y_INC) {
-				for (int z = zBase; z < zLimit; z += Z_INC) {
-					final int i = x + y + z;
+		// Z PASS - arrays are swapped back to original roles here
+		for (int z = base; z < limit; z++) {
+			for (int y = base; y < limit; y++) {
+				int i = index(base, y, z);
 
-					// Arrays are swapped back to original roles here
-					final int c = src[i];
-
-					if (c == OPAQUE) {
-						dest[i] = OPAQUE;
-						continue;
-					}
-
-					//                    int a = src[index(x, y, z - 1)];
-					//                    int b = src[index(x, y, z + 1)];
-					final int a = src[i + Z_INC];
-					final int b = src[i - Z_INC];
-
-					if (a == OPAQUE) {
-						if (b == OPAQUE) {
-							dest[i] = c;
-						} else {
-							dest[i] = (b * OUTER_DIST + c * INNER_PLUS + 0x7FFF) >> 16;
-						}
-					} else if (b == OPAQUE) {
-						dest[i] = (a * OUTER_DIST + c * INNER_PLUS + 0x7FFF) >> 16;
-					} else {
-						dest[i] = (a * OUTER_DIST + b * OUTER_DIST + c * INNER_DIST + 0x7FFF) >> 16;
-					}
+				for (int x = base; x < limit; x++, i++) {
+					final long c = src[i];
+					dest[i] = c == OPAQUE ? OPAQUE : blend(src[i + Z_INC], src[i - Z_INC], c);
 				}
 			}
 		}
@@ -228,8 +212,7 @@ public class LightSmoother {
 
 	private static class Helper {
 		private final BlockPos.MutableBlockPos smoothPos = new BlockPos.MutableBlockPos();
-		private final int[] a = new int[POS_COUNT];
-		private final int[] b = new int[POS_COUNT];
-		private final int[] c = new int[POS_COUNT];
+		private final long[] a = new long[POS_COUNT];
+		private final long[] b = new long[POS_COUNT];
 	}
 }
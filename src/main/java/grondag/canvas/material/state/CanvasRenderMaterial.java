@@ -136,6 +136,11 @@ public class CanvasRenderMaterial extends BaseRenderMaterial {
 		}
 	}
 
+	/** Unique to this material for the life of the material manager. */
+	public int stateIndex() {
+		return index;
+	}
+
 	public int collectorIndex() {
 		return collectorIndex;
 	}
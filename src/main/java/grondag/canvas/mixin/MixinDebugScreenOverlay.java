@@ -46,11 +46,14 @@ import net.minecraft.client.gui.components.DebugScreenOverlay;
 //import net.minecraft.client.renderer.GameRenderer;
 
 import grondag.canvas.CanvasMod;
+import grondag.canvas.apiimpl.rendercontext.encoder.QuadMaterialCache;
 import grondag.canvas.buffer.input.ArrayVertexCollector;
+import grondag.canvas.buffer.render.StreamRingBuffer;
 import grondag.canvas.buffer.render.TransferBuffers;
 import grondag.canvas.buffer.util.DirectBufferAllocator;
 import grondag.canvas.buffer.util.GlBufferAllocator;
 import grondag.canvas.render.terrain.cluster.SlabAllocator;
+import grondag.canvas.render.terrain.drawlist.RealmDrawList;
 import grondag.canvas.render.world.CanvasWorldRenderer;
 import grondag.canvas.terrain.util.TerrainExecutor;
 import grondag.canvas.varia.CanvasGlHelper;
@@ -205,10 +208,12 @@ public class MixinDebugScreenOverlay {
 		final ArrayList<String> result = Lists.newArrayList((String[]) elements);
 		result.add("");
 		result.add("Canvas Renderer " + CanvasMod.versionString);
-		result.add(DirectBufferAllocator.debugString());
+		DirectBufferAllocator.debugReport(result);
 		result.add(GlBufferAllocator.debugString());
 		result.add(TransferBuffers.debugString());
+		result.add(StreamRingBuffer.debugString());
 		result.add(ArrayVertexCollector.debugReport());
+		result.add(QuadMaterialCache.debugReport());
 		TerrainExecutor.INSTANCE.debugReport(result);
 
 		@SuppressWarnings("resource")
@@ -216,7 +221,12 @@ public class MixinDebugScreenOverlay {
 		result.add("Solid " + worldRenderState.solidClusterRealm.debugSummary());
 		result.add("Translucent " + worldRenderState.translucentClusterRealm.debugSummary());
 		result.add(worldRenderState.drawlistDebugSummary());
+		result.add(worldRenderState.drawCallDebugSummary());
+		result.add(RealmDrawList.allocationDebugSummary());
+		worldRenderState.regionRebuildManager.debugReport(result);
+		worldRenderState.regionBuilder().debugReport(result);
 		result.add(SlabAllocator.debugSummary());
+		result.add(SlabAllocator.vertexFormatSummary());
 
 		return result;
 	}
@@ -134,7 +134,10 @@ public abstract class MixinTextureAtlas extends AbstractTexture implements Textu
 
 	@Override
 	public void canvas_trackFrameAnimation(int animationIndex) {
-		perFrameBits.set(animationIndex);
+		// May be called from entity render workers
+		synchronized (perFrameBits) {
+			perFrameBits.set(animationIndex);
+		}
 	}
 
 	@SuppressWarnings("resource")
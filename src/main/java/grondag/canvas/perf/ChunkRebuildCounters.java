@@ -29,10 +29,16 @@ public abstract class ChunkRebuildCounters {
 	public static final boolean ENABLED = Configurator.enablePerformanceTrace;
 	private static final ConcurrentPerformanceCounter buildCounter = new ConcurrentPerformanceCounter();
 	private static final ConcurrentPerformanceCounter copyCounter = new ConcurrentPerformanceCounter();
+	private static final ConcurrentPerformanceCounter prepareCounter = new ConcurrentPerformanceCounter();
 	private static final ConcurrentPerformanceCounter uploadCounter = new ConcurrentPerformanceCounter();
+	private static final ConcurrentPerformanceCounter blendCounter = new ConcurrentPerformanceCounter();
+	private static final ConcurrentPerformanceCounter smoothCounter = new ConcurrentPerformanceCounter();
 	private static final ThreadLocal<Long> chunkStart = ThreadLocal.withInitial(() -> 0L);
 	private static final ThreadLocal<Long> copyStart = ThreadLocal.withInitial(() -> 0L);
+	private static final ThreadLocal<Long> prepareStart = ThreadLocal.withInitial(() -> 0L);
 	private static final ThreadLocal<Long> uploadStart = ThreadLocal.withInitial(() -> 0L);
+	private static final ThreadLocal<Long> blendStart = ThreadLocal.withInitial(() -> 0L);
+	private static final ThreadLocal<Long> smoothStart = ThreadLocal.withInitial(() -> 0L);
 
 	private ChunkRebuildCounters() {
 	}
@@ -40,7 +46,10 @@ public abstract class ChunkRebuildCounters {
 	public static void reset() {
 		buildCounter.clearStats();
 		copyCounter.clearStats();
+		prepareCounter.clearStats();
 		uploadCounter.clearStats();
+		blendCounter.clearStats();
+		smoothCounter.clearStats();
 	}
 
 	public static void startChunk() {
@@ -57,8 +66,17 @@ public abstract class ChunkRebuildCounters {
 			final int copyCount = copyCounter.runCount();
 			CanvasMod.LOG.info(String.format("World copy time per chunk for last %d regions = %,dns  total time: %fs", copyCount, copyCount == 0 ? 0 : copyCounter.runTime() / copyCount, copyCounter.runTime() / 1000000000d));
 
+			final int prepareCount = prepareCounter.runCount();
+			CanvasMod.LOG.info(String.format("Input region prepare time per region for last %d regions = %,dns  total time: %fs", prepareCount, prepareCount == 0 ? 0 : prepareCounter.runTime() / prepareCount, prepareCounter.runTime() / 1000000000d));
+
 			final int uploadCount = uploadCounter.runCount();
 			CanvasMod.LOG.info(String.format("Upload time per region for last %d regions = %,dns  total time: %fs", uploadCount, uploadCount == 0 ? 0 : uploadCounter.runTime() / uploadCount, uploadCounter.runTime() / 1000000000d));
+
+			final int blendCount = blendCounter.runCount();
+			CanvasMod.LOG.info(String.format("Biome color blend time per chunk for last %d planes = %,dns  total time: %fs", blendCount, blendCount == 0 ? 0 : blendCounter.runTime() / blendCount, blendCounter.runTime() / 1000000000d));
+
+			final int smoothCount = smoothCounter.runCount();
+			CanvasMod.LOG.info(String.format("Light smoothing time per region for last %d regions = %,dns  total time: %fs", smoothCount, smoothCount == 0 ? 0 : smoothCounter.runTime() / smoothCount, smoothCounter.runTime() / 1000000000d));
 			reset();
 
 			CanvasMod.LOG.info("");
@@ -74,6 +92,15 @@ public abstract class ChunkRebuildCounters {
 		copyCounter.addCount(1);
 	}
 
+	public static void startPrepare() {
+		prepareStart.set(System.nanoTime());
+	}
+
+	public static void completePrepare() {
+		prepareCounter.endRun(prepareStart.get());
+		prepareCounter.addCount(1);
+	}
+
 	public static void startUpload() {
 		uploadStart.set(System.nanoTime());
 	}
@@ -82,4 +109,22 @@ public abstract class ChunkRebuildCounters {
 		uploadCounter.endRun(uploadStart.get());
 		uploadCounter.addCount(1);
 	}
+
+	public static void startBlend() {
+		blendStart.set(System.nanoTime());
+	}
+
+	public static void completeBlend() {
+		blendCounter.endRun(blendStart.get());
+		blendCounter.addCount(1);
+	}
+
+	public static void startSmooth() {
+		smoothStart.set(System.nanoTime());
+	}
+
+	public static void completeSmooth() {
+		smoothCounter.endRun(smoothStart.get());
+		smoothCounter.addCount(1);
+	}
 }
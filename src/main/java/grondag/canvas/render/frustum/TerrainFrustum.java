@@ -35,7 +35,6 @@ import io.vram.frex.api.config.FlawlessFrames;
 
 import grondag.canvas.config.Configurator;
 import grondag.canvas.mixinterface.GameRendererExt;
-import grondag.canvas.terrain.region.RegionPosition;
 
 public class TerrainFrustum extends CanvasFrustum {
 	// These are for maintaining a project matrix used by occluder.
@@ -292,31 +291,86 @@ public class TerrainFrustum extends CanvasFrustum {
 		occlusionProjMat.perspective((float) Math.toRadians(fov + padding), (float) client.getWindow().getWidth() / (float) client.getWindow().getHeight(), 0.05F, gr.getRenderDistance() * 4.0F);
 	}
 
-	public final RegionVisibilityTest visibilityTest = p -> {
-		final float cx = p.cameraRelativeCenterX();
-		final float cy = p.cameraRelativeCenterY();
-		final float cz = p.cameraRelativeCenterZ();
+	/** Plane flags for hierarchical tests. The terrain frustum has no far plane. */
+	public static final int PLANE_LEFT = 1;
+	public static final int PLANE_RIGHT = 2;
+	public static final int PLANE_NEAR = 4;
+	public static final int PLANE_TOP = 8;
+	public static final int PLANE_BOTTOM = 16;
+	public static final int ALL_PLANES = PLANE_LEFT | PLANE_RIGHT | PLANE_NEAR | PLANE_TOP | PLANE_BOTTOM;
 
-		if (cx * leftX + cy * leftY + cz * leftZ + leftRegionExtent > 0) {
-			return false;
+	/** Result of {@link #classifyBox} when the box is fully outside at least one plane. */
+	public static final int OUTSIDE = -1;
+
+	/**
+	 * Tests a camera-relative box against the planes in the given mask. Returns {@link #OUTSIDE}
+	 * if the box is fully outside any of them. Otherwise returns the mask less the planes the box
+	 * is fully inside, which boxes contained in this one don't need to test.
+	 *
+	 * <p>Outside tests include the same gap as {@link #isRegionVisible} so that rejecting a
+	 * containing box never rejects a region that the region test would accept.
+	 */
+	public int classifyBox(float cx, float cy, float cz, float hx, float hy, float hz, int planeMask) {
+		if ((planeMask & PLANE_LEFT) != 0) {
+			final float d = cx * leftX + cy * leftY + cz * leftZ + leftW;
+			final float e = hx * leftXe + hy * leftYe + hz * leftZe;
+			if (d - e - MIN_GAP > 0) return OUTSIDE;
+			if (d + e < 0) planeMask &= ~PLANE_LEFT;
+		}
+
+		if ((planeMask & PLANE_RIGHT) != 0) {
+			final float d = cx * rightX + cy * rightY + cz * rightZ + rightW;
+			final float e = hx * rightXe + hy * rightYe + hz * rightZe;
+			if (d - e - MIN_GAP > 0) return OUTSIDE;
+			if (d + e < 0) planeMask &= ~PLANE_RIGHT;
+		}
+
+		if ((planeMask & PLANE_NEAR) != 0) {
+			final float d = cx * nearX + cy * nearY + cz * nearZ + nearW;
+			final float e = hx * nearXe + hy * nearYe + hz * nearZe;
+			if (d - e - MIN_GAP > 0) return OUTSIDE;
+			if (d + e < 0) planeMask &= ~PLANE_NEAR;
+		}
+
+		if ((planeMask & PLANE_TOP) != 0) {
+			final float d = cx * topX + cy * topY + cz * topZ + topW;
+			final float e = hx * topXe + hy * topYe + hz * topZe;
+			if (d - e - MIN_GAP > 0) return OUTSIDE;
+			if (d + e < 0) planeMask &= ~PLANE_TOP;
+		}
+
+		if ((planeMask & PLANE_BOTTOM) != 0) {
+			final float d = cx * bottomX + cy * bottomY + cz * bottomZ + bottomW;
+			final float e = hx * bottomXe + hy * bottomYe + hz * bottomZe;
+			if (d - e - MIN_GAP > 0) return OUTSIDE;
+			if (d + e < 0) planeMask &= ~PLANE_BOTTOM;
 		}
 
-		if (cx * rightX + cy * rightY + cz * rightZ + rightRegionExtent > 0) {
+		return planeMask;
+	}
+
+	/**
+	 * True if the region with the given camera-relative center is at least partially inside
+	 * the planes in the mask.  Planes not in the mask are skipped because a containing box
+	 * was found fully inside them.
+	 */
+	public boolean isRegionVisible(float cx, float cy, float cz, int planeMask) {
+		if ((planeMask & PLANE_LEFT) != 0 && cx * leftX + cy * leftY + cz * leftZ + leftRegionExtent > 0) {
 			return false;
 		}
 
-		if (cx * nearX + cy * nearY + cz * nearZ + nearRegionExtent > 0) {
+		if ((planeMask & PLANE_RIGHT) != 0 && cx * rightX + cy * rightY + cz * rightZ + rightRegionExtent > 0) {
 			return false;
 		}
 
-		if (cx * topX + cy * topY + cz * topZ + topRegionExtent > 0) {
+		if ((planeMask & PLANE_NEAR) != 0 && cx * nearX + cy * nearY + cz * nearZ + nearRegionExtent > 0) {
 			return false;
 		}
 
-		return !(cx * bottomX + cy * bottomY + cz * bottomZ + bottomRegionExtent > 0);
-	};
+		if ((planeMask & PLANE_TOP) != 0 && cx * topX + cy * topY + cz * topZ + topRegionExtent > 0) {
+			return false;
+		}
 
-	public interface RegionVisibilityTest {
-		boolean isVisible(RegionPosition pos);
+		return (planeMask & PLANE_BOTTOM) == 0 || !(cx * bottomX + cy * bottomY + cz * bottomZ + bottomRegionExtent > 0);
 	}
 }
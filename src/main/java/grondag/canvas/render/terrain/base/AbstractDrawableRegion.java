@@ -74,6 +74,11 @@ public abstract class AbstractDrawableRegion<T extends UploadableVertexStorage>
 		close();
 	}
 
+	@Override
+	public final void discard() {
+		close();
+	}
+
 	protected abstract void closeInner();
 
 	@Override
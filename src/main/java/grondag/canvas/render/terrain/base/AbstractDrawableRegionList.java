@@ -25,7 +25,8 @@ import it.unimi.dsi.fastutil.objects.ObjectArrayList;
 import grondag.canvas.material.state.RenderState;
 
 public abstract class AbstractDrawableRegionList implements DrawableRegionList {
-	protected final ObjectArrayList<DrawableRegion> regions;
+	/** Subclasses that update in place may replace this but must retain and release regions themselves. */
+	protected ObjectArrayList<DrawableRegion> regions;
 	private boolean isClosed = false;
 	public final RenderState renderState;
 
@@ -38,6 +38,19 @@ public interface DrawableRegionList {
 
 	int quadCount();
 
+	/** Draw calls issued by the most recent call to {@link #draw(WorldRenderState)}. */
+	int drawCallCount();
+
+	/** Binds and other state changes made by the most recent call to {@link #draw(WorldRenderState)}. */
+	int stateChangeCount();
+
+	/**
+	 * Draw list for the given visible regions.  May return this list updated in place
+	 * or a new list, in which case this list is closed. Either way, callers should
+	 * replace their reference with the result.
+	 */
+	DrawableRegionList update(VisibleRegionList visibleRegions, boolean isTranslucent, boolean isShadowMap);
+
 	DrawableRegionList EMPTY = new DrawableRegionList() {
 		@Override
 		public void close() {
@@ -58,6 +71,21 @@ public interface DrawableRegionList {
 		public int quadCount() {
 			return 0;
 		}
+
+		@Override
+		public int drawCallCount() {
+			return 0;
+		}
+
+		@Override
+		public int stateChangeCount() {
+			return 0;
+		}
+
+		@Override
+		public DrawableRegionList update(VisibleRegionList visibleRegions, boolean isTranslucent, boolean isShadowMap) {
+			return DrawableRegionList.build(visibleRegions, isTranslucent, isShadowMap);
+		}
 	};
 
 	static DrawableRegionList build(
@@ -66,7 +94,16 @@ public interface DrawableRegionList {
 			boolean isShadowMap
 	) {
 		final ObjectArrayList<DrawableRegion> drawables = new ObjectArrayList<>();
+		collect(visibleRegions, isTranslucent, drawables);
+		final var renderState = isTranslucent ? TerrainRenderStates.TRANSLUCENT : TerrainRenderStates.SOLID;
+		return drawables.isEmpty() ? DrawableRegionList.EMPTY : RealmDrawList.build(drawables, renderState, isShadowMap);
+	}
 
+	/**
+	 * Adds the non-empty drawables of the given visible regions to the output in draw order
+	 * and retains each of them for the draw list that will hold them.
+	 */
+	static void collect(final VisibleRegionList visibleRegions, boolean isTranslucent, ObjectArrayList<DrawableRegion> output) {
 		final int count = visibleRegions.size();
 		final int startIndex = isTranslucent ? count - 1 : 0;
 		final int endIndex = isTranslucent ? -1 : count;
@@ -77,13 +114,10 @@ public interface DrawableRegionList {
 			final DrawableRegion drawable = isTranslucent ? region.translucentDrawable() : region.solidDrawable();
 
 			if (drawable != null && drawable != DrawableRegion.EMPTY_DRAWABLE) {
-				drawables.add(drawable);
+				output.add(drawable);
 				drawable.retainFromDrawList();
 			}
 		}
-
-		final var renderState = isTranslucent ? TerrainRenderStates.TRANSLUCENT : TerrainRenderStates.SOLID;
-		return drawables.isEmpty() ? DrawableRegionList.EMPTY : RealmDrawList.build(drawables, renderState, isShadowMap);
 	}
 
 	@FunctionalInterface
@@ -27,5 +27,13 @@ public interface UploadableRegion {
 	 */
 	DrawableRegion produceDrawable();
 
+	/**
+	 * Will be called from client thread instead of {@link #produceDrawable()} when
+	 * the upload is abandoned. Releases transfer resources without allocating storage.
+	 */
+	default void discard() {
+		// NOOP
+	}
+
 	UploadableRegion EMPTY_UPLOADABLE = () -> DrawableRegion.EMPTY_DRAWABLE;
 }
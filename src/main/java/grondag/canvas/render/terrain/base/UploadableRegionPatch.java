@@ -0,0 +1,38 @@
+/*
+ * This file is part of Canvas Renderer and is licensed to the project under
+ * terms that are compatible with the GNU Lesser General Public License.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership and licensing.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package grondag.canvas.render.terrain.base;
+
+/**
+ * Partial replacement of the vertex data held by an existing drawable,
+ * used when a translucency resort only moves some of the quads.
+ */
+@FunctionalInterface
+public interface UploadableRegionPatch {
+	/**
+	 * Will be called from client thread. Overwrites part of the target's vertex
+	 * data in place, without reallocating storage.  Any transfer resources are
+	 * released whether or not the patch is applied.
+	 *
+	 * @return false if the target cannot accept the patch, in which case
+	 * the caller must arrange for a complete upload instead.
+	 */
+	boolean applyTo(DrawableRegion target);
+}
@@ -30,13 +30,23 @@ public class ClusterTaskManager {
 		boolean run(long deadlineNanos);
 	}
 
+	/**
+	 * Limit on bytes copied between slabs per frame, shared by all tasks.
+	 * Keeps compaction from stalling the GPU during heavy region churn.
+	 */
+	private static final int COPY_BYTES_PER_FRAME = 0x400000;
+
 	private static final ArrayDeque<ClusterTask> TASKS = new ArrayDeque<>();
+	private static int copyBytesRemaining;
 
 	private ClusterTaskManager() { }
 
 	public static void run(long deadlineNanos) {
 		if (FlawlessFrames.isActive()) {
 			deadlineNanos = Long.MAX_VALUE;
+			copyBytesRemaining = Integer.MAX_VALUE;
+		} else {
+			copyBytesRemaining = COPY_BYTES_PER_FRAME;
 		}
 
 		do {
@@ -46,13 +56,23 @@ public class ClusterTaskManager {
 				break;
 			} else {
 				if (!task.run(deadlineNanos)) {
-					// reschedule for next frame if not complete
+					// reschedule for next frame if not complete - task is out of time or copy budget
 					TASKS.offerFirst(task);
+					break;
 				}
 			}
 		} while (System.nanoTime() < deadlineNanos);
 	}
 
+	/** Bytes that can still be copied between slabs this frame. */
+	static int copyBytesRemaining() {
+		return copyBytesRemaining;
+	}
+
+	static void consumeCopyBytes(int bytes) {
+		copyBytesRemaining -= bytes;
+	}
+
 	static void schedule(ClusterTask task) {
 		TASKS.offer(task);
 	}
@@ -31,6 +31,7 @@ import grondag.canvas.material.state.TerrainRenderStates;
 import grondag.canvas.render.terrain.base.AbstractDrawableRegion;
 import grondag.canvas.render.terrain.base.DrawableRegion;
 import grondag.canvas.render.terrain.base.UploadableRegion;
+import grondag.canvas.render.terrain.base.UploadableRegionPatch;
 import grondag.canvas.terrain.region.RegionPosition;
 
 public class ClusteredDrawableRegion extends AbstractDrawableRegion<ClusteredDrawableStorage> {
@@ -66,6 +67,25 @@ public class ClusteredDrawableRegion extends AbstractDrawableRegion<ClusteredDra
 		return new ClusteredDrawableRegion(collector.quadCount() * 4, storage);
 	}
 
+	/**
+	 * Captures a range of vertex data that will overwrite the same range of
+	 * a translucent region already uploaded with the same quad count.
+	 */
+	public static UploadableRegionPatch patch(int[] vertexData, int startInt, int lengthInts, int quadVertexCount) {
+		final int byteCount = lengthInts * 4;
+		final TransferBuffer transferBuffer = TransferBuffers.claim(byteCount);
+		transferBuffer.put(vertexData, startInt, 0, lengthInts);
+
+		return target -> {
+			if (target instanceof final ClusteredDrawableRegion region && !region.isClosed() && region.quadVertexCount() == quadVertexCount) {
+				return region.storage().patch(transferBuffer, startInt * 4);
+			} else {
+				transferBuffer.release();
+				return false;
+			}
+		};
+	}
+
 	@Override
 	public DrawableRegion produceDrawable() {
 		storage().upload();
@@ -26,6 +26,7 @@ import grondag.canvas.buffer.input.FaceBucket;
 import grondag.canvas.buffer.render.TransferBuffer;
 import grondag.canvas.buffer.render.UploadableVertexStorage;
 import grondag.canvas.render.terrain.cluster.VertexCluster.RegionAllocation;
+import grondag.canvas.render.terrain.cluster.VertexCluster.RegionAllocation.SlabAllocation;
 import grondag.canvas.terrain.region.RegionPosition;
 
 public class ClusteredDrawableStorage implements UploadableVertexStorage {
@@ -89,6 +90,25 @@ public class ClusteredDrawableStorage implements UploadableVertexStorage {
 		return allocation;
 	}
 
+	/**
+	 * Overwrites part of the uploaded vertex data in place. Always releases the buffer.
+	 *
+	 * @return false if storage is closed or has no allocation to patch
+	 */
+	boolean patch(TransferBuffer buffer, int byteOffset) {
+		assert RenderSystem.isOnRenderThread();
+
+		final SlabAllocation slabAllocation = isClosed || allocation == null ? null : allocation.getAllocation();
+
+		if (slabAllocation == null || byteOffset + buffer.sizeBytes() > byteCount) {
+			buffer.release();
+			return false;
+		}
+
+		slabAllocation.slab.patch(slabAllocation, buffer, byteOffset);
+		return true;
+	}
+
 	@Override
 	public void upload() {
 		assert allocation == null;
@@ -20,8 +20,6 @@
 
 package grondag.canvas.render.terrain.cluster;
 
-import static grondag.canvas.render.terrain.cluster.SlabAllocator.BYTES_PER_SLAB_VERTEX;
-
 import java.nio.ByteBuffer;
 import java.nio.ShortBuffer;
 
@@ -29,6 +27,8 @@ import org.jetbrains.annotations.Nullable;
 
 import com.mojang.blaze3d.systems.RenderSystem;
 
+import grondag.canvas.buffer.format.CanvasVertexFormat;
+import grondag.canvas.buffer.format.TerrainEncoder;
 import grondag.canvas.buffer.render.AbstractGlBuffer;
 import grondag.canvas.buffer.render.TransferBuffer;
 import grondag.canvas.buffer.util.BufferSynchronizer;
@@ -43,11 +43,21 @@ public class Slab extends AbstractGlBuffer implements SynchronizedBuffer {
 	private int usedVertexCount;
 	private final int maxVertexCount;
 
+	/** Terrain format in effect when the slab was created.  Fixed for the life of the slab. */
+	public final CanvasVertexFormat format;
+	private final int bytesPerVertex;
+
 	Slab(int capacityBytes) {
 		// NB: STATIC makes a huge positive difference on AMD at least
 		super(capacityBytes, GFX.GL_ARRAY_BUFFER, GFX.GL_STATIC_DRAW);
 		assert RenderSystem.isOnRenderThread();
-		maxVertexCount = (capacityBytes / BYTES_PER_SLAB_VERTEX) & ~3;
+		format = TerrainEncoder.terrainFormat();
+		bytesPerVertex = format.vertexStrideBytes;
+		maxVertexCount = (capacityBytes / bytesPerVertex) & ~3;
+	}
+
+	int bytesPerVertex() {
+		return bytesPerVertex;
 	}
 
 	TransferBuffer asTransferBuffer() {
@@ -70,11 +80,19 @@ public class Slab extends AbstractGlBuffer implements SynchronizedBuffer {
 	 * Thus, may not match {@link #capacityBytes()} - {@link #availableBytes()}.
 	 */
 	int usedBytes() {
-		return usedVertexCount * BYTES_PER_SLAB_VERTEX;
+		return usedVertexCount * bytesPerVertex;
 	}
 
 	int availableBytes() {
-		return availableVertexCount() * BYTES_PER_SLAB_VERTEX;
+		return availableVertexCount() * bytesPerVertex;
+	}
+
+	/**
+	 * Bytes behind the head that were released by their allocation.
+	 * Can only be reclaimed by moving the remaining allocations to another slab.
+	 */
+	int deadBytes() {
+		return headVertexIndex * bytesPerVertex - usedBytes();
 	}
 
 	public boolean isFull() {
@@ -96,7 +114,7 @@ public class Slab extends AbstractGlBuffer implements SynchronizedBuffer {
 	private void addToVertexCounts(int vertexCount) {
 		usedVertexCount += vertexCount;
 		assert usedVertexCount >= 0;
-		SlabAllocator.addToVertexCount(vertexCount);
+		SlabAllocator.addToVertexCount(vertexCount, bytesPerVertex);
 	}
 
 	@Override
@@ -106,8 +124,8 @@ public class Slab extends AbstractGlBuffer implements SynchronizedBuffer {
 
 	/** Returns the number of vertices allocated. */
 	SlabAllocation allocateAndLoad(SlabAllocationFactory factory, TransferBuffer buffer) {
-		final int quadVertexCount = buffer.sizeBytes() / BYTES_PER_SLAB_VERTEX;
-		assert quadVertexCount * BYTES_PER_SLAB_VERTEX == buffer.sizeBytes();
+		final int quadVertexCount = buffer.sizeBytes() / bytesPerVertex;
+		assert quadVertexCount * bytesPerVertex == buffer.sizeBytes();
 		return allocateInner(factory, buffer, 0, quadVertexCount);
 	}
 
@@ -127,14 +145,24 @@ public class Slab extends AbstractGlBuffer implements SynchronizedBuffer {
 
 		GFX.bindBuffer(bindTarget, glBufferId());
 		buffer.transferToBoundBuffer(bindTarget,
-				headVertexIndex * BYTES_PER_SLAB_VERTEX,
-				sourceStartVertexIndex * BYTES_PER_SLAB_VERTEX,
-				allocatedVertexCount * BYTES_PER_SLAB_VERTEX);
+				headVertexIndex * bytesPerVertex,
+				sourceStartVertexIndex * bytesPerVertex,
+				allocatedVertexCount * bytesPerVertex);
 
 		headVertexIndex = newHeadVertexIndex;
 		return allocation;
 	}
 
+	/** Overwrites part of an existing allocation in place and releases the buffer. */
+	void patch(SlabAllocation allocation, TransferBuffer buffer, int allocationByteOffset) {
+		assert RenderSystem.isOnRenderThread();
+		assert !isClosed;
+		assert allocationByteOffset + buffer.sizeBytes() <= allocation.quadVertexCount * bytesPerVertex;
+
+		GFX.bindBuffer(bindTarget, glBufferId());
+		buffer.releaseToBoundBuffer(bindTarget, allocation.baseQuadVertexIndex * bytesPerVertex + allocationByteOffset);
+	}
+
 	void removeAllocation(SlabAllocation allocation) {
 		assert RenderSystem.isOnRenderThread();
 		assert !isClosed;
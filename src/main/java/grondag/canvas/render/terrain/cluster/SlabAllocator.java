@@ -27,10 +27,12 @@ import grondag.canvas.buffer.format.TerrainEncoder;
 public class SlabAllocator {
 	private static int slabCount = 0;
 	private static long usedBytes = 0;
+	private static long usedVertexCount = 0;
 	private static long capacityBytes = 0;
 
-	static void addToVertexCount(int vertexCount) {
-		usedBytes += vertexCount * BYTES_PER_SLAB_VERTEX;
+	static void addToVertexCount(int vertexCount, int bytesPerVertex) {
+		usedVertexCount += vertexCount;
+		usedBytes += vertexCount * bytesPerVertex;
 	}
 
 	static void notifyShutdown(Slab slab) {
@@ -40,18 +42,17 @@ public class SlabAllocator {
 	}
 
 	public static final int SLAB_QUAD_VERTEX_COUNT_INCREMENT = 0x1000;
-	public static final int BYTES_PER_SLAB_VERTEX = 28;
-	static final int SLAB_BYTES_INCREMENT = SLAB_QUAD_VERTEX_COUNT_INCREMENT * BYTES_PER_SLAB_VERTEX;
 
-	static {
-		// Want IDE to show actual numbers above, so check here at run time that nothing changed and got missed.
-		assert BYTES_PER_SLAB_VERTEX == TerrainEncoder.TERRAIN_MATERIAL.vertexStrideBytes : "Slab vertex size doesn't match vertex format";
+	/** Slab sizes are a multiple of this so that capacity is always whole quads in the current terrain format. */
+	static int slabBytesIncrement() {
+		return SLAB_QUAD_VERTEX_COUNT_INCREMENT * TerrainEncoder.terrainFormat().vertexStrideBytes;
 	}
 
 	static Slab claim(int minCapacityBytes) {
 		assert RenderSystem.isOnRenderThread();
 		++slabCount;
-		final var result = new Slab((minCapacityBytes + SLAB_BYTES_INCREMENT - 1) / SLAB_BYTES_INCREMENT * SLAB_BYTES_INCREMENT);
+		final int increment = slabBytesIncrement();
+		final var result = new Slab((minCapacityBytes + increment - 1) / increment * increment);
 		capacityBytes += result.capacityBytes();
 		return result;
 	}
@@ -62,4 +63,14 @@ public class SlabAllocator {
 				capacityBytes / 0x100000L,
 				capacityBytes > 0 ? usedBytes * 100L / capacityBytes : 0);
 	}
+
+	/** Bytes used by terrain vertices compared with what the same vertices need in each terrain format. */
+	public static String vertexFormatSummary() {
+		return String.format("Terrain verts: %dMb  %dB fmt: %dMb  %dB fmt: %dMb",
+				usedBytes / 0x100000L,
+				TerrainEncoder.TERRAIN_MATERIAL.vertexStrideBytes,
+				usedVertexCount * TerrainEncoder.TERRAIN_MATERIAL.vertexStrideBytes / 0x100000L,
+				TerrainEncoder.COMPACT_TERRAIN_MATERIAL.vertexStrideBytes,
+				usedVertexCount * TerrainEncoder.COMPACT_TERRAIN_MATERIAL.vertexStrideBytes / 0x100000L);
+	}
 }
@@ -60,13 +60,23 @@ public class VertexCluster implements ClusterTask {
 	private Slab getHungrySlab(int slabBytes) {
 		if (hungrySlab == null || hungrySlab.availableBytes() < slabBytes) {
 			// We want to use the new slab for compaction so request one big enough to hold everything we have
-			hungrySlab = SlabAllocator.claim(activeBytes + slabBytes);
+			setHungrySlab(SlabAllocator.claim(activeBytes + slabBytes));
 			slabs.add(hungrySlab);
 		}
 
 		return hungrySlab;
 	}
 
+	/** Releases the outgoing hungry slab if it is empty because nothing else will. */
+	private void setHungrySlab(Slab slab) {
+		final Slab oldSlab = hungrySlab;
+		hungrySlab = slab;
+
+		if (oldSlab != null && oldSlab.isEmpty() && slabs.remove(oldSlab)) {
+			oldSlab.release();
+		}
+	}
+
 	void close() {
 		assert RenderSystem.isOnRenderThread();
 
@@ -129,63 +139,160 @@ public class VertexCluster implements ClusterTask {
 		return slabs.size();
 	}
 
+	/** Total capacity of all slabs. */
+	public int capacityBytes() {
+		int result = 0;
+
+		for (final var slab : slabs) {
+			result += slab.capacityBytes();
+		}
+
+		return result;
+	}
+
+	/** Bytes in our slabs released by their allocations but not yet reclaimed by compaction. */
+	public int deadBytes() {
+		int result = 0;
+
+		for (final var slab : slabs) {
+			result += slab.deadBytes();
+		}
+
+		return result;
+	}
+
+	public boolean isCompacting() {
+		return isScheduled;
+	}
+
 	@Override
 	public boolean run(long deadlineNanos) {
 		if (isScheduled) {
-			isScheduled = false;
-			compact();
+			if (compact(deadlineNanos)) {
+				isScheduled = false;
+			} else {
+				return false;
+			}
 		}
 
 		return true;
 	}
 
-	private void compact() {
-		if (slabs.size() < 2) {
+	/**
+	 * Moves allocations into the hungry slab until only one slab remains, the frame
+	 * copy budget is spent or the deadline passes.  Slabs with the least live data
+	 * relative to capacity are emptied first because they free the most memory per byte
+	 * moved.  Returns true when complete.
+	 */
+	private boolean compact(long deadlineNanos) {
+		if (isClosed || slabs.size() < 2) {
 			// nothing to do
-			return;
+			return true;
 		}
 
-		// NB: hungry slab can't be null here because we have at least two slabs. But
-		// it may not be big enough. Ensure hungry slab can hold everything, including own contents
+		ensureCompactionTarget();
+
+		// NB: hungry slab can't be null here because we have at least two slabs.
+		final Slab hungrySlab = this.hungrySlab;
 		assert hungrySlab.usedBytes() >= 0;
 		assert hungrySlab.usedBytes() <= hungrySlab.capacityBytes();
 
-		if (hungrySlab.availableBytes() < activeBytes - hungrySlab.usedBytes()) {
-			hungrySlab = SlabAllocator.claim(activeBytes);
-			slabs.add(hungrySlab);
-		}
+		boolean didMove = false;
+		boolean isComplete = true;
+		Slab source;
 
-		final Slab hungrySlab = this.hungrySlab;
+		outer:
+		while ((source = sparsestSlab()) != null) {
+			for (final var region : allocatedRegions.values()) {
+				final var oldAllocation = region.getAllocation();
 
-		for (final var region : allocatedRegions.values()) {
-			final var oldAllocation = region.getAllocation();
+				if (oldAllocation.slab == source) {
+					if (ClusterTaskManager.copyBytesRemaining() <= 0 || System.nanoTime() >= deadlineNanos) {
+						isComplete = false;
+						break outer;
+					}
 
-			if (oldAllocation.slab != hungrySlab) {
-				final var newAllocation = hungrySlab.transferFromSlabAllocation(region.factory, oldAllocation);
-				region.setAllocation(newAllocation);
-				oldAllocation.release();
+					final var newAllocation = hungrySlab.transferFromSlabAllocation(region.factory, oldAllocation);
+					region.setAllocation(newAllocation);
+					ClusterTaskManager.consumeCopyBytes(oldAllocation.quadVertexCount * oldAllocation.slab.bytesPerVertex());
+					didMove = true;
+
+					// Slab is released and removed from our list when the last allocation is released
+					oldAllocation.release();
+				}
 			}
-		}
 
-		assert slabs.size() == 1;
-		assert slabs.get(0) == hungrySlab;
+			if (slabs.contains(source)) {
+				// Holds no allocations but wasn't released - happens to former hungry slabs
+				assert source.isEmpty();
+				slabs.remove(source);
+				source.release();
+			}
+		}
 
-		if (!holdingLists.isEmpty()) {
+		// Allocations have moved even if incomplete so draw lists must be rebuilt either way
+		if (didMove && !holdingLists.isEmpty()) {
 			for (final var list : holdingLists) {
 				list.invalidate();
 			}
 		}
+
+		assert !isComplete || slabs.size() == 1;
+		assert !isComplete || slabs.get(0) == hungrySlab;
+
+		return isComplete;
+	}
+
+	/**
+	 * Ensures the hungry slab can hold everything in the cluster.  Prefers an existing slab
+	 * with enough remaining capacity and the least dead space. Claims a new slab only
+	 * if none will fit, so that memory use doesn't briefly double when it can be avoided.
+	 */
+	private void ensureCompactionTarget() {
+		if (hungrySlab.availableBytes() >= activeBytes - hungrySlab.usedBytes()) {
+			return;
+		}
+
+		Slab best = null;
+
+		for (final var slab : slabs) {
+			if (slab.availableBytes() >= activeBytes - slab.usedBytes() && (best == null || slab.deadBytes() < best.deadBytes())) {
+				best = slab;
+			}
+		}
+
+		if (best == null) {
+			best = SlabAllocator.claim(activeBytes);
+			slabs.add(best);
+		}
+
+		setHungrySlab(best);
 	}
 
-	void addListListener(ClusterDrawList listener) {
+	/** Slab other than the hungry slab with the lowest occupancy, or null if there isn't one. */
+	private @Nullable Slab sparsestSlab() {
+		Slab result = null;
+
+		for (final var slab : slabs) {
+			// compares usedBytes / capacityBytes without division
+			if (slab != hungrySlab && (result == null || (long) slab.usedBytes() * result.capacityBytes() < (long) result.usedBytes() * slab.capacityBytes())) {
+				result = slab;
+			}
+		}
+
+		return result;
+	}
+
+	/** Listener will be invalidated when compaction moves allocations in this cluster. */
+	public void addListListener(ClusterDrawList listener) {
 		assert !holdingLists.contains(listener);
 		assert !isClosed;
 		holdingLists.add(listener);
 	}
 
-	void removeListListener(ClusterDrawList listener) {
-		assert holdingLists.contains(listener);
-		assert !isClosed;
+	public void removeListListener(ClusterDrawList listener) {
+		// Draw lists may outlive the cluster briefly when the realm is closed
+		assert isClosed || holdingLists.contains(listener);
 		holdingLists.remove(listener);
 	}
 
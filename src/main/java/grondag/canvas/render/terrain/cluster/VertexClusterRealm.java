@@ -40,7 +40,7 @@ public class VertexClusterRealm {
 	 */
 	private static final int BLOCKPOS_TO_CLUSTER_SHIFT = 4 + CLUSTER_SHIFT;
 
-	static long clusterPos(long packedOriginBlockPos) {
+	public static long clusterPos(long packedOriginBlockPos) {
 		final int x = BlockPos.getX(packedOriginBlockPos);
 		final int z = BlockPos.getZ(packedOriginBlockPos);
 		return BlockPos.asLong(x >> BLOCKPOS_TO_CLUSTER_SHIFT, 0, z >> BLOCKPOS_TO_CLUSTER_SHIFT);
@@ -96,9 +96,28 @@ public class VertexClusterRealm {
 		}
 
 		long activeByes = 0;
+		long capacityBytes = 0;
+		long deadBytes = 0;
+		int slabCount = 0;
+		int compactingCount = 0;
+		int maxFragmentation = 0;
 
 		for (final var cluster : clusters.values()) {
 			activeByes += cluster.activeBytes();
+			slabCount += cluster.slabCount();
+
+			final int clusterCapacity = cluster.capacityBytes();
+			final int clusterDead = cluster.deadBytes();
+			capacityBytes += clusterCapacity;
+			deadBytes += clusterDead;
+
+			if (clusterCapacity > 0) {
+				maxFragmentation = Math.max(maxFragmentation, (int) (clusterDead * 100L / clusterCapacity));
+			}
+
+			if (cluster.isCompacting()) {
+				++compactingCount;
+			}
 		}
 
 		//if (++lastFrame >= 200) {
@@ -114,6 +133,9 @@ public class VertexClusterRealm {
 		//	}
 		//}
 
-		return String.format("clusters: %d %dMb", clusters.size(), activeByes / 0x100000);
+		return String.format("clusters: %d %dMb slabs: %d frag: %d%% max: %d%% compacting: %d",
+				clusters.size(), activeByes / 0x100000, slabCount,
+				capacityBytes > 0 ? deadBytes * 100L / capacityBytes : 0,
+				maxFragmentation, compactingCount);
 	}
 }
@@ -21,6 +21,7 @@
 package grondag.canvas.render.terrain.drawlist;
 
 import java.util.IdentityHashMap;
+import java.util.Iterator;
 
 import it.unimi.dsi.fastutil.objects.ObjectArrayList;
 
@@ -28,10 +29,14 @@ import grondag.canvas.config.Configurator;
 import grondag.canvas.render.terrain.cluster.ClusteredDrawableStorage;
 import grondag.canvas.render.terrain.cluster.Slab;
 import grondag.canvas.render.terrain.cluster.VertexCluster;
-import grondag.canvas.render.terrain.cluster.VertexCluster.RegionAllocation.SlabAllocation;
 import grondag.canvas.render.world.SkyShadowRenderer;
 import grondag.canvas.varia.GFX;
 
+/**
+ * Draw specs for the regions of one vertex cluster in a realm draw list.
+ * Lives as long as the cluster has regions in the owning list so that
+ * each update rebuilds specs only for slabs whose allocations changed.
+ */
 public class ClusterDrawList {
 	final ObjectArrayList<ClusteredDrawableStorage> regions = new ObjectArrayList<>();
 	final VertexCluster cluster;
@@ -39,76 +44,147 @@ public class ClusterDrawList {
 	private final ObjectArrayList<DrawSpec> drawSpecs = new ObjectArrayList<>();
 	private int quadCount;
 
+	/** Solid only.  Groups by slab to minimize binds and calls. */
+	private final IdentityHashMap<Slab, SlabDrawGroup> slabGroups = new IdentityHashMap<>();
+
+	/** Translucent only.  Runs of consecutive regions in the same slab, in draw order. */
+	private final ObjectArrayList<SlabDrawGroup> slabRuns = new ObjectArrayList<>();
+
+	/** Version of the owner update that last included this list. */
+	int updateVersion;
+
 	ClusterDrawList(VertexCluster cluster, RealmDrawList owner) {
 		this.cluster = cluster;
 		this.owner = owner;
+		cluster.addListListener(this);
 	}
 
 	public int quadCount() {
 		return quadCount;
 	}
 
-	void build() {
-		assert drawSpecs.isEmpty();
+	/**
+	 * Applies regions added since the last update.
+	 *
+	 * @return true if any draw spec changed
+	 */
+	boolean update() {
+		final boolean result = cluster.realm.isTranslucent ? updateTranslucent() : updateSolid();
+		regions.clear();
+
+		if (result) {
+			drawSpecs.clear();
+			quadCount = 0;
 
-		if (cluster.realm.isTranslucent) {
-			buildTranslucent();
-		} else {
-			buildSolid();
+			if (cluster.realm.isTranslucent) {
+				for (final var run : slabRuns) {
+					addSpec(run);
+				}
+			} else {
+				for (final var group : slabGroups.values()) {
+					addSpec(group);
+				}
+			}
 		}
+
+		return result;
+	}
+
+	private void addSpec(SlabDrawGroup group) {
+		drawSpecs.add(group.spec());
+		quadCount += group.quadCount();
 	}
 
 	/** Maintains region sort order at the cost of extra binds/calls if needed. */
-	private void buildTranslucent() {
+	private boolean updateTranslucent() {
 		Slab lastSlab = null;
-		final ObjectArrayList<SlabAllocation> specAllocations = new ObjectArrayList<>();
-		int quadCount = 0;
+		SlabDrawGroup run = null;
+		int runCount = 0;
+		boolean result = false;
 
 		for (final var region : regions) {
 			final var alloc = region.allocation().getAllocation();
 
 			if (alloc.slab != lastSlab) {
-				// NB: builder checks for empty region list (will be true for first region)
-				// and also clears the list when done.
-				quadCount += DrawSpecBuilder.build(specAllocations, drawSpecs, false, false);
 				lastSlab = alloc.slab;
+
+				if (runCount < slabRuns.size() && slabRuns.get(runCount).slab == lastSlab) {
+					run = slabRuns.get(runCount);
+				} else {
+					run = new SlabDrawGroup(lastSlab);
+
+					if (runCount < slabRuns.size()) {
+						slabRuns.set(runCount, run).release();
+					} else {
+						slabRuns.add(run);
+					}
+
+					result = true;
+				}
+
+				++runCount;
 			}
 
-			specAllocations.add(alloc);
+			run.add(alloc, 0);
+		}
+
+		while (slabRuns.size() > runCount) {
+			slabRuns.pop().release();
+			result = true;
 		}
 
-		quadCount += DrawSpecBuilder.build(specAllocations, drawSpecs, false, false);
+		for (int i = 0; i < runCount; ++i) {
+			result |= countIfBuilt(slabRuns.get(i).update(false, false));
+		}
 
-		this.quadCount = quadCount;
+		return result;
 	}
 
-	/** Minimizes binds/calls. */
-	private void buildSolid() {
-		final IdentityHashMap<Slab, ObjectArrayList<SlabAllocation>> map = new IdentityHashMap<>();
+	private boolean updateSolid() {
+		final boolean isShadowMap = owner.isShadowMap;
+		final boolean cullBackFace = Configurator.cullBackfacingTerrain && (!isShadowMap || Configurator.shadowFaceCulling != SkyShadowRenderer.Culling.NONE);
+		boolean result = false;
 
 		// first group regions by slab
 		for (final var region : regions) {
 			final var alloc = region.allocation().getAllocation();
-			var list = map.get(alloc.slab);
+			var group = slabGroups.get(alloc.slab);
 
-			if (list == null) {
-				list = new ObjectArrayList<>();
-				map.put(alloc.slab, list);
+			if (group == null) {
+				group = new SlabDrawGroup(alloc.slab);
+				slabGroups.put(alloc.slab, group);
 			}
 
-			list.add(alloc);
+			group.add(alloc, cullBackFace ? (isShadowMap ? region.shadowVisibleFaceFlags() : region.visibleFaceFlags()) : 0);
 		}
 
-		int quadCount = 0;
+		final Iterator<SlabDrawGroup> it = slabGroups.values().iterator();
+
+		while (it.hasNext()) {
+			final var group = it.next();
+
+			if (group.isPendingEmpty()) {
+				group.release();
+				it.remove();
+				result = true;
+			} else {
+				result |= countIfBuilt(group.update(isShadowMap, cullBackFace));
+			}
+		}
+
+		return result;
+	}
 
-		for (final var list: map.values()) {
-			quadCount += DrawSpecBuilder.build(list, drawSpecs, owner.isShadowMap, Configurator.cullBackfacingTerrain && (!owner.isShadowMap || Configurator.shadowFaceCulling != SkyShadowRenderer.Culling.NONE));
+	private static boolean countIfBuilt(boolean didBuild) {
+		if (didBuild) {
+			++RealmDrawList.specBuildCount;
 		}
 
-		this.quadCount = quadCount;
+		return didBuild;
 	}
 
-	public void draw() {
+	/** Returns the number of draw calls issued. Each call is preceded by one VAO bind. */
+	public int draw() {
 		final int limit = drawSpecs.size();
 
 		for (int i = 0; i < limit; ++i) {
@@ -116,6 +192,42 @@ public class ClusterDrawList {
 			spec.bind();
 			GFX.glMultiDrawElementsBaseVertex(GFX.GL_TRIANGLES, spec.triVertexCount(), GFX.GL_UNSIGNED_SHORT, spec.triIndexOffset(), spec.baseQuadVertexOffset());
 		}
+
+		return limit;
+	}
+
+	/**
+	 * Same as {@link #draw()} but sources draw parameters from the indirect
+	 * buffer bound by the owning list.
+	 */
+	public int drawIndirect() {
+		final int limit = drawSpecs.size();
+
+		for (int i = 0; i < limit; ++i) {
+			final var spec = drawSpecs.get(i);
+			spec.bind();
+			GFX.multiDrawElementsIndirect(GFX.GL_TRIANGLES, GFX.GL_UNSIGNED_SHORT, spec.indirectByteOffset(), spec.size(), 0);
+		}
+
+		return limit;
+	}
+
+	int indirectCommandCount() {
+		int result = 0;
+
+		for (final var spec : drawSpecs) {
+			result += spec.size();
+		}
+
+		return result;
+	}
+
+	int putIndirectCommands(int[] commands, int commandIndex) {
+		for (final var spec : drawSpecs) {
+			commandIndex = spec.putIndirectCommands(commands, commandIndex);
+		}
+
+		return commandIndex;
 	}
 
 	public void add(ClusteredDrawableStorage region) {
@@ -128,6 +240,17 @@ public class ClusterDrawList {
 	}
 
 	public void release() {
-		drawSpecs.forEach(DrawSpec::release);
+		cluster.removeListListener(this);
+
+		for (final var group : slabGroups.values()) {
+			group.release();
+		}
+
+		slabGroups.clear();
+		slabRuns.forEach(SlabDrawGroup::release);
+		slabRuns.clear();
+		drawSpecs.clear();
+		regions.clear();
+		quadCount = 0;
 	}
 }
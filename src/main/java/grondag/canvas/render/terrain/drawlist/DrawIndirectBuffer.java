@@ -0,0 +1,54 @@
+/*
+ * This file is part of Canvas Renderer and is licensed to the project under
+ * terms that are compatible with the GNU Lesser General Public License.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership and licensing.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package grondag.canvas.render.terrain.drawlist;
+
+import com.mojang.blaze3d.systems.RenderSystem;
+
+import grondag.canvas.buffer.render.AbstractGlBuffer;
+import grondag.canvas.buffer.render.TransferBuffer;
+import grondag.canvas.buffer.render.TransferBuffers;
+import grondag.canvas.varia.GFX;
+
+/**
+ * Holds DrawElementsIndirectCommand records for every draw spec in a realm draw list.
+ * Written once when the list is built and kept for the life of the list.
+ */
+class DrawIndirectBuffer extends AbstractGlBuffer {
+	/** count, instanceCount, firstIndex, baseVertex, baseInstance. */
+	static final int COMMAND_INTS = 5;
+	static final int COMMAND_BYTES = COMMAND_INTS * 4;
+
+	DrawIndirectBuffer(int[] commands, int commandCount) {
+		super(commandCount * COMMAND_BYTES, GFX.GL_DRAW_INDIRECT_BUFFER, GFX.GL_STATIC_DRAW);
+		assert RenderSystem.isOnRenderThread();
+
+		final TransferBuffer transferBuffer = TransferBuffers.claim(capacityBytes);
+		transferBuffer.put(commands, 0, 0, commandCount * COMMAND_INTS);
+		GFX.bindBuffer(bindTarget, glBufferId());
+		transferBuffer.releaseToBoundBuffer(bindTarget, 0);
+		GFX.bindBuffer(bindTarget, 0);
+	}
+
+	@Override
+	protected void onShutdown() {
+		// NOOP
+	}
+}
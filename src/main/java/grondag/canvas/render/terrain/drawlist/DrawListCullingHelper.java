@@ -71,10 +71,11 @@ public class DrawListCullingHelper {
 
 	/** Flag 6 (unassigned) will always be set. */
 	public int computeVisibleFaceFlags(long packedOriginBlockPos) {
-		final int x = BlockPos.getX(packedOriginBlockPos) >> 4;
-		final int y = BlockPos.getY(packedOriginBlockPos) >> 4;
-		final int z = BlockPos.getZ(packedOriginBlockPos) >> 4;
+		return computeVisibleFaceFlags(BlockPos.getX(packedOriginBlockPos) >> 4, BlockPos.getY(packedOriginBlockPos) >> 4, BlockPos.getZ(packedOriginBlockPos) >> 4);
+	}
 
+	/** Flag 6 (unassigned) will always be set. Inputs are chunk coordinates. */
+	public int computeVisibleFaceFlags(int x, int y, int z) {
 		int result = FaceUtil.UNASSIGNED_FLAG;
 
 		if (x < eastMaxX) result |= FaceUtil.EAST_FLAG;
@@ -32,11 +32,16 @@ class DrawSpec {
 	private IntBuffer baseQuadVertexOffset;
 	private PointerBuffer triIndexOffset;
 	private final int size;
+	private final int quadCount;
 	private final TerrainVAO vao;
 	private boolean isClosed = false;
 
-	DrawSpec (Slab slab, int size, int[] triVertexCount, int[] baseQuadVertexOffset) {
+	/** Location of our commands in the owning list's indirect buffer, if it has one. */
+	private long indirectByteOffset;
+
+	DrawSpec (Slab slab, int size, int[] triVertexCount, int[] baseQuadVertexOffset, int quadCount) {
 		this.size = size;
+		this.quadCount = quadCount;
 		this.triVertexCount = MemoryUtil.memAllocInt(size);
 		this.triVertexCount.put(0, triVertexCount, 0, size);
 
@@ -51,7 +56,7 @@ class DrawSpec {
 
 		triIndexOffset.position(0);
 
-		vao = new TerrainVAO(() -> slab.glBufferId(), () -> SlabIndex.get().glBufferId(), 0);
+		vao = new TerrainVAO(slab.format, () -> slab.glBufferId(), () -> SlabIndex.get().glBufferId(), 0);
 	}
 
 	IntBuffer baseQuadVertexOffset() {
@@ -72,6 +77,38 @@ class DrawSpec {
 		return triIndexOffset;
 	}
 
+	int size() {
+		return size;
+	}
+
+	int quadCount() {
+		return quadCount;
+	}
+
+	long indirectByteOffset() {
+		return indirectByteOffset;
+	}
+
+	/**
+	 * Writes one indirect command per draw starting at the given command index.
+	 * Index offsets are always zero so only counts and base vertices vary.
+	 * Returns the next command index.
+	 */
+	int putIndirectCommands(int[] commands, int commandIndex) {
+		indirectByteOffset = (long) commandIndex * DrawIndirectBuffer.COMMAND_BYTES;
+		int i = commandIndex * DrawIndirectBuffer.COMMAND_INTS;
+
+		for (int j = 0; j < size; ++j) {
+			commands[i++] = triVertexCount.get(j);
+			commands[i++] = 1;
+			commands[i++] = 0;
+			commands[i++] = baseQuadVertexOffset.get(j);
+			commands[i++] = 0;
+		}
+
+		return commandIndex + size;
+	}
+
 	protected void release() {
 		assert !isClosed;
 
@@ -33,13 +33,12 @@ abstract class DrawSpecBuilder {
 	private static final IntArrayList baseQuadVertexOffset = new IntArrayList();
 	private static int quadCount;
 
-	/** NOT THREAD-SAFE. */
-	public static int build(ObjectArrayList<SlabAllocation> inputs, ObjectArrayList<DrawSpec> output, boolean isShadowMap, boolean cullBackFace) {
+	/**
+	 * Inputs must all be in the same slab and must not be empty. NOT THREAD-SAFE.
+	 */
+	public static DrawSpec build(ObjectArrayList<SlabAllocation> inputs, boolean isShadowMap, boolean cullBackFace) {
 		assert RenderSystem.isOnRenderThread();
-
-		if (inputs.isEmpty()) {
-			return 0;
-		}
+		assert !inputs.isEmpty();
 
 		DrawSpecBuilder.isShadowMap = isShadowMap;
 		quadCount = 0;
@@ -61,9 +60,7 @@ abstract class DrawSpecBuilder {
 			}
 		}
 
-		output.add(new DrawSpec(slab, triVertexCount.size(), triVertexCount.elements(), baseQuadVertexOffset.elements()));
-		inputs.clear();
-		return quadCount;
+		return new DrawSpec(slab, triVertexCount.size(), triVertexCount.elements(), baseQuadVertexOffset.elements(), quadCount);
 	}
 
 	private static void acceptAlloc(SlabAllocation alloc) {
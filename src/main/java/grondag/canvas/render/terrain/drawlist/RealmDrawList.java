@@ -22,7 +22,10 @@ package grondag.canvas.render.terrain.drawlist;
 
 import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
 import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import it.unimi.dsi.fastutil.objects.ObjectIterator;
+import org.jetbrains.annotations.Nullable;
 
+import grondag.canvas.config.Configurator;
 import grondag.canvas.material.state.RenderState;
 import grondag.canvas.render.terrain.base.AbstractDrawableRegionList;
 import grondag.canvas.render.terrain.base.DrawableRegion;
@@ -30,12 +33,34 @@ import grondag.canvas.render.terrain.base.DrawableRegionList;
 import grondag.canvas.render.terrain.cluster.ClusteredDrawableRegion;
 import grondag.canvas.render.terrain.cluster.ClusteredDrawableStorage;
 import grondag.canvas.render.world.WorldRenderState;
+import grondag.canvas.terrain.occlusion.VisibleRegionList;
+import grondag.canvas.varia.CanvasGlHelper;
 import grondag.canvas.varia.GFX;
 
+/**
+ * Draw list for one terrain pass.  Kept across frames and updated in place when visible
+ * regions or their allocations change. Cluster lists and draw specs are reused when their
+ * regions are unchanged, so an update after one region uploads rebuilds only the specs for
+ * slabs that region touches.
+ */
 public class RealmDrawList extends AbstractDrawableRegionList {
+	/** Draw specs, cluster lists and indirect buffers created since the last report. Render thread only. */
+	static int specBuildCount;
+	private static int clusterListCount;
+	private static int indirectBufferCount;
+	private static long nextReportTime;
+	private static String report = "";
+
 	final ObjectArrayList<ClusterDrawList> clusterLists = new ObjectArrayList<>();
+	private final ObjectArrayList<ClusterDrawList> priorClusterLists = new ObjectArrayList<>();
+	private final Long2ObjectOpenHashMap<ClusterDrawList> clusterMap = new Long2ObjectOpenHashMap<>();
+	private ObjectArrayList<DrawableRegion> spareRegions = new ObjectArrayList<>();
 	final boolean isShadowMap;
 	private int quadCount;
+	private @Nullable DrawIndirectBuffer indirectBuffer;
+	private int drawCallCount;
+	private int stateChangeCount;
+	private int updateVersion;
 
 	boolean isInvalid = false;
 
@@ -50,39 +75,139 @@ public class RealmDrawList extends AbstractDrawableRegionList {
 		return quadCount;
 	}
 
+	/**
+	 * Replaces our regions with the given visible regions, releasing the prior ones only after
+	 * the new ones are retained so that drawables present in both are never closed.
+	 */
+	@Override
+	public DrawableRegionList update(VisibleRegionList visibleRegions, boolean isTranslucent, boolean isShadowMap) {
+		assert isShadowMap == this.isShadowMap;
+		assert !isClosed();
+
+		final ObjectArrayList<DrawableRegion> priorRegions = regions;
+		regions = spareRegions;
+		DrawableRegionList.collect(visibleRegions, isTranslucent, regions);
+
+		if (regions.isEmpty()) {
+			spareRegions = regions;
+			regions = priorRegions;
+			close();
+			return DrawableRegionList.EMPTY;
+		}
+
+		build();
+
+		for (final DrawableRegion region : priorRegions) {
+			region.releaseFromDrawList();
+		}
+
+		priorRegions.clear();
+		spareRegions = priorRegions;
+		return this;
+	}
+
 	private void build() {
-		final Long2ObjectOpenHashMap<ClusterDrawList> map = new Long2ObjectOpenHashMap<>();
+		final int version = ++updateVersion;
 		final int limit = regions.size();
+		priorClusterLists.clear();
+		priorClusterLists.addAll(clusterLists);
+		clusterLists.clear();
 
 		for (int regionIndex = 0; regionIndex < limit; ++regionIndex) {
 			final ClusteredDrawableStorage storage = ((ClusteredDrawableRegion) regions.get(regionIndex)).storage();
+			final var cluster = storage.allocation().cluster();
+
+			ClusterDrawList clusterList = clusterMap.get(storage.clusterPos);
 
-			ClusterDrawList clusterList = map.get(storage.clusterPos);
+			if (clusterList == null || clusterList.cluster != cluster) {
+				if (clusterList != null) {
+					clusterList.release();
+				}
 
-			if (clusterList == null) {
-				clusterList = new ClusterDrawList(storage.allocation().cluster(), this);
+				clusterList = new ClusterDrawList(cluster, this);
+				clusterMap.put(storage.clusterPos, clusterList);
+				++clusterListCount;
+			}
+
+			if (clusterList.updateVersion != version) {
+				clusterList.updateVersion = version;
 				clusterLists.add(clusterList);
-				map.put(storage.clusterPos, clusterList);
 			}
 
 			clusterList.add(storage);
 		}
 
+		final ObjectIterator<ClusterDrawList> it = clusterMap.values().iterator();
+
+		while (it.hasNext()) {
+			final var clusterList = it.next();
+
+			if (clusterList.updateVersion != version) {
+				clusterList.release();
+				it.remove();
+			}
+		}
+
+		// Indirect commands are laid out in cluster order so any change to specs or order needs new commands
+		boolean didChange = !clusterLists.equals(priorClusterLists);
+		priorClusterLists.clear();
 		quadCount = 0;
 
-		clusterLists.forEach(cl -> {
-			cl.build();
+		for (final var cl : clusterLists) {
+			didChange |= cl.update();
 			quadCount += cl.quadCount();
-		});
+		}
+
+		final boolean useIndirect = Configurator.multiDrawIndirect && CanvasGlHelper.supportsMultiDrawIndirect();
+
+		if (didChange || useIndirect != (indirectBuffer != null)) {
+			closeIndirectBuffer();
+
+			if (useIndirect) {
+				buildIndirectBuffer();
+			}
+		}
+	}
+
+	/**
+	 * Copies the draw parameters of every cluster list into one command buffer
+	 * so each slab can be drawn with a single indirect call.
+	 */
+	private void buildIndirectBuffer() {
+		int commandCount = 0;
+
+		for (final var cl : clusterLists) {
+			commandCount += cl.indirectCommandCount();
+		}
+
+		if (commandCount == 0) {
+			return;
+		}
+
+		final int[] commands = new int[commandCount * DrawIndirectBuffer.COMMAND_INTS];
+		int commandIndex = 0;
+
+		for (final var cl : clusterLists) {
+			commandIndex = cl.putIndirectCommands(commands, commandIndex);
+		}
+
+		assert commandIndex == commandCount;
+		indirectBuffer = new DrawIndirectBuffer(commands, commandCount);
+		++indirectBufferCount;
+	}
+
+	private void closeIndirectBuffer() {
+		if (indirectBuffer != null) {
+			indirectBuffer.shutdown();
+			indirectBuffer = null;
+		}
 	}
 
 	private void rebuildIfInvalid() {
 		if (isInvalid) {
-			// Rarely happens because slab reallocation typically happen
-			// in response to player movement, which will naturally force
-			// a new draw list to be created.
+			// Happens when compaction moves allocations of regions we draw.
+			// Only specs for slabs with moved allocations are rebuilt.
 			isInvalid = false;
-			closeInner();
 			build();
 		}
 	}
@@ -98,23 +223,68 @@ public class RealmDrawList extends AbstractDrawableRegionList {
 		renderState.enable(sectorManager.originBlockX(), 0, sectorManager.originBlockZ());
 		final int limit = clusterLists.size();
 		GFX.bindVertexArray(0);
+		int drawCalls = 0;
+
+		if (indirectBuffer != null) {
+			indirectBuffer.bind();
+
+			for (int i = 0; i < limit; ++i) {
+				drawCalls += clusterLists.get(i).drawIndirect();
+			}
 
-		for (int i = 0; i < limit; ++i) {
-			clusterLists.get(i).draw();
+			indirectBuffer.unbind();
+		} else {
+			for (int i = 0; i < limit; ++i) {
+				drawCalls += clusterLists.get(i).draw();
+			}
 		}
 
 		GFX.bindVertexArray(0);
 		GFX.bindBuffer(GFX.GL_ELEMENT_ARRAY_BUFFER, 0);
 		RenderState.disable();
+
+		// one VAO bind per call, plus render state and indirect buffer if used
+		drawCallCount = drawCalls;
+		stateChangeCount = drawCalls + (indirectBuffer == null ? 1 : 2);
+	}
+
+	@Override
+	public int drawCallCount() {
+		return drawCallCount;
+	}
+
+	@Override
+	public int stateChangeCount() {
+		return stateChangeCount;
 	}
 
 	@Override
 	protected void closeInner() {
-		clusterLists.forEach(ClusterDrawList::release);
+		clusterMap.values().forEach(ClusterDrawList::release);
+		clusterMap.clear();
 		clusterLists.clear();
+		closeIndirectBuffer();
 	}
 
 	void invalidate() {
 		isInvalid = true;
 	}
+
+	/**
+	 * Draw specs, cluster lists and indirect command buffers created per second.
+	 * Counts are totalled over one second so the values are readable on the debug screen.
+	 */
+	public static String allocationDebugSummary() {
+		final long newTime = System.currentTimeMillis();
+
+		if (newTime > nextReportTime) {
+			nextReportTime = newTime + 1000;
+			report = String.format("Draw list builds/s: %d specs  %d clusters  %d cmd bufs", specBuildCount, clusterListCount, indirectBufferCount);
+			specBuildCount = 0;
+			clusterListCount = 0;
+			indirectBufferCount = 0;
+		}
+
+		return report;
+	}
 }
@@ -0,0 +1,116 @@
+/*
+ * This file is part of Canvas Renderer and is licensed to the project under
+ * terms that are compatible with the GNU Lesser General Public License.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership and licensing.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package grondag.canvas.render.terrain.drawlist;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import org.jetbrains.annotations.Nullable;
+
+import grondag.canvas.render.terrain.cluster.Slab;
+import grondag.canvas.render.terrain.cluster.VertexCluster.RegionAllocation.SlabAllocation;
+
+/**
+ * Allocations in one slab that are drawn together, and the draw spec built from them.
+ * Kept from one draw list update to the next so the spec is rebuilt only when the
+ * allocations it covers, their visible faces or the culling mode have changed.
+ */
+class SlabDrawGroup {
+	final Slab slab;
+	private ObjectArrayList<SlabAllocation> allocations = new ObjectArrayList<>();
+	private IntArrayList faceFlags = new IntArrayList();
+	private ObjectArrayList<SlabAllocation> pendingAllocations = new ObjectArrayList<>();
+	private IntArrayList pendingFaceFlags = new IntArrayList();
+	private boolean cullBackFace;
+	private @Nullable DrawSpec spec;
+
+	SlabDrawGroup(Slab slab) {
+		this.slab = slab;
+	}
+
+	/** Face flags are ignored unless back faces are culled. */
+	void add(SlabAllocation alloc, int faceFlags) {
+		assert alloc.slab == slab;
+		pendingAllocations.add(alloc);
+		pendingFaceFlags.add(faceFlags);
+	}
+
+	/** True if nothing was added since the last update. */
+	boolean isPendingEmpty() {
+		return pendingAllocations.isEmpty();
+	}
+
+	/**
+	 * Makes allocations added since the last update current and rebuilds the
+	 * draw spec if they differ from the prior allocations.  Allocations are compared
+	 * by identity, so allocations moved by compaction are always seen as changed.
+	 *
+	 * @return true if the draw spec was rebuilt
+	 */
+	boolean update(boolean isShadowMap, boolean cullBackFace) {
+		assert !pendingAllocations.isEmpty();
+
+		final boolean isUnchanged = spec != null && this.cullBackFace == cullBackFace
+				&& pendingAllocations.equals(allocations) && (!cullBackFace || pendingFaceFlags.equals(faceFlags));
+
+		final ObjectArrayList<SlabAllocation> swapAllocations = allocations;
+		allocations = pendingAllocations;
+		pendingAllocations = swapAllocations;
+		pendingAllocations.clear();
+
+		final IntArrayList swapFlags = faceFlags;
+		faceFlags = pendingFaceFlags;
+		pendingFaceFlags = swapFlags;
+		pendingFaceFlags.clear();
+
+		if (isUnchanged) {
+			return false;
+		}
+
+		if (spec != null) {
+			spec.release();
+		}
+
+		this.cullBackFace = cullBackFace;
+		spec = DrawSpecBuilder.build(allocations, isShadowMap, cullBackFace);
+		return true;
+	}
+
+	/** Null only before the first update or after release. */
+	@Nullable DrawSpec spec() {
+		return spec;
+	}
+
+	int quadCount() {
+		return spec == null ? 0 : spec.quadCount();
+	}
+
+	void release() {
+		if (spec != null) {
+			spec.release();
+			spec = null;
+		}
+
+		allocations.clear();
+		faceFlags.clear();
+		pendingAllocations.clear();
+		pendingFaceFlags.clear();
+	}
+}
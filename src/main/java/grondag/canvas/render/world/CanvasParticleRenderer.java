@@ -20,15 +20,18 @@
 
 package grondag.canvas.render.world;
 
+import java.util.Arrays;
 import java.util.Iterator;
-
-import com.google.common.util.concurrent.Runnables;
+import java.util.Queue;
+import java.util.stream.IntStream;
 
 import com.mojang.blaze3d.systems.RenderSystem;
 import com.mojang.blaze3d.vertex.BufferBuilder;
 import com.mojang.blaze3d.vertex.PoseStack;
 import com.mojang.blaze3d.vertex.Tesselator;
 import com.mojang.blaze3d.vertex.VertexConsumer;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
 
 import net.minecraft.CrashReport;
 import net.minecraft.CrashReportCategory;
@@ -40,29 +43,51 @@ import net.minecraft.client.particle.ParticleRenderType;
 import net.minecraft.client.renderer.GameRenderer;
 import net.minecraft.client.renderer.LightTexture;
 import net.minecraft.client.renderer.texture.TextureAtlas;
+import net.minecraft.core.particles.ParticleType;
 import net.minecraft.world.inventory.InventoryMenu;
 
 import io.vram.frex.api.material.MaterialConstants;
 import io.vram.frex.api.material.MaterialFinder;
 import io.vram.frex.api.material.MaterialMap;
 
+import grondag.canvas.buffer.input.DrawableVertexCollector;
 import grondag.canvas.buffer.input.VertexCollectorList;
+import grondag.canvas.material.property.TargetRenderState;
 import grondag.canvas.material.state.CanvasRenderMaterial;
 import grondag.canvas.mixinterface.ParticleEngineExt;
 import grondag.canvas.mixinterface.ParticleExt;
 import grondag.canvas.render.frustum.RegionCullingFrustum;
 
+/**
+ * Renders particles for sheets we manage through our own collectors and
+ * falls back to the tessellator for everything else.
+ *
+ * <p>Large sheets are culled in parallel batches. Each batch compacts its
+ * survivors in place so emission on the render thread keeps submission order.
+ * Material mapping is resolved once per particle type and sheet group.
+ *
+ * <p>Managed sheets are not drawn individually. Their output accumulates in the
+ * collectors and is drawn from a single buffer when a vanilla sheet needs the
+ * tessellator or when all sheets are done.
+ */
 public class CanvasParticleRenderer {
+	/** Sheets with fewer particles than this are culled inline on the render thread. */
+	private static final int PARALLEL_CULL_THRESHOLD = 4096;
+	private static final int CULL_BATCH_SIZE = 1024;
+
 	private Tesselator tessellator;
 	private BufferBuilder bufferBuilder;
 	private LightTexture lightmapTextureManager;
 	private ParticleEngineExt ext;
-	private Runnable drawHandler = Runnables.doNothing();
-	private CanvasRenderMaterial baseMat;
-	private CanvasRenderMaterial emissiveMat;
+	private SheetGroup sheetGroup;
+	private boolean hasPendingDraws = false;
 	private final RegionCullingFrustum cullingFrustum;
 	private final MaterialFinder finder = MaterialFinder.newInstance();
 
+	/** Particles of the current sheet, compacted to visible particles per batch after culling. */
+	private Particle[] cullBuffer = new Particle[PARALLEL_CULL_THRESHOLD];
+	private int[] batchCounts = new int[PARALLEL_CULL_THRESHOLD / CULL_BATCH_SIZE];
+
 	public CanvasParticleRenderer(RegionCullingFrustum cullingFrustum) {
 		this.cullingFrustum = cullingFrustum;
 	}
@@ -82,51 +107,127 @@ public class CanvasParticleRenderer {
 
 		while (sheets.hasNext()) {
 			final ParticleRenderType particleTextureSheet = sheets.next();
-			final Iterable<Particle> iterable = ext.canvas_particles().get(particleTextureSheet);
+			final Queue<Particle> queue = ext.canvas_particles().get(particleTextureSheet);
 
-			if (iterable == null) {
+			if (queue == null || queue.isEmpty()) {
 				continue;
 			}
 
-			final Iterator<Particle> particles = iterable.iterator();
-
-			if (!particles.hasNext()) continue;
-
 			final VertexConsumer consumer = beginSheet(particleTextureSheet, collectors);
+			final int size = queue.size();
 
-			while (particles.hasNext()) {
-				final Particle particle = particles.next();
-
-				if (!cullingFrustum.isVisible(particle.getBoundingBox())) {
-					continue;
+			if (size < PARALLEL_CULL_THRESHOLD) {
+				for (final Particle particle : queue) {
+					if (cullingFrustum.isVisible(particle.getBoundingBox())) {
+						renderParticle(particle, particleTextureSheet, consumer, collectors, camera, tickDelta);
+					}
 				}
+			} else {
+				final int batchCount = cullParallel(queue, size);
+				final Particle[] cullBuffer = this.cullBuffer;
 
-				try {
-					if (baseMat != null) {
-						finder.copyFrom(baseMat);
-						MaterialMap.getForParticle(((ParticleExt) particle).canvas_particleType()).map(finder, particle);
-						// FEAT: enhanced material maps for particles - shaders for animation in particular
-						collectors.emitter.defaultMaterial(finder.emissive() ? emissiveMat : baseMat);
-					}
+				for (int b = 0; b < batchCount; ++b) {
+					final int start = b * CULL_BATCH_SIZE;
+					final int limit = start + batchCounts[b];
 
-					particle.render(consumer, camera, tickDelta);
-				} catch (final Throwable exception) {
-					final CrashReport crashReport = CrashReport.forThrowable(exception, "Rendering Particle");
-					final CrashReportCategory crashReportSection = crashReport.addCategory("Particle being rendered");
-					crashReportSection.setDetail("Particle", particle::toString);
-					crashReportSection.setDetail("Particle Type", particleTextureSheet::toString);
-					throw new ReportedException(crashReport);
+					for (int i = start; i < limit; ++i) {
+						renderParticle(cullBuffer[i], particleTextureSheet, consumer, collectors, camera, tickDelta);
+					}
 				}
+
+				// don't retain references to dead particles
+				Arrays.fill(cullBuffer, 0, size, null);
 			}
 
-			drawHandler.run();
+			if (sheetGroup == null) {
+				particleTextureSheet.end(tessellator);
+			}
 		}
 
+		drawPending(collectors);
 		renderMatrix.popPose();
 		RenderSystem.applyModelViewMatrix();
 		teardownVanillaParticleRender();
 	}
 
+	/**
+	 * Copies the queue into the cull buffer and culls fixed-size batches on the common pool.
+	 * Survivors of each batch are moved to the front of that batch.
+	 *
+	 * @return number of batches, each with a visible count in {@link #batchCounts}
+	 */
+	private int cullParallel(Queue<Particle> queue, int size) {
+		if (cullBuffer.length < size) {
+			cullBuffer = new Particle[size + (size >> 1)];
+		}
+
+		final Particle[] cullBuffer = this.cullBuffer;
+		int n = 0;
+
+		for (final Particle particle : queue) {
+			cullBuffer[n++] = particle;
+		}
+
+		final int batchCount = (size + CULL_BATCH_SIZE - 1) / CULL_BATCH_SIZE;
+
+		if (batchCounts.length < batchCount) {
+			batchCounts = new int[cullBuffer.length / CULL_BATCH_SIZE + 1];
+		}
+
+		final int[] batchCounts = this.batchCounts;
+
+		IntStream.range(0, batchCount).parallel().forEach(b -> {
+			final int start = b * CULL_BATCH_SIZE;
+			final int limit = Math.min(size, start + CULL_BATCH_SIZE);
+			int count = start;
+
+			for (int i = start; i < limit; ++i) {
+				final Particle particle = cullBuffer[i];
+
+				if (cullingFrustum.isVisible(particle.getBoundingBox())) {
+					cullBuffer[count++] = particle;
+				}
+			}
+
+			batchCounts[b] = count - start;
+		});
+
+		return batchCount;
+	}
+
+	private void renderParticle(Particle particle, ParticleRenderType particleTextureSheet, VertexConsumer consumer, VertexCollectorList collectors, Camera camera, float tickDelta) {
+		try {
+			if (sheetGroup != null) {
+				// FEAT: enhanced material maps for particles - shaders for animation in particular
+				collectors.emitter.defaultMaterial(sheetGroup.material(particle, finder));
+			}
+
+			particle.render(consumer, camera, tickDelta);
+		} catch (final Throwable exception) {
+			final CrashReport crashReport = CrashReport.forThrowable(exception, "Rendering Particle");
+			final CrashReportCategory crashReportSection = crashReport.addCategory("Particle being rendered");
+			crashReportSection.setDetail("Particle", particle::toString);
+			crashReportSection.setDetail("Particle Type", particleTextureSheet::toString);
+			throw new ReportedException(crashReport);
+		}
+	}
+
+	/**
+	 * Draws everything emitted by managed sheets since the last draw in one buffer.
+	 * Collectors are drawn in render state priority order, so translucent output
+	 * still follows solid output.
+	 */
+	private void drawPending(VertexCollectorList collectors) {
+		if (hasPendingDraws) {
+			hasPendingDraws = false;
+			final ObjectArrayList<DrawableVertexCollector> drawList = collectors.sortedDrawList(TargetRenderState.PARTICLES);
+
+			if (!drawList.isEmpty()) {
+				DrawableVertexCollector.draw(drawList);
+			}
+		}
+	}
+
 	private void setupVanillaParticleRender() {
 		lightmapTextureManager.turnOnLightLayer();
 		RenderSystem.enableDepthTest();
@@ -143,32 +244,37 @@ public class CanvasParticleRenderer {
 		RenderSystem.setShader(GameRenderer::getParticleShader);
 		RenderSystem.setShaderColor(1.0F, 1.0F, 1.0F, 1.0F);
 
-		// PERF: consolidate these draws
 		if (particleTextureSheet == ParticleRenderType.TERRAIN_SHEET) {
-			baseMat = RENDER_STATE_TERRAIN;
-			emissiveMat = RENDER_STATE_TERRAIN_EMISSIVE;
-			drawHandler = () -> collectors.get(baseMat).draw(true);
-			return collectors.emitter.prepare(baseMat);
+			sheetGroup = TERRAIN_GROUP;
 		} else if (particleTextureSheet == ParticleRenderType.PARTICLE_SHEET_LIT || particleTextureSheet == ParticleRenderType.PARTICLE_SHEET_OPAQUE) {
-			baseMat = RENDER_STATE_OPAQUE_OR_LIT;
-			emissiveMat = RENDER_STATE_OPAQUE_OR_LIT_EMISSIVE;
-			drawHandler = () -> collectors.get(baseMat).draw(true);
-			return collectors.emitter.prepare(baseMat);
+			sheetGroup = OPAQUE_OR_LIT_GROUP;
 		} else if (particleTextureSheet == ParticleRenderType.PARTICLE_SHEET_TRANSLUCENT) {
-			baseMat = RENDER_STATE_TRANSLUCENT;
-			emissiveMat = RENDER_STATE_TRANSLUCENT_EMISSIVE;
-			drawHandler = () -> collectors.get(baseMat).draw(true);
-			return collectors.emitter.prepare(baseMat);
+			sheetGroup = TRANSLUCENT_GROUP;
+		} else {
+			sheetGroup = null;
+		}
+
+		if (sheetGroup != null) {
+			hasPendingDraws = true;
+			return collectors.emitter.prepare(sheetGroup.baseMat);
 		}
 
+		// vanilla sheets may depend on what came before
+		drawPending(collectors);
 		setupVanillaParticleRender();
 		particleTextureSheet.begin(bufferBuilder, ext.canvas_textureManager());
-		drawHandler = () -> particleTextureSheet.end(tessellator);
-		baseMat = null;
-		emissiveMat = null;
 		return bufferBuilder;
 	}
 
+	/**
+	 * Clears mapped materials. Material maps are reloaded with resources.
+	 */
+	public static void reload() {
+		TERRAIN_GROUP.materials.clear();
+		OPAQUE_OR_LIT_GROUP.materials.clear();
+		TRANSLUCENT_GROUP.materials.clear();
+	}
+
 	private static MaterialFinder baseFinder() {
 		return MaterialFinder.threadLocal()
 				.depthTest(MaterialConstants.DEPTH_TEST_LEQUAL)
@@ -214,4 +320,38 @@ public class CanvasParticleRenderer {
 	private static final CanvasRenderMaterial RENDER_STATE_TRANSLUCENT_EMISSIVE = (CanvasRenderMaterial) baseFinder().copyFrom(RENDER_STATE_TRANSLUCENT)
 			.emissive(true)
 			.find();
+
+	private static final SheetGroup TERRAIN_GROUP = new SheetGroup(RENDER_STATE_TERRAIN, RENDER_STATE_TERRAIN_EMISSIVE);
+	private static final SheetGroup OPAQUE_OR_LIT_GROUP = new SheetGroup(RENDER_STATE_OPAQUE_OR_LIT, RENDER_STATE_OPAQUE_OR_LIT_EMISSIVE);
+	private static final SheetGroup TRANSLUCENT_GROUP = new SheetGroup(RENDER_STATE_TRANSLUCENT, RENDER_STATE_TRANSLUCENT_EMISSIVE);
+
+	/**
+	 * Materials for sheets we render, with the mapped material cached per particle type.
+	 * Particle material maps only select between the base and emissive variants, so the
+	 * result depends on type and not on the particle instance. Render thread only.
+	 */
+	private static final class SheetGroup {
+		private final CanvasRenderMaterial baseMat;
+		private final CanvasRenderMaterial emissiveMat;
+		private final Reference2ObjectOpenHashMap<ParticleType<?>, CanvasRenderMaterial> materials = new Reference2ObjectOpenHashMap<>();
+
+		private SheetGroup(CanvasRenderMaterial baseMat, CanvasRenderMaterial emissiveMat) {
+			this.baseMat = baseMat;
+			this.emissiveMat = emissiveMat;
+		}
+
+		private CanvasRenderMaterial material(Particle particle, MaterialFinder finder) {
+			final ParticleType<?> type = ((ParticleExt) particle).canvas_particleType();
+			CanvasRenderMaterial result = materials.get(type);
+
+			if (result == null) {
+				finder.copyFrom(baseMat);
+				MaterialMap.getForParticle(type).map(finder, particle);
+				result = finder.emissive() ? emissiveMat : baseMat;
+				materials.put(type, result);
+			}
+
+			return result;
+		}
+	}
 }
@@ -138,6 +138,7 @@ public class CanvasWorldRenderer extends LevelRenderer {
 	private CanvasImmediate shadowExtrasImmediate;
 	private CanvasOutlineImmediate outlineImmediate;
 	private final CanvasParticleRenderer particleRenderer = new CanvasParticleRenderer(entityCullingFrustum);
+	private final ParallelEntityRenderer parallelEntityRenderer = new ParallelEntityRenderer();
 	private final WorldRenderContextBase eventContext = new WorldRenderContextBase();
 
 	/** Used to avoid camera rotation in managed draws.  Kept to avoid reallocation every frame. */
@@ -358,8 +359,11 @@ public class CanvasWorldRenderer extends LevelRenderer {
 		final long updateBudget = wr.canvas_chunkUpdateSmoother().registerValueAndGetMean(usedTime) * 3L / 2L;
 		final long clampedBudget = MathHelper.clamp(updateBudget, maxFpsLimit, 33333333L);
 
-		worldRenderState.regionBuilder().upload();
-		worldRenderState.regionRebuildManager.processScheduledRegions(frameStartNanos + clampedBudget);
+		final long updateEndNanos = frameStartNanos + clampedBudget;
+
+		// Uploads get up to half the remaining time so that capturing regions for rebuild isn't starved
+		worldRenderState.regionBuilder().upload(nowTime + (updateEndNanos - nowTime) / 2);
+		worldRenderState.regionRebuildManager.processScheduledRegions(updateEndNanos);
 
 		// WIP: need a way to set the deadline appropriately based on steady frame rate and time already elapsed.
 		// Method must ensure we don't have starvation - task queue can't grow indefinitely.
@@ -419,6 +423,13 @@ public class CanvasWorldRenderer extends LevelRenderer {
 
 		CanvasImmediate.protectBuffers(immediate, materialExtrasImmediate, shadowExtrasImmediate);
 
+		final boolean parallelEntities = Configurator.parallelEntityRender;
+		immediate.collectors.detachAll();
+
+		if (parallelEntities) {
+			parallelEntityRenderer.prepare(wr, frameCameraX, frameCameraY, frameCameraZ, tickDelta);
+		}
+
 		while (entities.hasNext()) {
 			final Entity entity = entities.next();
 
@@ -472,6 +483,11 @@ public class CanvasWorldRenderer extends LevelRenderer {
 				renderProvider = immediate;
 			}
 
+			if (parallelEntities && renderProvider == immediate && parallelEntityRenderer.canRender(entityRenderDispatcher, entity)) {
+				parallelEntityRenderer.add(entity);
+				continue;
+			}
+
 			entityBlockContext.setPosAndWorldFromEntity(entity);
 
 			// These mods enable partial player model rendering in first person
@@ -523,6 +539,13 @@ public class CanvasWorldRenderer extends LevelRenderer {
 					continue;
 				}
 
+				++blockEntityCount;
+
+				if (parallelEntities && stage == -1 && parallelEntityRenderer.canRender(blockEntity)) {
+					parallelEntityRenderer.add(blockEntity);
+					continue;
+				}
+
 				MultiBufferSource outputConsumer = immediate;
 
 				identityStack.pushPose();
@@ -538,7 +561,6 @@ public class CanvasWorldRenderer extends LevelRenderer {
 					};
 				}
 
-				++blockEntityCount;
 				WorldRenderDraws.renderBlockEntitySafely(blockEntity, tickDelta, identityStack, outputConsumer);
 				identityStack.popPose();
 			}
@@ -549,12 +571,28 @@ public class CanvasWorldRenderer extends LevelRenderer {
 
 			while (globalBERs.hasNext()) {
 				final BlockEntity blockEntity2 = globalBERs.next();
-				final BlockPos blockPos2 = blockEntity2.getBlockPos();
-				identityStack.pushPose();
-				identityStack.translate(blockPos2.getX() - frameCameraX, blockPos2.getY() - frameCameraY, blockPos2.getZ() - frameCameraZ);
 				++blockEntityCount;
-				WorldRenderDraws.renderBlockEntitySafely(blockEntity2, tickDelta, identityStack, immediate);
-				identityStack.popPose();
+
+				if (parallelEntities && parallelEntityRenderer.canRender(blockEntity2)) {
+					parallelEntityRenderer.add(blockEntity2);
+				} else {
+					renderBlockEntity(blockEntity2, tickDelta, frameCameraX, frameCameraY, frameCameraZ, immediate);
+				}
+			}
+		}
+
+		if (parallelEntities) {
+			WorldRenderDraws.profileSwap(profiler, ProfilerGroup.StartWorld, "parallel_entities");
+			parallelEntityRenderer.render(immediate.collectors);
+
+			for (final Entity entity : parallelEntityRenderer.failedEntities()) {
+				entityBlockContext.setPosAndWorldFromEntity(entity);
+				wr.canvas_renderEntity(entity, frameCameraX, frameCameraY, frameCameraZ, tickDelta, identityStack, immediate);
+				immediate.endLastBatch();
+			}
+
+			for (final BlockEntity blockEntity : parallelEntityRenderer.failedBlockEntities()) {
+				renderBlockEntity(blockEntity, tickDelta, frameCameraX, frameCameraY, frameCameraZ, immediate);
 			}
 		}
 
@@ -832,6 +870,14 @@ public class CanvasWorldRenderer extends LevelRenderer {
 		}
 	}
 
+	private void renderBlockEntity(BlockEntity blockEntity, float tickDelta, double cameraX, double cameraY, double cameraZ, MultiBufferSource outputConsumer) {
+		final BlockPos blockPos = blockEntity.getBlockPos();
+		identityStack.pushPose();
+		identityStack.translate(blockPos.getX() - cameraX, blockPos.getY() - cameraY, blockPos.getZ() - cameraZ);
+		WorldRenderDraws.renderBlockEntitySafely(blockEntity, tickDelta, identityStack, outputConsumer);
+		identityStack.popPose();
+	}
+
 	public void updateNoCullingBlockEntities(ObjectOpenHashSet<BlockEntity> removedBlockEntities, ObjectOpenHashSet<BlockEntity> addedBlockEntities) {
 		((LevelRenderer) vanillaWorldRenderer).updateGlobalBlockEntities(removedBlockEntities, addedBlockEntities);
 	}
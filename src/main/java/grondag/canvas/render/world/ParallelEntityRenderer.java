@@ -0,0 +1,276 @@
+/*
+ * This file is part of Canvas Renderer and is licensed to the project under
+ * terms that are compatible with the GNU Lesser General Public License.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership and licensing.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package grondag.canvas.render.world;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import com.google.common.collect.ImmutableMap;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
+
+import com.mojang.blaze3d.vertex.BufferBuilder;
+import com.mojang.blaze3d.vertex.PoseStack;
+import com.mojang.blaze3d.vertex.VertexConsumer;
+
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.renderer.RenderType;
+import net.minecraft.client.renderer.blockentity.BeaconRenderer;
+import net.minecraft.client.renderer.blockentity.BedRenderer;
+import net.minecraft.client.renderer.blockentity.BlockEntityRenderDispatcher;
+import net.minecraft.client.renderer.blockentity.BlockEntityRenderer;
+import net.minecraft.client.renderer.blockentity.TheEndGatewayRenderer;
+import net.minecraft.client.renderer.blockentity.TheEndPortalRenderer;
+import net.minecraft.client.renderer.entity.EntityRenderDispatcher;
+import net.minecraft.client.renderer.entity.PaintingRenderer;
+import net.minecraft.core.BlockPos;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.level.block.entity.BlockEntity;
+
+import grondag.canvas.CanvasMod;
+import grondag.canvas.buffer.input.CanvasImmediate;
+import grondag.canvas.buffer.input.VertexCollectorList;
+import grondag.canvas.material.state.RenderContextState;
+import grondag.canvas.mixinterface.LevelRendererExt;
+
+/**
+ * Encodes block entities and entities on worker threads when their renderers are known to be
+ * thread-safe. Most renderers are not: they animate shared model parts, draw text or route
+ * through shared render contexts, so the list here is small and matched by exact class.
+ *
+ * <p>Work is split into contiguous partitions and each partition has its own immediate,
+ * collectors and material context. Partition collectors are attached to the main immediate's
+ * collectors so they are drawn with main-thread output in draw priority order.
+ *
+ * <p>Anything that fails on a worker, including a renderer asking for a render type we
+ * don't handle, is handed back to be rendered on the main thread and its renderer is not
+ * submitted again. Output emitted before the failure is discarded so nothing is drawn twice.
+ */
+class ParallelEntityRenderer {
+	/** Smaller partitions aren't worth the hand-off. */
+	private static final int MIN_PARTITION_SIZE = 64;
+
+	private static final ReferenceOpenHashSet<Class<?>> SAFE_RENDERERS = new ReferenceOpenHashSet<>(new Class<?>[] {
+		BedRenderer.class,
+		BeaconRenderer.class,
+		TheEndPortalRenderer.class,
+		TheEndGatewayRenderer.class,
+		PaintingRenderer.class
+	});
+
+	/** Renderers that failed on a worker. Written by workers. */
+	private static final Set<Class<?>> DEMOTED_RENDERERS = ConcurrentHashMap.newKeySet();
+
+	private final Partition[] partitions = new Partition[ForkJoinPool.getCommonPoolParallelism() + 1];
+	private final ObjectArrayList<Entity> entities = new ObjectArrayList<>();
+	private final ObjectArrayList<BlockEntity> blockEntities = new ObjectArrayList<>();
+	private final ObjectArrayList<Entity> failedEntities = new ObjectArrayList<>();
+	private final ObjectArrayList<BlockEntity> failedBlockEntities = new ObjectArrayList<>();
+
+	private LevelRendererExt wr;
+	private BlockEntityRenderDispatcher blockEntityRenderDispatcher;
+	private double cameraX, cameraY, cameraZ;
+	private float tickDelta;
+
+	ParallelEntityRenderer() {
+		for (int i = 0; i < partitions.length; ++i) {
+			partitions[i] = new Partition();
+		}
+	}
+
+	private static boolean isSafe(Object renderer) {
+		final Class<?> rendererClass = renderer.getClass();
+		return SAFE_RENDERERS.contains(rendererClass) && !DEMOTED_RENDERERS.contains(rendererClass);
+	}
+
+	boolean canRender(BlockEntity blockEntity) {
+		final BlockEntityRenderer<BlockEntity> renderer = blockEntityRenderDispatcher.getRenderer(blockEntity);
+		return renderer != null && isSafe(renderer);
+	}
+
+	/**
+	 * Name tags use the font renderer, which isn't thread-safe. Fire and hit boxes come
+	 * from the dispatcher rather than the renderer so they aren't covered by the list.
+	 */
+	boolean canRender(EntityRenderDispatcher entityRenderDispatcher, Entity entity) {
+		return !entity.hasCustomName() && !entity.displayFireAnimation() && !entityRenderDispatcher.shouldRenderHitBoxes()
+				&& isSafe(entityRenderDispatcher.getRenderer(entity));
+	}
+
+	void prepare(LevelRendererExt wr, double cameraX, double cameraY, double cameraZ, float tickDelta) {
+		this.wr = wr;
+		blockEntityRenderDispatcher = Minecraft.getInstance().getBlockEntityRenderDispatcher();
+		this.cameraX = cameraX;
+		this.cameraY = cameraY;
+		this.cameraZ = cameraZ;
+		this.tickDelta = tickDelta;
+		entities.clear();
+		blockEntities.clear();
+		failedEntities.clear();
+		failedBlockEntities.clear();
+	}
+
+	void add(Entity entity) {
+		entities.add(entity);
+	}
+
+	void add(BlockEntity blockEntity) {
+		blockEntities.add(blockEntity);
+	}
+
+	/**
+	 * Encodes everything added since {@link #prepare} and attaches the output to the given
+	 * collectors. Blocks until all partitions are done; the calling thread takes part.
+	 */
+	void render(VertexCollectorList target) {
+		final int total = entities.size() + blockEntities.size();
+
+		if (total == 0) {
+			return;
+		}
+
+		final int partitionCount = Math.max(1, Math.min(partitions.length, total / MIN_PARTITION_SIZE));
+
+		IntStream.range(0, partitionCount).parallel().forEach(p -> {
+			partitions[p].render(p * total / partitionCount, (p + 1) * total / partitionCount);
+		});
+
+		for (int p = 0; p < partitionCount; ++p) {
+			final Partition partition = partitions[p];
+			target.attach(partition.immediate.collectors);
+			failedEntities.addAll(partition.failedEntities);
+			failedBlockEntities.addAll(partition.failedBlockEntities);
+		}
+	}
+
+	/** Entities that must be rendered on the main thread after {@link #render}. */
+	ObjectArrayList<Entity> failedEntities() {
+		return failedEntities;
+	}
+
+	/** Block entities that must be rendered on the main thread after {@link #render}. */
+	ObjectArrayList<BlockEntity> failedBlockEntities() {
+		return failedBlockEntities;
+	}
+
+	private void demote(Object renderer, Exception e) {
+		if (DEMOTED_RENDERERS.add(renderer.getClass())) {
+			if (e instanceof UnsupportedRenderTypeException || e.getCause() instanceof UnsupportedRenderTypeException) {
+				CanvasMod.LOG.info(String.format("%s uses a render type that can't be encoded off the main thread and will render on the main thread.", renderer.getClass().getName()));
+			} else {
+				CanvasMod.LOG.warn(String.format("%s failed off the main thread and will render on the main thread.", renderer.getClass().getName()), e);
+			}
+		}
+	}
+
+	private class Partition {
+		private final RenderContextState contextState = new RenderContextState();
+		private final PartitionImmediate immediate = new PartitionImmediate(contextState);
+		private final ObjectArrayList<Entity> failedEntities = new ObjectArrayList<>();
+		private final ObjectArrayList<BlockEntity> failedBlockEntities = new ObjectArrayList<>();
+		private PoseStack poseStack = new PoseStack();
+
+		private void render(int start, int end) {
+			failedEntities.clear();
+			failedBlockEntities.clear();
+
+			// Anything left over was drawn or abandoned by the prior frame
+			immediate.collectors.clear();
+
+			final int entityCount = entities.size();
+
+			for (int i = start; i < end; ++i) {
+				if (i < entityCount) {
+					renderEntity(entities.get(i));
+				} else {
+					renderBlockEntity(blockEntities.get(i - entityCount));
+				}
+			}
+		}
+
+		private void renderEntity(Entity entity) {
+			immediate.collectors.mark();
+
+			try {
+				wr.canvas_renderEntity(entity, cameraX, cameraY, cameraZ, tickDelta, poseStack, immediate);
+			} catch (final Exception e) {
+				demote(wr.canvas_entityRenderDispatcher().getRenderer(entity), e);
+				failedEntities.add(entity);
+				reset();
+			}
+		}
+
+		private void renderBlockEntity(BlockEntity blockEntity) {
+			final BlockPos pos = blockEntity.getBlockPos();
+			poseStack.pushPose();
+			poseStack.translate(pos.getX() - cameraX, pos.getY() - cameraY, pos.getZ() - cameraZ);
+			immediate.collectors.mark();
+
+			try {
+				blockEntityRenderDispatcher.render(blockEntity, tickDelta, poseStack, immediate);
+				poseStack.popPose();
+			} catch (final Exception e) {
+				demote(blockEntityRenderDispatcher.getRenderer(blockEntity), e);
+				failedBlockEntities.add(blockEntity);
+				reset();
+			}
+		}
+
+		/**
+		 * Stacks can be left unbalanced by an exception, and partial output would
+		 * be drawn again when the object is rendered on the main thread.
+		 */
+		private void reset() {
+			immediate.collectors.rollback();
+			contextState.clear();
+			poseStack = new PoseStack();
+		}
+	}
+
+	/**
+	 * Refuses render types that would go to a vanilla buffer. Those can
+	 * only be drawn on the render thread and aren't safe to share.
+	 */
+	private static class PartitionImmediate extends CanvasImmediate {
+		private PartitionImmediate(RenderContextState contextState) {
+			super(new BufferBuilder(256), ImmutableMap.of(), contextState);
+
+			// Only the main thread draws our output
+			protectBuffers(this);
+		}
+
+		@Override
+		protected VertexConsumer fallbackBuffer(RenderType renderLayer) {
+			throw UnsupportedRenderTypeException.INSTANCE;
+		}
+	}
+
+	@SuppressWarnings("serial")
+	private static class UnsupportedRenderTypeException extends RuntimeException {
+		private static final UnsupportedRenderTypeException INSTANCE = new UnsupportedRenderTypeException();
+
+		private UnsupportedRenderTypeException() {
+			super("Render type not supported off the main thread", null, false, false);
+		}
+	}
+}
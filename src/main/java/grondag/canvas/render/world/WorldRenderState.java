@@ -54,7 +54,7 @@ public class WorldRenderState {
 	public final CanvasWorldRenderer cwr;
 
 	/** Tracks which regions had rebuilds requested, both camera and shadow view, and causes some to get built each frame. */
-	public final RegionRebuildManager regionRebuildManager = new RegionRebuildManager();
+	public final RegionRebuildManager regionRebuildManager = new RegionRebuildManager(this);
 
 	public final TerrainIterator terrainIterator = new TerrainIterator(this);
 	public final RenderRegionStorage renderRegionStorage = new RenderRegionStorage(this);
@@ -178,10 +178,8 @@ public class WorldRenderState {
 
 		areDrawListsValid = true;
 
-		solidDrawList.close();
-		solidDrawList = DrawableRegionList.build(cameraVisibleRegions, false, false);
-		translucentDrawList.close();
-		translucentDrawList = DrawableRegionList.build(cameraVisibleRegions, true, false);
+		solidDrawList = solidDrawList.update(cameraVisibleRegions, false, false);
+		translucentDrawList = translucentDrawList.update(cameraVisibleRegions, true, false);
 
 		terrainAnimationBits.clear();
 		final int cameraLimit = cameraVisibleRegions.size();
@@ -195,8 +193,7 @@ public class WorldRenderState {
 
 			for (int i = 0; i < 4; ++i) {
 				final var shadowList = shadowVisibleRegions[i];
-				shadowDrawLists[i].close();
-				shadowDrawLists[i] = DrawableRegionList.build(shadowList, false, true);
+				shadowDrawLists[i] = shadowDrawLists[i].update(shadowList, false, true);
 				shadowQuadCount += shadowDrawLists[i].quadCount();
 
 				final int shadowLimit = shadowList.size();
@@ -216,6 +213,27 @@ public class WorldRenderState {
 		return drawlistDebugSummary;
 	}
 
+	/** Draw calls and state changes per pass for the last frame, as calls/changes. */
+	public String drawCallDebugSummary() {
+		final String result = String.format("Terrain draws: %d/%ds  %d/%dt",
+				solidDrawList.drawCallCount(), solidDrawList.stateChangeCount(),
+				translucentDrawList.drawCallCount(), translucentDrawList.stateChangeCount());
+
+		if (shadowsEnabled()) {
+			int shadowDrawCalls = 0;
+			int shadowStateChanges = 0;
+
+			for (final var shadowList : shadowDrawLists) {
+				shadowDrawCalls += shadowList.drawCallCount();
+				shadowStateChanges += shadowList.stateChangeCount();
+			}
+
+			return result + String.format("  %d/%dsh", shadowDrawCalls, shadowStateChanges);
+		} else {
+			return result;
+		}
+	}
+
 	void clear() {
 		computeDistances();
 		terrainIterator.reset();
@@ -23,6 +23,7 @@ package grondag.canvas.shader;
 import java.util.Arrays;
 
 import grondag.canvas.CanvasMod;
+import grondag.canvas.buffer.format.CanvasVertexFormat;
 import grondag.canvas.buffer.format.CanvasVertexFormats;
 import grondag.canvas.buffer.format.TerrainEncoder;
 import grondag.canvas.config.Configurator;
@@ -37,6 +38,7 @@ public final class GlMaterialProgramManager {
 	public static final GlMaterialProgramManager INSTANCE = new GlMaterialProgramManager();
 
 	private boolean compileByTarget = false;
+	private CanvasVertexFormat terrainFormat = TerrainEncoder.terrainFormat();
 
 	private GlMaterialProgramManager() {
 		if (Configurator.enableLifeCycleDebug) {
@@ -61,7 +63,7 @@ public final class GlMaterialProgramManager {
 		if (result == null) {
 			final Shader vs = new GlMaterialShader(programType.vertexSource, GFX.GL_VERTEX_SHADER, programType, target);
 			final Shader fs = new GlMaterialShader(programType.fragmentSource, GFX.GL_FRAGMENT_SHADER, programType, target);
-			result = new GlMaterialProgram(vs, fs, programType.isTerrain ? TerrainEncoder.TERRAIN_MATERIAL : CanvasVertexFormats.STANDARD_MATERIAL_FORMAT, programType);
+			result = new GlMaterialProgram(vs, fs, programType.isTerrain ? terrainFormat : CanvasVertexFormats.STANDARD_MATERIAL_FORMAT, programType);
 			ShaderUniforms.MATERIAL_UNIFORM_SETUP.accept(result);
 
 			if (programType.isTerrain) {
@@ -81,9 +83,11 @@ public final class GlMaterialProgramManager {
 			}
 		}
 
-		if (Pipeline.config().materialProgram.compileByTarget != compileByTarget) {
+		// attribute bindings are fixed when a program is created
+		if (Pipeline.config().materialProgram.compileByTarget != compileByTarget || TerrainEncoder.terrainFormat() != terrainFormat) {
 			Arrays.fill(materialPrograms, null);
 			compileByTarget = Pipeline.config().materialProgram.compileByTarget;
+			terrainFormat = TerrainEncoder.terrainFormat();
 		}
 	}
 }
@@ -22,6 +22,8 @@ package grondag.canvas.shader;
 
 import java.nio.FloatBuffer;
 import java.nio.IntBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.function.Consumer;
 
 import it.unimi.dsi.fastutil.objects.ObjectArrayList;
@@ -31,11 +33,13 @@ import org.joml.Matrix4f;
 import org.lwjgl.BufferUtils;
 import org.lwjgl.system.MemoryUtil;
 
+import net.minecraft.Util;
 import net.minecraft.client.resources.language.I18n;
 
 import grondag.canvas.CanvasMod;
 import grondag.canvas.buffer.format.CanvasVertexFormat;
 import grondag.canvas.config.Configurator;
+import grondag.canvas.shader.data.FrameUniformBuffer;
 import grondag.canvas.shader.data.ShaderUniforms;
 import grondag.canvas.shader.data.UniformRefreshFrequency;
 import grondag.canvas.varia.GFX;
@@ -62,6 +66,9 @@ public class GlProgram {
 	private boolean isErrored = false;
 	private boolean needsLoad = true;
 
+	/** Source and cached binary prepared off the render thread after a reload, if any. */
+	private volatile @Nullable CompletableFuture<ProgramBinaryCache.Entry> pendingBinary = null;
+
 	GlProgram(String name, Shader vertexShader, Shader fragmentShader, CanvasVertexFormat format, ProgramType programType) {
 		this.name = name;
 		this.vertexShader = vertexShader;
@@ -219,6 +226,14 @@ public class GlProgram {
 		if (!isErrored) {
 			GFX.objectLabel(GFX.GL_PROGRAM, programId(), "PRO " + name);
 
+			final int frameBlockIndex = GFX.getUniformBlockIndex(progID, FrameUniformBuffer.BLOCK_NAME);
+
+			if (frameBlockIndex != GFX.GL_INVALID_INDEX) {
+				// linking or loading a binary resets block bindings
+				GFX.uniformBlockBinding(progID, frameBlockIndex, FrameUniformBuffer.BINDING);
+				FrameUniformBuffer.ensureCreated();
+			}
+
 			activeUniforms.clear();
 			renderTickUpdates.clear();
 			gameTickUpdates.clear();
@@ -265,12 +280,22 @@ public class GlProgram {
 			return false;
 		}
 
+		final ProgramBinaryCache.Entry cached = takeCachedBinary();
+
+		if (cached != null && ProgramBinaryCache.load(programID, cached)) {
+			return true;
+		}
+
 		if (!vertexShader.attach(programID) || !fragmentShader.attach(programID)) {
 			return false;
 		}
 
 		vertexFormat.bindProgramAttributes(programID);
 
+		if (cached != null) {
+			GFX.programParameter(programID, GFX.GL_PROGRAM_BINARY_RETRIEVABLE_HINT, GFX.GL_TRUE);
+		}
+
 		GFX.linkProgram(programID);
 
 		if (GFX.getProgramInfo(programID, GFX.GL_LINK_STATUS) == GFX.GL_FALSE) {
@@ -278,9 +303,52 @@ public class GlProgram {
 			return false;
 		}
 
+		if (cached != null) {
+			ProgramBinaryCache.save(programID, cached);
+		}
+
 		return true;
 	}
 
+	/**
+	 * Cache lookup prepared by the last reload, or done now if there wasn't one.
+	 * Null when the binary cache is not in use.
+	 */
+	private @Nullable ProgramBinaryCache.Entry takeCachedBinary() {
+		final CompletableFuture<ProgramBinaryCache.Entry> pending = pendingBinary;
+		pendingBinary = null;
+
+		if (pending != null) {
+			try {
+				return pending.join();
+			} catch (final CompletionException e) {
+				CanvasMod.LOG.warn("Unable to prepare shader program " + name + " in background.", e.getCause());
+			}
+		}
+
+		return ProgramBinaryCache.isEnabled() ? readCachedBinary() : null;
+	}
+
+	private ProgramBinaryCache.Entry readCachedBinary() {
+		return ProgramBinaryCache.read(vertexShader.getSource(), fragmentShader.getSource(), programType, vertexFormat);
+	}
+
+	/**
+	 * Builds shader source and reads any cached binary in the background so that
+	 * only GL calls remain for the render thread when the program is next activated.
+	 */
+	private void prepareLoad() {
+		if (ProgramBinaryCache.isEnabled()) {
+			pendingBinary = CompletableFuture.supplyAsync(this::readCachedBinary, Util.backgroundExecutor());
+		} else {
+			pendingBinary = CompletableFuture.supplyAsync(() -> {
+				vertexShader.getSource();
+				fragmentShader.getSource();
+				return null;
+			}, Util.backgroundExecutor());
+		}
+	}
+
 	public final void onRenderTick() {
 		final int limit = renderTickUpdates.size();
 
@@ -972,5 +1040,6 @@ public class GlProgram {
 		fragmentShader.forceReload();
 		vertexShader.forceReload();
 		needsLoad = true;
+		prepareLoad();
 	}
 }
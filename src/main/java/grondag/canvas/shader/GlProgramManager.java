@@ -24,6 +24,7 @@ import io.vram.sc.unordered.SimpleUnorderedArrayList;
 
 import grondag.canvas.CanvasMod;
 import grondag.canvas.config.Configurator;
+import grondag.canvas.shader.data.FrameUniformBuffer;
 
 public class GlProgramManager {
 	public static final GlProgramManager INSTANCE = new GlProgramManager();
@@ -45,6 +46,8 @@ public class GlProgramManager {
 	}
 
 	public void onRenderTick() {
+		FrameUniformBuffer.onRenderTick();
+
 		final int limit = programs.size();
 
 		for (int i = 0; i < limit; i++) {
@@ -30,6 +30,7 @@ import java.io.Reader;
 import java.nio.file.Path;
 import java.util.HashSet;
 import java.util.NoSuchElementException;
+import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -58,14 +59,16 @@ import grondag.canvas.varia.GFX;
 
 public class GlShader implements Shader {
 	static final Pattern PATTERN = Pattern.compile("^#include\\s+(\\\"*[\\w]+:[\\w/\\.]+)[ \\t]*.*", Pattern.MULTILINE);
-	private static final HashSet<String> INCLUDED = new HashSet<>();
 	private static boolean isErrorNoticeComplete = false;
 	private static boolean needsClearDebugOutputWarning = true;
 	private static boolean needsDebugOutputWarning = true;
 	private final ResourceLocation shaderSourceId;
 	protected final int shaderType;
 	protected final ProgramType programType;
-	private String source = null;
+	/** Preprocessed source, or null if not yet built.  May be built off the render thread. */
+	private volatile String source = null;
+	/** Incremented on reload so that source built from stale inputs is discarded.  Guarded by this. */
+	private int sourceVersion = 0;
 	private int glId = -1;
 	private boolean needsLoad = true;
 	private boolean isErrored = false;
@@ -224,69 +227,93 @@ public class GlShader implements Shader {
 		}
 	}
 
-	private String getSource() {
+	@Override
+	public String getSource() {
 		String result = source;
 
 		if (result == null) {
-			result = getCombinedShaderSource();
+			final int version;
 
-			if (Pipeline.config().enablePBR) {
-				result = StringUtils.replace(result, "//#define PBR_ENABLED", "#define PBR_ENABLED");
+			synchronized (this) {
+				version = sourceVersion;
 			}
 
-			if (!CanvasGlHelper.supportsArbConservativeDepth()) {
-				result = StringUtils.replace(result, "#define _CV_ARB_CONSERVATIVE_DEPTH", "//#define _CV_ARB_CONSERVATIVE_DEPTH");
-			}
+			result = buildSource();
 
-			if (!PreReleaseShaderCompat.needsFragmentShaderStubs()) {
-				result = StringUtils.replace(result, "#define _CV_FRAGMENT_COMPAT", "//#define _CV_FRAGMENT_COMPAT");
+			// The lock is only held for the hand-off.  Building source takes other locks
+			// and a reload can be triggered from threads that hold them.
+			synchronized (this) {
+				if (version == sourceVersion) {
+					source = result;
+				}
 			}
+		}
 
-			if (programType.isTerrain) {
-				result = StringUtils.replace(result, "#define _CV_VERTEX_DEFAULT", "#define _CV_VERTEX_TERRAIN");
-			}
+		return result;
+	}
 
-			if (programType.hasVertexProgramControl) {
-				result = StringUtils.replace(result, "#define PROGRAM_BY_UNIFORM", "//#define PROGRAM_BY_UNIFORM");
-			}
+	private String buildSource() {
+		String result = getCombinedShaderSource();
 
-			if (shaderType == GL21.GL_FRAGMENT_SHADER) {
-				result = StringUtils.replace(result, "#define VERTEX_SHADER", "#define FRAGMENT_SHADER");
-			}
+		if (Pipeline.config().enablePBR) {
+			result = StringUtils.replace(result, "//#define PBR_ENABLED", "#define PBR_ENABLED");
+		}
 
-			if (!Configurator.wavyGrass) {
-				result = StringUtils.replace(result, "#define ANIMATED_FOLIAGE", "//#define ANIMATED_FOLIAGE");
-			}
+		if (!CanvasGlHelper.supportsArbConservativeDepth()) {
+			result = StringUtils.replace(result, "#define _CV_ARB_CONSERVATIVE_DEPTH", "//#define _CV_ARB_CONSERVATIVE_DEPTH");
+		}
 
-			if (programType.isDepth) {
-				result = StringUtils.replace(result, "//#define DEPTH_PASS", "#define DEPTH_PASS");
-			}
+		if (!PreReleaseShaderCompat.needsFragmentShaderStubs()) {
+			result = StringUtils.replace(result, "#define _CV_FRAGMENT_COMPAT", "//#define _CV_FRAGMENT_COMPAT");
+		}
 
-			if (Pipeline.shadowsEnabled()) {
-				result = StringUtils.replace(result, "#define SHADOW_MAP_SIZE 1024", "#define SHADOW_MAP_SIZE " + Pipeline.skyShadowSize);
-			} else {
-				result = StringUtils.replace(result, "#define SHADOW_MAP_PRESENT", "//#define SHADOW_MAP_PRESENT");
-				result = StringUtils.replace(result, "#define SHADOW_MAP_SIZE 1024", "//#define SHADOW_MAP_SIZE 1024");
-			}
+		if (programType.isTerrain) {
+			result = StringUtils.replace(result, "#define _CV_VERTEX_DEFAULT", Configurator.compactTerrainVertex
+					? "#define _CV_VERTEX_TERRAIN\n#define _CV_VERTEX_COMPACT" : "#define _CV_VERTEX_TERRAIN");
+		}
+
+		if (programType.hasVertexProgramControl) {
+			result = StringUtils.replace(result, "#define PROGRAM_BY_UNIFORM", "//#define PROGRAM_BY_UNIFORM");
+		}
 
-			result = StringUtils.replace(result, "#define _CV_MAX_SHADER_COUNT 0", "#define _CV_MAX_SHADER_COUNT " + MaterialConstants.MAX_SHADERS);
+		if (shaderType == GL21.GL_FRAGMENT_SHADER) {
+			result = StringUtils.replace(result, "#define VERTEX_SHADER", "#define FRAGMENT_SHADER");
+		}
 
-			// prepend GLSL version
-			result = "#version " + Pipeline.config().glslVersion + "\n\n" + result;
+		if (!Configurator.frameUniformBuffer) {
+			result = StringUtils.replace(result, "#define _CV_FRAME_UNIFORM_BUFFER", "//#define _CV_FRAME_UNIFORM_BUFFER");
+		}
 
-			//if (Configurator.hdLightmaps()) {
-			//	result = StringUtils.replace(result, "#define VANILLA_LIGHTING", "//#define VANILLA_LIGHTING");
-			//
-			//	if (Configurator.lightmapNoise) {
-			//		result = StringUtils.replace(result, "//#define ENABLE_LIGHT_NOISE", "#define ENABLE_LIGHT_NOISE");
-			//	}
-			//}
+		if (!Configurator.wavyGrass) {
+			result = StringUtils.replace(result, "#define ANIMATED_FOLIAGE", "//#define ANIMATED_FOLIAGE");
+		}
 
-			if (Configurator.preprocessShaderSource) {
-				result = glslPreprocessSource(result);
-			}
+		if (programType.isDepth) {
+			result = StringUtils.replace(result, "//#define DEPTH_PASS", "#define DEPTH_PASS");
+		}
 
-			source = result;
+		if (Pipeline.shadowsEnabled()) {
+			result = StringUtils.replace(result, "#define SHADOW_MAP_SIZE 1024", "#define SHADOW_MAP_SIZE " + Pipeline.skyShadowSize);
+		} else {
+			result = StringUtils.replace(result, "#define SHADOW_MAP_PRESENT", "//#define SHADOW_MAP_PRESENT");
+			result = StringUtils.replace(result, "#define SHADOW_MAP_SIZE 1024", "//#define SHADOW_MAP_SIZE 1024");
+		}
+
+		result = StringUtils.replace(result, "#define _CV_MAX_SHADER_COUNT 0", "#define _CV_MAX_SHADER_COUNT " + MaterialConstants.MAX_SHADERS);
+
+		// prepend GLSL version
+		result = "#version " + Pipeline.config().glslVersion + "\n\n" + result;
+
+		//if (Configurator.hdLightmaps()) {
+		//	result = StringUtils.replace(result, "#define VANILLA_LIGHTING", "//#define VANILLA_LIGHTING");
+		//
+		//	if (Configurator.lightmapNoise) {
+		//		result = StringUtils.replace(result, "//#define ENABLE_LIGHT_NOISE", "#define ENABLE_LIGHT_NOISE");
+		//	}
+		//}
+
+		if (Configurator.preprocessShaderSource) {
+			result = glslPreprocessSource(result);
 		}
 
 		return result;
@@ -294,10 +321,9 @@ public class GlShader implements Shader {
 
 	protected String getCombinedShaderSource() {
 		final ResourceManager resourceManager = Minecraft.getInstance().getResourceManager();
-		INCLUDED.clear();
 		String result = loadShaderSource(resourceManager, shaderSourceId);
 		result = preprocessSource(resourceManager, result);
-		return processSourceIncludes(resourceManager, result);
+		return processSourceIncludes(resourceManager, result, new HashSet<>());
 	}
 
 	protected String preprocessSource(ResourceManager resourceManager, String baseSource) {
@@ -325,18 +351,18 @@ public class GlShader implements Shader {
 		return result == null || result.isBlank() ? "" : PreReleaseShaderCompat.compatify(result, shaderSourceId);
 	}
 
-	private String processSourceIncludes(ResourceManager resourceManager, String source) {
+	private String processSourceIncludes(ResourceManager resourceManager, String source, Set<String> included) {
 		final Matcher m = PATTERN.matcher(source);
 
 		while (m.find()) {
 			// allow quoted arguments to #include for nicer IDE support
 			final String id = StringUtils.replace(m.group(1), "\"", "");
 
-			if (INCLUDED.contains(id)) {
+			if (included.contains(id)) {
 				source = StringUtils.replace(source, m.group(0), "");
 			} else {
-				INCLUDED.add(id);
-				final String src = processSourceIncludes(resourceManager, loadShaderSource(resourceManager, new ResourceLocation(id)));
+				included.add(id);
+				final String src = processSourceIncludes(resourceManager, loadShaderSource(resourceManager, new ResourceLocation(id)), included);
 				source = StringUtils.replace(source, m.group(0), src, 1);
 			}
 		}
@@ -349,8 +375,12 @@ public class GlShader implements Shader {
 	 */
 	@Override
 	public final void forceReload() {
+		synchronized (this) {
+			++sourceVersion;
+			source = null;
+		}
+
 		needsLoad = true;
-		source = null;
 	}
 
 	@Override
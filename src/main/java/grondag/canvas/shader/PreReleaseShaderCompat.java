@@ -20,6 +20,8 @@
 
 package grondag.canvas.shader;
 
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -34,9 +36,10 @@ import grondag.canvas.CanvasMod;
 
 public class PreReleaseShaderCompat {
 	private static final ObjectArrayList<Pair<String, String>> COMPAT = new ObjectArrayList<>();
-	private static final ObjectOpenHashSet<ResourceLocation> WARNED = new ObjectOpenHashSet<>();
+	// source is prepared on background threads
+	private static final Set<ResourceLocation> WARNED = ConcurrentHashMap.newKeySet();
 	private static final ObjectOpenHashSet<ResourceLocation> EXCLUSIONS = new ObjectOpenHashSet<>();
-	private static boolean needsFragmentShaderStubs = false;
+	private static volatile boolean needsFragmentShaderStubs = false;
 
 	static {
 		// material.glsl
@@ -0,0 +1,263 @@
+/*
+ * This file is part of Canvas Renderer and is licensed to the project under
+ * terms that are compatible with the GNU Lesser General Public License.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership and licensing.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package grondag.canvas.shader;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import com.google.common.hash.Hashing;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import org.jetbrains.annotations.Nullable;
+import org.lwjgl.system.MemoryStack;
+import org.lwjgl.system.MemoryUtil;
+
+import net.minecraft.Util;
+import net.minecraft.client.Minecraft;
+
+import grondag.canvas.CanvasMod;
+import grondag.canvas.buffer.format.CanvasVertexFormat;
+import grondag.canvas.config.Configurator;
+import grondag.canvas.varia.CanvasGlHelper;
+import grondag.canvas.varia.GFX;
+
+/**
+ * On-disk cache of linked program binaries.  Entries are keyed by a hash of
+ * everything that affects the link result: preprocessed shader source, program
+ * type, vertex attribute bindings and the driver identity.  A missing, damaged
+ * or rejected entry falls back to compiling from source.
+ *
+ * <p>Key computation and file reads are safe off the render thread so they can be
+ * done while preparing a reload.  Loading and retrieving binaries must happen on
+ * the render thread. Writes are handed off to the IO pool.
+ *
+ * <p>Loading an entry refreshes its modified time.  Before the first write of a session,
+ * entries unused for a month are removed, and the least recently used entries are
+ * removed if the directory is still over its size limit.
+ */
+final class ProgramBinaryCache {
+	/** "CVPB" - guards against reading files that aren't ours. */
+	private static final int MAGIC = 0x43565042;
+	private static final int HEADER_BYTES = 8;
+	private static final long MAX_UNUSED_MILLIS = 30L * 24L * 60L * 60L * 1000L;
+	private static final long MAX_CACHE_BYTES = 256L * 1024L * 1024L;
+	private static boolean needsWriteWarning = true;
+	private static boolean needsPrune = true;
+
+	private ProgramBinaryCache() { }
+
+	record Entry(String key, @Nullable byte[] data) { }
+
+	private record CachedFile(Path path, long lastUsed, long size) { }
+
+	static boolean isEnabled() {
+		// Shader debug output happens during compilation so bypass the cache when it's wanted
+		return Configurator.programBinaryCache && !Configurator.shaderDebug && CanvasGlHelper.supportsProgramBinary();
+	}
+
+	@SuppressWarnings("resource")
+	private static Path cachePath() {
+		return Minecraft.getInstance().gameDirectory.toPath().normalize().resolve("canvas_program_cache");
+	}
+
+	static String key(String vertexSource, String fragmentSource, ProgramType programType, CanvasVertexFormat format) {
+		return Hashing.sha256().newHasher()
+			.putString(CanvasGlHelper.driverString(), StandardCharsets.UTF_8)
+			.putString(programType.name, StandardCharsets.UTF_8)
+			.putString(format.attributeSignature, StandardCharsets.UTF_8)
+			.putString(vertexSource, StandardCharsets.UTF_8)
+			.putString(fragmentSource, StandardCharsets.UTF_8)
+			.hash().toString();
+	}
+
+	/**
+	 * Looks up the cached binary for the given program inputs.  Does not use GL.
+	 * The returned entry always has a key so a miss can be saved after linking.
+	 */
+	static Entry read(String vertexSource, String fragmentSource, ProgramType programType, CanvasVertexFormat format) {
+		final String key = key(vertexSource, fragmentSource, programType, format);
+		final Path file = cachePath().resolve(key + ".bin");
+		byte[] data = null;
+
+		if (Files.isRegularFile(file)) {
+			try {
+				data = Files.readAllBytes(file);
+
+				if (data.length <= HEADER_BYTES || ByteBuffer.wrap(data).getInt(0) != MAGIC) {
+					data = null;
+				}
+			} catch (final IOException e) {
+				data = null;
+			}
+		}
+
+		return new Entry(key, data);
+	}
+
+	/**
+	 * Loads a cached binary into the program.  Returns false, leaving the
+	 * program unlinked, if there is nothing cached or the driver rejects it.
+	 */
+	static boolean load(int programID, Entry entry) {
+		final byte[] data = entry.data;
+
+		if (data == null) {
+			return false;
+		}
+
+		final int binaryFormat = ByteBuffer.wrap(data).getInt(4);
+		final ByteBuffer binary = MemoryUtil.memAlloc(data.length - HEADER_BYTES);
+
+		try {
+			binary.put(data, HEADER_BYTES, data.length - HEADER_BYTES).flip();
+			GFX.programBinary(programID, binaryFormat, binary);
+		} finally {
+			MemoryUtil.memFree(binary);
+		}
+
+		if (GFX.getProgramInfo(programID, GFX.GL_LINK_STATUS) == GFX.GL_FALSE) {
+			// Typically a driver update that kept the same version string. Entry will be replaced after linking.
+			CanvasMod.LOG.info("Cached program binary was rejected by the driver and will be rebuilt.");
+			return false;
+		}
+
+		final Path file = cachePath().resolve(entry.key + ".bin");
+		Util.ioPool().execute(() -> touch(file));
+		return true;
+	}
+
+	/**
+	 * Retrieves the binary of a successfully linked program and writes it to disk.
+	 * The program must have been linked with the retrievable hint set.
+	 */
+	static void save(int programID, Entry entry) {
+		final int length = GFX.getProgramInfo(programID, GFX.GL_PROGRAM_BINARY_LENGTH);
+
+		if (length <= 0) {
+			return;
+		}
+
+		final ByteBuffer binary = MemoryUtil.memAlloc(length);
+		final byte[] data;
+
+		try (MemoryStack stack = MemoryStack.stackPush()) {
+			final IntBuffer actualLength = stack.mallocInt(1);
+			final IntBuffer binaryFormat = stack.mallocInt(1);
+			GFX.getProgramBinary(programID, actualLength, binaryFormat, binary);
+
+			data = new byte[HEADER_BYTES + actualLength.get(0)];
+			ByteBuffer.wrap(data).putInt(MAGIC).putInt(binaryFormat.get(0));
+			binary.get(data, HEADER_BYTES, actualLength.get(0));
+		} finally {
+			MemoryUtil.memFree(binary);
+		}
+
+		final Path dir = cachePath();
+
+		if (needsPrune) {
+			needsPrune = false;
+			Util.ioPool().execute(() -> prune(dir));
+		}
+
+		Util.ioPool().execute(() -> write(dir, entry.key, data));
+	}
+
+	private static void touch(Path file) {
+		try {
+			Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+		} catch (final IOException e) {
+			// Entry may be pruned sooner than it should be
+		}
+	}
+
+	private static void prune(Path dir) {
+		if (!Files.isDirectory(dir)) {
+			return;
+		}
+
+		final ObjectArrayList<CachedFile> files = new ObjectArrayList<>();
+
+		try (Stream<Path> paths = Files.list(dir)) {
+			paths.forEach(path -> {
+				try {
+					final BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+
+					if (attributes.isRegularFile()) {
+						files.add(new CachedFile(path, attributes.lastModifiedTime().toMillis(), attributes.size()));
+					}
+				} catch (final IOException e) {
+					// Ignore files that vanish or can't be read
+				}
+			});
+		} catch (final IOException e) {
+			CanvasMod.LOG.warn("Unable to prune program binary cache in " + dir.toString(), e);
+			return;
+		}
+
+		// Most recently used first so the oldest are removed once over the size limit
+		files.sort(Comparator.comparingLong(CachedFile::lastUsed).reversed());
+
+		final long cutoff = System.currentTimeMillis() - MAX_UNUSED_MILLIS;
+		long retainedBytes = 0;
+		int removed = 0;
+
+		for (final CachedFile file : files) {
+			if (file.lastUsed < cutoff || retainedBytes + file.size > MAX_CACHE_BYTES) {
+				try {
+					Files.deleteIfExists(file.path);
+					++removed;
+				} catch (final IOException e) {
+					retainedBytes += file.size;
+				}
+			} else {
+				retainedBytes += file.size;
+			}
+		}
+
+		if (removed > 0) {
+			CanvasMod.LOG.info(String.format("Removed %d stale program binaries from cache.", removed));
+		}
+	}
+
+	private static void write(Path dir, String key, byte[] data) {
+		try {
+			Files.createDirectories(dir);
+
+			// write to a temporary file first so readers never see a partial entry
+			final Path temp = Files.createTempFile(dir, key, ".tmp");
+			Files.write(temp, data);
+			Files.move(temp, dir.resolve(key + ".bin"), StandardCopyOption.REPLACE_EXISTING);
+		} catch (final IOException e) {
+			if (needsWriteWarning) {
+				CanvasMod.LOG.warn("Unable to write program binary cache to " + dir.toString(), e);
+				needsWriteWarning = false;
+			}
+		}
+	}
+}
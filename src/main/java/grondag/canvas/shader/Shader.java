@@ -49,6 +49,14 @@ public interface Shader {
 	 */
 	String typeofUniformSpec(String name);
 
+	/**
+	 * Loads and preprocesses source if not already done. Safe to call
+	 * off the render thread so that a reload can be prepared in advance.
+	 *
+	 * @return Source as it will be given to the compiler
+	 */
+	String getSource();
+
 	/**
 	 * @return The shader source location, typically for debugging
 	 */
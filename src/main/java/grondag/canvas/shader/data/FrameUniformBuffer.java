@@ -0,0 +1,106 @@
+/*
+ * This file is part of Canvas Renderer and is licensed to the project under
+ * terms that are compatible with the GNU Lesser General Public License.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership and licensing.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package grondag.canvas.shader.data;
+
+import java.nio.ByteBuffer;
+
+import org.lwjgl.BufferUtils;
+import org.lwjgl.system.MemoryUtil;
+
+import grondag.canvas.buffer.util.GlBufferAllocator;
+import grondag.canvas.varia.GFX;
+
+/**
+ * Per-frame shader data in a single std140 uniform buffer that is written once
+ * per frame and shared by every program through a fixed binding point. Replaces
+ * per-program uploads of the same values through individual uniforms.
+ *
+ * <p>Layout must match the {@code _cvu_frame} block in canvas:shaders/internal/world.glsl.
+ * Under std140 rules every element of a scalar array occupies 16 bytes and each column
+ * of a mat3 is padded to a vec4.
+ */
+public final class FrameUniformBuffer {
+	private FrameUniformBuffer() { }
+
+	public static final String BLOCK_NAME = "_cvu_frame";
+	public static final int BINDING = 0;
+
+	private static final int WORLD_OFFSET = 0;
+	private static final int WORLD_UINT_OFFSET = WORLD_OFFSET + FloatData.FLOAT_VECTOR_COUNT * 16;
+	private static final int FLAGS_OFFSET = WORLD_UINT_OFFSET + IntData.UINT_COUNT * 16;
+	/** Length of the _cvu_flags array as declared in GLSL. */
+	private static final int FLAGS_LENGTH = 4;
+	private static final int MATRIX_OFFSET = FLAGS_OFFSET + FLAGS_LENGTH * 16;
+	private static final int NORMAL_MATRIX_OFFSET = MATRIX_OFFSET + MatrixData.COUNT * 64;
+	private static final int BYTE_SIZE = NORMAL_MATRIX_OFFSET + 48;
+
+	private static final ByteBuffer DATA = BufferUtils.createByteBuffer(BYTE_SIZE);
+	private static int glId = 0;
+
+	/**
+	 * Creates the buffer and binds it to {@link #BINDING} if not already done so that
+	 * programs using the block never read from an unbound buffer.  Called when a program
+	 * that uses the block is loaded.
+	 */
+	public static void ensureCreated() {
+		if (glId == 0) {
+			glId = GlBufferAllocator.claimBuffer(BYTE_SIZE);
+			upload();
+			GFX.bindBufferBase(GFX.GL_UNIFORM_BUFFER, BINDING, glId);
+		}
+	}
+
+	/**
+	 * Uploads current shader data.  Called once per frame, after all per-frame
+	 * values are updated and before any program reads them.  Does nothing if no
+	 * loaded program has used the block.
+	 */
+	public static void onRenderTick() {
+		if (glId != 0) {
+			upload();
+		}
+	}
+
+	private static void upload() {
+		final ByteBuffer data = DATA;
+		final long address = MemoryUtil.memAddress0(data);
+
+		MemoryUtil.memCopy(MemoryUtil.memAddress0(FloatData.FLOAT_VECTOR_DATA), address + WORLD_OFFSET, FloatData.FLOAT_VECTOR_COUNT * 16);
+
+		for (int i = 0; i < IntData.UINT_COUNT; ++i) {
+			data.putInt(WORLD_UINT_OFFSET + i * 16, IntData.UINT_DATA.get(i));
+		}
+
+		assert IntData.INT_LENGTH <= FLAGS_LENGTH;
+
+		for (int i = 0; i < IntData.INT_LENGTH; ++i) {
+			data.putInt(FLAGS_OFFSET + i * 16, IntData.INT_DATA.get(i));
+		}
+
+		MemoryUtil.memCopy(MemoryUtil.memAddress0(MatrixData.MATRIX_DATA), address + MATRIX_OFFSET, MatrixData.COUNT * 64);
+		MatrixData.viewNormalMatrix.get3x4(NORMAL_MATRIX_OFFSET, data);
+
+		GFX.bindBuffer(GFX.GL_UNIFORM_BUFFER, glId);
+		// Respecifying the whole store lets the driver hand us new memory instead of waiting on prior draws
+		GFX.bufferData(GFX.GL_UNIFORM_BUFFER, data, GFX.GL_STREAM_DRAW);
+		GFX.bindBuffer(GFX.GL_UNIFORM_BUFFER, 0);
+	}
+}
@@ -43,6 +43,7 @@ public class ShaderUniforms {
 		program.uniformSampler("_cvu_materialInfo", UniformRefreshFrequency.ON_LOAD, u -> u.set(TextureData.MATERIAL_INFO - GL21.GL_TEXTURE0));
 	};
 
+	// These are found only when the frame uniform buffer is disabled.  Otherwise the same data come from FrameUniformBuffer.
 	public static final Consumer<GlProgram> COMMON_UNIFORM_SETUP = program -> {
 		program.uniformArray4f("_cvu_world", UniformRefreshFrequency.PER_FRAME, u -> u.setExternal(FloatData.FLOAT_VECTOR_DATA), FloatData.FLOAT_VECTOR_COUNT);
 
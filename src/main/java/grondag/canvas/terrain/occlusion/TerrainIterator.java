@@ -46,14 +46,25 @@ import grondag.canvas.terrain.occlusion.camera.CameraRegionVisibility;
 import grondag.canvas.terrain.occlusion.camera.CameraVisibility;
 import grondag.canvas.terrain.occlusion.geometry.RegionOcclusionCalculator;
 import grondag.canvas.terrain.occlusion.shadow.RegionBoundingSphere;
+import grondag.canvas.terrain.occlusion.shadow.ShadowOccluder;
 import grondag.canvas.terrain.occlusion.shadow.ShadowRegionVisibility;
 import grondag.canvas.terrain.occlusion.shadow.ShadowVisibility;
 import grondag.canvas.terrain.region.RegionBuildState;
 import grondag.canvas.terrain.region.RenderRegion;
 import grondag.canvas.terrain.region.RenderRegionIndexer;
 import grondag.canvas.terrain.region.RenderRegionStorage;
+import grondag.canvas.terrain.util.TerrainExecutor;
 import grondag.canvas.terrain.util.TerrainExecutorTask;
 
+/**
+ * Camera and shadow visibility iteration.  When run off the render thread with shadows
+ * enabled, the camera traversal runs in this task and the shadow traversal runs in a
+ * second task on the terrain executor.  The iteration is complete when both finish.
+ *
+ * <p>The two traversals share no occluder raster. The shadow task draws camera-visible
+ * terrain into its own target raster from a snapshot of the camera results taken before
+ * the camera traversal starts, so shadow results can lag one pass behind camera results.
+ */
 public class TerrainIterator implements TerrainExecutorTask {
 	public static final int IDLE = 0;
 	public static final int READY = 1;
@@ -64,9 +75,31 @@ public class TerrainIterator implements TerrainExecutorTask {
 	public final CameraVisibility cameraVisibility;
 	private final RegionBoundingSphere regionBoundingSphere = new RegionBoundingSphere();
 	public final SimpleUnorderedArrayList<RenderRegion> updateRegions = new SimpleUnorderedArrayList<>();
+	private final SimpleUnorderedArrayList<RenderRegion> shadowUpdateRegions = new SimpleUnorderedArrayList<>();
 	public final VisibleRegionList visibleRegions = new VisibleRegionList();
 	public final VisibleRegionList[] shadowVisibleRegions = new VisibleRegionList[ShadowMatrixData.CASCADE_COUNT];
 	private final AtomicInteger state = new AtomicInteger(IDLE);
+
+	/** Camera results as of the start of the current pass. Only used when shadows iterate in parallel. */
+	private final VisibleRegionList shadowTargetRegions = new VisibleRegionList();
+
+	/** Number of camera-visible regions already drawn to the shadow target raster. */
+	private int shadowTargetCount;
+
+	/** Iteration tasks still running in the current pass. */
+	private final AtomicInteger pendingTasks = new AtomicInteger();
+	private final TerrainExecutorTask shadowTask = new TerrainExecutorTask() {
+		@Override
+		public void run(CanvasTerrainRenderContext ignored) {
+			runShadowIteration(shadowTargetRegions);
+			finishTask();
+		}
+
+		@Override
+		public int priority() {
+			return -1;
+		}
+	};
 	private final WorldRenderState worldRenderState;
 
 	private RenderRegion cameraRegion;
@@ -82,13 +115,15 @@ public class TerrainIterator implements TerrainExecutorTask {
 	private volatile boolean cancelled = false;
 	private boolean resetCameraOccluder;
 	private boolean resetShadowOccluder;
+	private boolean shadowsEnabled;
+	private boolean parallelShadows;
 	// Chosen shadow regions priming strategy based on configuration
 	private ShadowPrimer shadowPrimer;
 
 	public TerrainIterator(WorldRenderState worldRenderState) {
 		this.worldRenderState = worldRenderState;
 		shadowVisibility = new ShadowVisibility(worldRenderState);
-		cameraVisibility = new CameraVisibility(worldRenderState, shadowVisibility.targetOccluder);
+		cameraVisibility = new CameraVisibility(worldRenderState);
 
 		for (int i = 0; i < ShadowMatrixData.CASCADE_COUNT; ++i) {
 			shadowVisibleRegions[i] = new VisibleRegionList();
@@ -149,26 +184,6 @@ public class TerrainIterator implements TerrainExecutorTask {
 				shadowVisibility.targetOccluder.invalidate();
 			}
 
-			if (shadowVisibility.targetOccluder.prepareScene() && !resetCameraOccluder) {
-				// If the target occluder reset for some reason other than
-				// camera occluder reset, then it will be missing all the visible
-				// terrain regions and we need to redraw them.
-				final int limit = visibleRegions.size();
-
-				for (int i = 0; i < limit; ++i) {
-					final RenderRegion r = visibleRegions.get(i);
-
-					if (r.isClosed()) continue;
-
-					final RegionBuildState buildState = r.getBuildState();
-
-					if (buildState.canOcclude()) {
-						shadowVisibility.targetOccluder.prepareRegion(r.origin);
-						shadowVisibility.targetOccluder.occludeBox(buildState.getOcclusionResult().occlusionData()[RegionOcclusionCalculator.OCCLUSION_RESULT_RENDERABLE_BOUNDS_INDEX]);
-					}
-				}
-			}
-
 			resetShadowOccluder = shadowVisibility.prepareForIteration();
 
 			// shadow occluder should always reset if camera was
@@ -218,51 +233,141 @@ public class TerrainIterator implements TerrainExecutorTask {
 		assert state.get() == READY;
 		state.set(RUNNING);
 
+		shadowsEnabled = worldRenderState.shadowsEnabled();
+		// Flawless frames and main-thread iteration rebuild regions on the render thread so must stay serial
+		parallelShadows = shadowsEnabled && !RenderSystem.isOnRenderThread();
+		pendingTasks.set(parallelShadows ? 2 : 1);
+
 		try {
 			worldRenderState.renderRegionStorage.updateRegionPositionAndVisibility();
 			worldRenderState.drawListCullingHlper.update();
+			updateRegions.clear();
+			shadowUpdateRegions.clear();
+
+			if (parallelShadows) {
+				// Snapshot before the camera traversal changes the list
+				shadowTargetRegions.copyFrom(visibleRegions);
+				TerrainExecutor.INSTANCE.execute(shadowTask);
+			}
+		} catch (final Exception e) {
+			// Shadow task wasn't submitted if we get here so don't wait for it.
+			handleException(e);
+			pendingTasks.set(1);
+		}
+
+		runCameraIteration();
 
+		if (shadowsEnabled && !parallelShadows) {
+			// Camera results are already final so the shadow target can use them directly
+			runShadowIteration(visibleRegions);
+		}
+
+		finishTask();
+	}
+
+	private void runCameraIteration() {
+		try {
 			if (resetCameraOccluder) {
 				visibleRegions.clear();
 				primeCameraRegions();
 			}
 
-			updateRegions.clear();
-
 			if (Pipeline.advancedTerrainCulling() || FlawlessFrames.isActive()) {
 				iterateTerrain();
 			} else {
 				iterateTerrainSimply();
 			}
+		} catch (final Exception e) {
+			handleException(e);
+		}
+	}
 
-			if (worldRenderState.shadowsEnabled()) {
-				if (resetShadowOccluder) {
-					clearShadowRegions();
-					shadowPrimer.primeShadowRegions();
-				}
+	private void runShadowIteration(VisibleRegionList targetRegions) {
+		try {
+			prepareShadowTarget(targetRegions);
 
-				iterateShadows();
+			if (resetShadowOccluder) {
+				clearShadowRegions();
+				shadowPrimer.primeShadowRegions();
 			}
 
-			if (cancelled) {
-				state.set(IDLE);
-			} else {
-				assert state.get() == RUNNING;
-				state.set(COMPLETE);
+			iterateShadows();
+		} catch (final Exception e) {
+			handleException(e);
+		}
+	}
+
+	/**
+	 * Draws camera-visible regions to the shadow target raster. Redraws all of them if the
+	 * raster was reset, otherwise only regions added since the last pass.  The camera list is
+	 * only cleared when the camera occluder resets, and that always resets the target raster.
+	 */
+	private void prepareShadowTarget(VisibleRegionList targetRegions) {
+		final ShadowOccluder targetOccluder = shadowVisibility.targetOccluder;
 
-				if (Configurator.debugOcclusionRaster) {
-					cameraVisibility.outputRaster();
+		if (targetOccluder.prepareScene()) {
+			shadowTargetCount = 0;
+		}
 
-					if (worldRenderState.shadowsEnabled()) {
-						shadowVisibility.outputRaster();
-					}
-				}
+		final int limit = targetRegions.size();
+
+		for (int i = shadowTargetCount; i < limit; ++i) {
+			final RenderRegion r = targetRegions.get(i);
+
+			if (r.isClosed()) continue;
+
+			final RegionBuildState buildState = r.getBuildState();
+
+			if (buildState.canOcclude()) {
+				targetOccluder.prepareRegion(r.origin);
+				targetOccluder.occludeBox(buildState.getOcclusionResult().occlusionData()[RegionOcclusionCalculator.OCCLUSION_RESULT_RENDERABLE_BOUNDS_INDEX]);
 			}
-		} catch (final Exception e) {
-			// If we have an error, is important that we set status back to IDLE so that we have a chance to restart.
-			CanvasMod.LOG.warn("Unhandled exception in terrain iteration. This is probably a bug and will cause incorrect world renderering.", e);
-			cancelled = true;
+		}
+
+		shadowTargetCount = limit;
+	}
+
+	private void handleException(Exception e) {
+		// If we have an error, is important that we set status back to IDLE so that we have a chance to restart.
+		CanvasMod.LOG.warn("Unhandled exception in terrain iteration. This is probably a bug and will cause incorrect world renderering.", e);
+		cancelled = true;
+	}
+
+	/**
+	 * Called by each iteration task when done. The last one to finish
+	 * merges results and makes them available to the render thread.
+	 */
+	private void finishTask() {
+		if (pendingTasks.decrementAndGet() != 0) {
+			return;
+		}
+
+		if (cancelled) {
 			state.set(IDLE);
+			return;
+		}
+
+		final int limit = shadowUpdateRegions.size();
+
+		for (int i = 0; i < limit; ++i) {
+			updateRegions.add(shadowUpdateRegions.get(i));
+		}
+
+		if (parallelShadows && resetCameraOccluder) {
+			// Shadow target was drawn from the camera results of the prior pass,
+			// so iterate shadows again against the new results.
+			shadowVisibility.invalidate();
+		}
+
+		assert state.get() == RUNNING;
+		state.set(COMPLETE);
+
+		if (Configurator.debugOcclusionRaster) {
+			cameraVisibility.outputRaster();
+
+			if (shadowsEnabled) {
+				shadowVisibility.outputRaster();
+			}
 		}
 	}
 
@@ -610,7 +715,7 @@ public class TerrainIterator implements TerrainExecutorTask {
 					region.rebuildOnMainThread();
 					buildState = region.getBuildState();
 				} else {
-					updateRegions.add(region);
+					shadowUpdateRegions.add(region);
 					continue;
 				}
 			}
@@ -622,7 +727,7 @@ public class TerrainIterator implements TerrainExecutorTask {
 					region.rebuildOnMainThread();
 					buildState = region.getBuildState();
 				} else {
-					updateRegions.add(region);
+					shadowUpdateRegions.add(region);
 				}
 			}
 
@@ -28,20 +28,12 @@ import grondag.canvas.config.Configurator;
 import grondag.canvas.render.frustum.TerrainFrustum;
 import grondag.canvas.render.world.WorldRenderState;
 import grondag.canvas.terrain.occlusion.base.AbstractVisbility;
-import grondag.canvas.terrain.occlusion.geometry.RegionOcclusionCalculator;
-import grondag.canvas.terrain.occlusion.shadow.ShadowOccluder;
 import grondag.canvas.terrain.region.RegionPosition;
 import grondag.canvas.terrain.region.RenderRegion;
 
 public class CameraVisibility extends AbstractVisbility<CameraVisibility, CameraRegionVisibility, CameraPotentiallyVisibleRegionSet, CameraOccluder> {
-	private final ShadowOccluder targetOccluder;
-
-	/** Stashed during prepare in case we need it to draw to target occluder. */
-	private RegionPosition lastOrigin;
-
-	public CameraVisibility(WorldRenderState worldRenderState, ShadowOccluder targetOccluder) {
+	public CameraVisibility(WorldRenderState worldRenderState) {
 		super(worldRenderState, new CameraPotentiallyVisibleRegionSet(), new CameraOccluder());
-		this.targetOccluder = targetOccluder;
 	}
 
 	@Override
@@ -91,8 +83,6 @@ public class CameraVisibility extends AbstractVisbility<CameraVisibility, Camera
 			shouldInvalidateNextPass = true;
 		}
 
-		lastOrigin = origin;
-
 		occluder.prepareRegion(origin);
 	}
 
@@ -105,10 +95,5 @@ public class CameraVisibility extends AbstractVisbility<CameraVisibility, Camera
 	public void occlude(int[] occlusionData) {
 		// Note some occluders may not be drawn if near occluders are disabled.
 		occluder.occlude(occlusionData);
-
-		if (worldRenderState.shadowsEnabled()) {
-			targetOccluder.prepareRegion(lastOrigin);
-			targetOccluder.occludeBox(occlusionData[RegionOcclusionCalculator.OCCLUSION_RESULT_RENDERABLE_BOUNDS_INDEX]);
-		}
 	}
 }
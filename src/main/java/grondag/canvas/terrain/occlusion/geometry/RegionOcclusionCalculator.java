@@ -80,11 +80,18 @@ public abstract class RegionOcclusionCalculator {
 	 */
 	private int visitedFacesMask;
 
-	public void prepare() {
+	/**
+	 * @param isInteriorAir True if all interior positions are known to be air,
+	 * in which case none of them are renderable or closed and there is nothing to capture.
+	 */
+	public void prepare(boolean isInteriorAir) {
 		System.arraycopy(EMPTY_BITS, 0, bits, 0, WORD_COUNT);
 		captureExterior();
 		openCount = INTERIOR_STATE_COUNT;
-		captureInterior();
+
+		if (!isInteriorAir) {
+			captureInterior();
+		}
 	}
 
 	protected abstract BlockState blockStateAtIndex(int regionIndex);
@@ -99,6 +106,16 @@ public abstract class RegionOcclusionCalculator {
 		return (bits[(interiorIndex >> 6) + RENDERABLE_OFFSET] & (1L << (interiorIndex & 63))) != 0;
 	}
 
+	/**
+	 * Renderable flags for 64 consecutive interior positions, starting at
+	 * interior index {@code wordIndex * 64}. Lets callers skip runs of
+	 * positions that need no rendering. Valid for values less than INTERIOR_CACHE_WORDS.
+	 */
+	public long renderableWord(int wordIndex) {
+		assert wordIndex < INTERIOR_CACHE_WORDS;
+		return bits[wordIndex + RENDERABLE_OFFSET];
+	}
+
 	protected void setVisibility(int index, boolean isRenderable, boolean isClosed) {
 		final long mask = (1L << (index & 63));
 		final int baseIndex = index >> 6;
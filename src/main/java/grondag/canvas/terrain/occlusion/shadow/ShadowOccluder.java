@@ -129,10 +129,10 @@ public class ShadowOccluder extends AbstractOccluder {
 	 * Smallest cascade on which a region at given origin can cast a shadow.
 	 * Returns -1 if not within shadow map.
 	 */
-	public int cascade(RegionPosition regionPosition) {
+	public int cascade(float cameraRelativeCenterX, float cameraRelativeCenterY, float cameraRelativeCenterZ) {
 		// Compute center position in light space
 		final Vector4f lightSpaceRegionCenter = new Vector4f();
-		lightSpaceRegionCenter.set(regionPosition.cameraRelativeCenterX(), regionPosition.cameraRelativeCenterY(), regionPosition.cameraRelativeCenterZ(), 1.0f);
+		lightSpaceRegionCenter.set(cameraRelativeCenterX, cameraRelativeCenterY, cameraRelativeCenterZ, 1.0f);
 		lightSpaceRegionCenter.mul(ShadowMatrixData.shadowViewMatrix);
 
 		final float centerX = lightSpaceRegionCenter.x();
@@ -189,6 +189,24 @@ public class ShadowOccluder extends AbstractOccluder {
 		return 0;
 	}
 
+	/**
+	 * False if no region centered within the given distance of the given point can cast
+	 * a shadow, meaning {@link #cascade(float, float, float)} would return -1 for all of them.
+	 * Lets whole columns be skipped. The light view is rigid so distances are preserved.
+	 */
+	public boolean mayContainCasters(float cameraRelativeCenterX, float cameraRelativeCenterY, float cameraRelativeCenterZ, float centerDistance) {
+		final Vector4f lightSpaceCenter = new Vector4f();
+		lightSpaceCenter.set(cameraRelativeCenterX, cameraRelativeCenterY, cameraRelativeCenterZ, 1.0f);
+		lightSpaceCenter.mul(ShadowMatrixData.shadowViewMatrix);
+
+		final float extent = maxRegionExtent + centerDistance;
+		final float dx0 = Math.abs(lightSpaceCenter.x() - x0) - r0;
+		final float dy0 = Math.abs(lightSpaceCenter.y() - y0) - r0;
+		final float dz0 = (lightSpaceCenter.z() - z0) + r0;
+
+		return !(dx0 > extent || dy0 > extent || dz0 < -extent);
+	}
+
 	public float maxRegionExtent() {
 		return maxRegionExtent;
 	}
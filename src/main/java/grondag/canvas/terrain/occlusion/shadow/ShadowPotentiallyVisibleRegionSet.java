@@ -345,11 +345,11 @@ public class ShadowPotentiallyVisibleRegionSet implements PotentiallyVisibleRegi
 		return result;
 	}
 
-	public int distanceRank(ShadowRegionVisibility state) {
-		final BlockPos origin = state.region.origin;
-		final int rx = (origin.getX() >> 4) + xBase;
-		final int rz = (origin.getZ() >> 4) + zBase;
-		final int ry = (origin.getY() + RenderRegionIndexer.Y_BLOCKPOS_OFFSET) >> 4;
+	/** Inputs are chunk coordinates of the region origin. */
+	public int distanceRank(int chunkX, int chunkY, int chunkZ) {
+		final int rx = chunkX + xBase;
+		final int rz = chunkZ + zBase;
+		final int ry = chunkY + (RenderRegionIndexer.Y_BLOCKPOS_OFFSET >> 4);
 		return distanceRankFunction.distanceRank(xDir.apply(rx), yDir.apply(ry), zDir.apply(rz));
 	}
 
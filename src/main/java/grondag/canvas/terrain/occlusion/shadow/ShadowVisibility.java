@@ -39,12 +39,18 @@ public class ShadowVisibility extends AbstractVisbility<ShadowVisibility, Shadow
 		super(worldRenderState, new ShadowPotentiallyVisibleRegionSet(), new ShadowOccluder("canvas_shadow_occlusion_raster.png"));
 	}
 
-	public int cascade(RegionPosition regionPosition) {
-		return occluder.cascade(regionPosition);
+	public int cascade(float cameraRelativeCenterX, float cameraRelativeCenterY, float cameraRelativeCenterZ) {
+		return occluder.cascade(cameraRelativeCenterX, cameraRelativeCenterY, cameraRelativeCenterZ);
 	}
 
-	public int distanceRank(RenderRegion owner) {
-		return pvrs.distanceRank(owner.shadowVisibility);
+	/** See {@link ShadowOccluder#mayContainCasters(float, float, float, float)}. */
+	public boolean mayContainCasters(float cameraRelativeCenterX, float cameraRelativeCenterY, float cameraRelativeCenterZ, float centerDistance) {
+		return occluder.mayContainCasters(cameraRelativeCenterX, cameraRelativeCenterY, cameraRelativeCenterZ, centerDistance);
+	}
+
+	/** Inputs are chunk coordinates of the region origin. */
+	public int distanceRank(int chunkX, int chunkY, int chunkZ) {
+		return pvrs.distanceRank(chunkX, chunkY, chunkZ);
 	}
 
 	@Override
@@ -42,9 +42,19 @@ public class RegionBuildState {
 	final ObjectArrayList<BlockEntity> blockEntities = new ObjectArrayList<>();
 	OcclusionResult occlusionResult = RegionOcclusionCalculator.EMPTY_OCCLUSION_RESULT;
 
+	/**
+	 * Translucent vertex data in the order of the most recent sort.
+	 * Serves as the starting permutation for the next resort.
+	 */
 	@Nullable
 	int[] translucentState;
 
+	/**
+	 * Incremented each time {@link #translucentState} is resorted. Lets the render
+	 * thread confirm that a partial upload applies to the content it currently holds.
+	 */
+	int translucentVersion;
+
 	public List<BlockEntity> getBlockEntities() {
 		return blockEntities;
 	}
@@ -21,87 +21,30 @@
 package grondag.canvas.terrain.region;
 
 import net.minecraft.core.BlockPos;
-import net.minecraft.world.phys.Vec3;
 
 import grondag.bitraster.PackedBox;
 import grondag.canvas.pipeline.Pipeline;
-import grondag.canvas.render.frustum.TerrainFrustum.RegionVisibilityTest;
-import grondag.canvas.render.terrain.drawlist.DrawListCullingHelper;
-import grondag.canvas.render.world.WorldRenderState;
-import grondag.canvas.terrain.occlusion.TerrainIterator;
-import grondag.canvas.terrain.occlusion.camera.CameraVisibility;
 
 public class RegionPosition extends BlockPos {
 	/** Region that holds this position as its origin. Provides access to world render state. */
 	private final RenderRegion owner;
-	private final WorldRenderState worldRenderState;
-	private final TerrainIterator terrainIterator;
-	private final DrawListCullingHelper cullingHelper;
-	private final RegionVisibilityTest cameraFrustumTest;
 
-	private final long packed;
-
-	/**
-	 * The y coordinate of this position in chunks (16 blocks each), relative to world Y = 0. (Can be negative.)
-	 * Sole purpose is to make camera chunk distance computation slightly faster.
-	 */
-	private final int chunkY;
-
-	private long cameraRegionOrigin = -1;
-
-	/** Tracks the version of the camera occluder view transform to know when we must recompute dependent values. */
-	private int cameraFrustumViewVersion = -1;
-
-	/**
-	 * Tracks the version of the camera occluder position to know when we must recompute dependent values.
-	 * The occlusion position is much more sensitive and changes more frequently than {@link #chunkDistVersion}.
-	 *
-	 * <p>Position cannot change without view also changing, so there is no need to check this unless
-	 * {@link #cameraFrustumViewVersion} has changed.
-	 */
-	private int cameraFrustumPositionVersion = -1;
-
-	/** See {@link #occlusionRange()}. */
-	private int occlusionRange;
-
-	/** See {@link #squaredCameraChunkDistance()}. */
-	private int squaredCameraChunkDistance;
+	/** Holds position and visibility values for all regions. */
+	private final RegionPositionTable table;
 
-	/** See {@link #isNear()}. */
-	private boolean isNear;
+	/** Index of this region in {@link #table}. */
+	private final int slot;
 
-	/** See {@link #fuzz()}. */
-	private int fuzz;
-
-	/** See {@link #isInsideRenderDistance()}. */
-	private boolean isInsideRenderDistance;
-
-	/** Used by frustum tests. Will be current only if region is within render distance. */
-	private float cameraRelativeCenterX;
-	private float cameraRelativeCenterY;
-	private float cameraRelativeCenterZ;
-
-	private boolean isPotentiallyVisibleFromCamera;
+	private final long packed;
 
 	/** See {@link #checkAndUpdateSortNeeded(int)}. */
 	private int sortPositionVersion = -1;
 
-	/** The smallest cascade on which this region can potentially cast a shadow. */
-	private int shadowCascade;
-
-	private int shadowDistanceRank;
-
-	private int visibleFaceFlags;
-
 	public RegionPosition(long packedPos, RenderRegion owner) {
 		super(getX(packedPos), getY(packedPos), getZ(packedPos));
 		this.owner = owner;
-		worldRenderState = owner.worldRenderState;
-		terrainIterator = worldRenderState.terrainIterator;
-		cullingHelper = worldRenderState.drawListCullingHlper;
-		cameraFrustumTest = worldRenderState.terrainFrustum.visibilityTest;
-
-		chunkY = getY() >> 4;
+		table = owner.storage.positionTable;
+		slot = RenderRegionIndexer.regionSlot(getX(), getY(), getZ());
 		packed = packedPos;
 	}
 
@@ -110,93 +53,33 @@ public class RegionPosition extends BlockPos {
 		return packed;
 	}
 
+	/**
+	 * Marks this region loaded in the position table and computes all values.
+	 * After this, values are refreshed by table sweeps.
+	 */
 	public void update() {
-		computeRegionDependentValues();
-		computeViewDependentValues();
-
-		if (owner.worldRenderState.shadowsEnabled()) {
-			if (isInsideRenderDistance) {
-				// PERF: pointer chase hell
-				shadowCascade = terrainIterator.shadowVisibility.cascade(this);
-				shadowDistanceRank = shadowCascade == -1 ? -1 : terrainIterator.shadowVisibility.distanceRank(owner);
-			} else {
-				shadowCascade = -1;
-				shadowDistanceRank = -1;
-			}
-		} else {
-			shadowCascade = -1;
-		}
-	}
-
-	private void computeRegionDependentValues() {
-		final long cameraRegionOrigin = terrainIterator.cameraRegionOrigin();
-
-		if (this.cameraRegionOrigin != cameraRegionOrigin) {
-			this.cameraRegionOrigin = cameraRegionOrigin;
-			final int cy = (BlockPos.getY(cameraRegionOrigin) >> 4) - chunkY;
-			squaredCameraChunkDistance = owner.renderChunk.horizontalSquaredDistance + cy * cy;
-			isInsideRenderDistance = squaredCameraChunkDistance <= worldRenderState.maxSquaredChunkRenderDistance();
-			isNear = squaredCameraChunkDistance <= 3;
-			// Based on trial-and-error
-			fuzz = squaredCameraChunkDistance >= 7 * 7 ? 1 : 0;
-			occlusionRange = PackedBox.rangeFromSquareChunkDist(squaredCameraChunkDistance);
-		}
-	}
-
-	private void computeViewDependentValues() {
-		final CameraVisibility cameraPVS = terrainIterator.cameraVisibility;
-		final int frustumViewVersion = cameraPVS.frustumViewVersion();
-
-		if (cameraFrustumViewVersion != frustumViewVersion) {
-			cameraFrustumViewVersion = frustumViewVersion;
-			visibleFaceFlags = cullingHelper.computeVisibleFaceFlags(packed);
-
-			final int frustumPositionVersion = cameraPVS.frustumPositionVersion();
-
-			// These checks depend on the camera occluder position version,
-			// which may not necessarily change when view version change.
-			if (cameraFrustumPositionVersion != frustumPositionVersion) {
-				cameraFrustumPositionVersion = frustumPositionVersion;
-
-				// These are needed by frustum tests, which happen below, after this update.
-				// not needed at all if outside of render distance
-				if (isInsideRenderDistance) {
-					final Vec3 cameraPos = cameraPVS.frustumCameraPos();
-					cameraRelativeCenterX = (float) (getX() + 8 - cameraPos.x);
-					cameraRelativeCenterY = (float) (getY() + 8 - cameraPos.y);
-					cameraRelativeCenterZ = (float) (getZ() + 8 - cameraPos.z);
-				}
-			}
-
-			//  PERF: implement hierarchical tests with propagation of per-plane inside test results
-			isPotentiallyVisibleFromCamera = isInsideRenderDistance && cameraFrustumTest.isVisible(this);
-		}
+		table.load(slot, packed, owner.renderChunk.horizontalSquaredDistance);
 	}
 
 	/** Flag 6 (unassigned) will always be set. */
 	public int visibleFaceFlags() {
-		return visibleFaceFlags;
+		return table.visibleFaceFlags[slot];
 	}
 
 	/** Flag 6 (unassigned) will always be set. */
 	public int shadowVisibleFaceFlags() {
-		return cullingHelper.shadowVisibleFaceFlags();
+		return owner.worldRenderState.drawListCullingHlper.shadowVisibleFaceFlags();
 	}
 
 	public void close() {
-		isInsideRenderDistance = false;
-		isNear = false;
-		cameraFrustumPositionVersion = -1;
-		cameraFrustumViewVersion = -1;
-		cameraRegionOrigin = -1;
-		isPotentiallyVisibleFromCamera = false;
+		table.unload(slot);
 	}
 
 	/**
 	 * Square of distance of this region from the camera region measured in chunks. (16, blocks each.)
 	 */
 	public int squaredCameraChunkDistance() {
-		return squaredCameraChunkDistance;
+		return table.squaredCameraChunkDistance[slot];
 	}
 
 	/**
@@ -207,7 +90,7 @@ public class RegionPosition extends BlockPos {
 	 * <p>This logic is in {@link #updateCameraDistanceAndVisibilityInfo(TerrainVisibilityState)}.
 	 */
 	public boolean isNear() {
-		return isNear;
+		return (table.flags[slot] & RegionPositionTable.FLAG_NEAR) != 0;
 	}
 
 	/**
@@ -215,26 +98,22 @@ public class RegionPosition extends BlockPos {
 	 * Does not mean region is visible or within the view frustum.
 	 */
 	public boolean isInsideRenderDistance() {
-		return isInsideRenderDistance;
+		return (table.flags[slot] & RegionPositionTable.FLAG_INSIDE_RENDER_DISTANCE) != 0;
 	}
 
 	/**
 	 * True when region is within render distance and also within the camera frustum.
-	 *
-	 * <p>NB: tried a crude hierarchical scheme of checking chunk columns first
-	 * but didn't pay off.  Would probably  need to propagate per-plane results
-	 * over a more efficient region but that might not even help. Is already
-	 * quite fast and typically only one or a few regions per chunk must be tested.
+	 * Computed hierarchically by {@link RegionPositionTable}.
 	 */
 	public boolean isPotentiallyVisibleFromCamera() {
-		return isPotentiallyVisibleFromCamera;
+		return (table.flags[slot] & RegionPositionTable.FLAG_CAMERA_VISIBLE) != 0;
 	}
 
 	/**
 	 * Called for camera region because frustum checks on near plane appear to be a little wobbly.
 	 */
 	public void forceCameraPotentialVisibility() {
-		isPotentiallyVisibleFromCamera = true;
+		table.flags[slot] |= RegionPositionTable.FLAG_CAMERA_VISIBLE;
 	}
 
 	/**
@@ -242,7 +121,7 @@ public class RegionPosition extends BlockPos {
 	 * based on distance from the camera. Used by the occluder to select level of detail used.
 	 */
 	public int occlusionRange() {
-		return occlusionRange;
+		return PackedBox.rangeFromSquareChunkDist(squaredCameraChunkDistance());
 	}
 
 	/**
@@ -251,19 +130,8 @@ public class RegionPosition extends BlockPos {
 	 * @return Blocks of padding region should have for visibility testing in perspective.
 	 */
 	public int fuzz() {
-		return fuzz;
-	}
-
-	public float cameraRelativeCenterX() {
-		return cameraRelativeCenterX;
-	}
-
-	public float cameraRelativeCenterY() {
-		return cameraRelativeCenterY;
-	}
-
-	public float cameraRelativeCenterZ() {
-		return cameraRelativeCenterZ;
+		// Based on trial-and-error
+		return squaredCameraChunkDistance() >= 7 * 7 ? 1 : 0;
 	}
 
 	/**
@@ -284,21 +152,28 @@ public class RegionPosition extends BlockPos {
 		}
 	}
 
+	/**
+	 * Causes the next call to {@link #checkAndUpdateSortNeeded(int)} to return true.
+	 */
+	public void forceSortNeeded() {
+		sortPositionVersion = -1;
+	}
+
 	/** For debugging. */
 	public boolean sharesOriginWith(int blockX, int blockY, int blockZ) {
 		return getX() >> 4 == blockX >> 4 && getY() >> 4 == blockY >> 4 && getZ() >> 4 == blockZ >> 4;
 	}
 
 	public int shadowCascade() {
-		return shadowCascade;
+		return table.shadowCascade[slot];
 	}
 
 	public int shadowDistanceRank() {
-		return shadowDistanceRank;
+		return table.shadowDistanceRank[slot];
 	}
 
 	public boolean isPotentiallyVisibleFromSkylight() {
-		return owner.origin.isInsideRenderDistance() & shadowCascade != -1;
+		return isInsideRenderDistance() & shadowCascade() != -1;
 	}
 
 	/**
@@ -319,11 +194,12 @@ public class RegionPosition extends BlockPos {
 	 */
 	public boolean isFrontFacing(int entryFaceFlags, int fromSquaredDistance) {
 		assert !Pipeline.advancedTerrainCulling();
-		return (squaredCameraChunkDistance >= fromSquaredDistance && (visibleFaceFlags & entryFaceFlags) != 0) || isNear;
+		return (squaredCameraChunkDistance() >= fromSquaredDistance && (visibleFaceFlags() & entryFaceFlags) != 0) || isNear();
 	}
 
 	public boolean isFrontFacing(int fromSquaredDistance) {
 		assert Pipeline.advancedTerrainCulling();
-		return isPotentiallyVisibleFromCamera && squaredCameraChunkDistance >= fromSquaredDistance || isNear;
+		final int f = table.flags[slot];
+		return (f & RegionPositionTable.FLAG_CAMERA_VISIBLE) != 0 && squaredCameraChunkDistance() >= fromSquaredDistance || (f & RegionPositionTable.FLAG_NEAR) != 0;
 	}
 }
@@ -0,0 +1,314 @@
+/*
+ * This file is part of Canvas Renderer and is licensed to the project under
+ * terms that are compatible with the GNU Lesser General Public License.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership and licensing.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package grondag.canvas.terrain.region;
+
+import java.util.stream.IntStream;
+
+import net.minecraft.core.BlockPos;
+import net.minecraft.world.phys.Vec3;
+
+import grondag.canvas.render.frustum.TerrainFrustum;
+import grondag.canvas.render.terrain.drawlist.DrawListCullingHelper;
+import grondag.canvas.render.world.WorldRenderState;
+import grondag.canvas.terrain.occlusion.TerrainIterator;
+import grondag.canvas.terrain.occlusion.camera.CameraVisibility;
+import grondag.canvas.terrain.occlusion.shadow.ShadowVisibility;
+
+/**
+ * Position and visibility values for all loaded regions, held in primitive arrays
+ * indexed by {@link RenderRegionIndexer#regionSlot(int, int, int)}. Slots for a chunk
+ * column are contiguous so each column is updated with a short linear pass that
+ * doesn't touch region objects.
+ *
+ * <p>Values are refreshed in stages, each only when its inputs change: camera region for
+ * distances, occluder view for face flags and frustum visibility. Shadow cascades are
+ * refreshed on every sweep when shadows are enabled because the light moves continuously.
+ *
+ * <p>Frustum culling is hierarchical. Columns are swept in tiles matching the horizontal
+ * footprint of terrain sectors. Each tile and then each column is tested as a box and passes
+ * down only the planes it isn't fully inside. A box fully outside any plane rejects everything
+ * in it without further tests. Columns that can't contain shadow casters skip cascade tests.
+ */
+public final class RegionPositionTable {
+	static final int FLAG_LOADED = 1;
+	static final int FLAG_INSIDE_RENDER_DISTANCE = 2;
+	static final int FLAG_NEAR = 4;
+	static final int FLAG_CAMERA_VISIBLE = 8;
+
+	/** Chunk columns per side of a sweep tile. 128 blocks, same as terrain sectors. */
+	private static final int TILE_COLUMNS = 8;
+	private static final int TILES_PER_AXIS = RenderRegionIndexer.PADDED_CHUNK_DIAMETER / TILE_COLUMNS;
+	private static final int TILE_COUNT = TILES_PER_AXIS * TILES_PER_AXIS;
+
+	/** Sweeps over more loaded regions than this are split across the common pool. */
+	private static final int PARALLEL_REGION_THRESHOLD = 8192;
+	private static final int PARALLEL_BATCH_COUNT = 64;
+	private static final int TILES_PER_BATCH = TILE_COUNT / PARALLEL_BATCH_COUNT;
+
+	/** Slot offset of the region at chunk Y = 0 within a column. */
+	private static final int Y_SLOT_OFFSET = RenderRegionIndexer.Y_BLOCKPOS_OFFSET >> 4;
+
+	private final WorldRenderState worldRenderState;
+
+	final byte[] flags = new byte[RenderRegionIndexer.PADDED_REGION_INDEX_COUNT];
+	final int[] squaredCameraChunkDistance = new int[RenderRegionIndexer.PADDED_REGION_INDEX_COUNT];
+	final byte[] visibleFaceFlags = new byte[RenderRegionIndexer.PADDED_REGION_INDEX_COUNT];
+	final byte[] shadowCascade = new byte[RenderRegionIndexer.PADDED_REGION_INDEX_COUNT];
+	final int[] shadowDistanceRank = new int[RenderRegionIndexer.PADDED_REGION_INDEX_COUNT];
+
+	private long lastCameraRegionOrigin = -1;
+	private int lastFrustumViewVersion = -1;
+	private int lastFrustumPositionVersion = -1;
+
+	/** Inputs for the current sweep. Separate from {@link #loadInputs} because regions can load during a sweep. */
+	private final Inputs sweepInputs = new Inputs();
+	private final Inputs loadInputs = new Inputs();
+	private boolean distanceChanged;
+	private boolean viewChanged;
+
+	/** Incremented by any sweep that changed camera distances or frustum visibility. */
+	private int priorityVersion;
+
+	RegionPositionTable(WorldRenderState worldRenderState) {
+		this.worldRenderState = worldRenderState;
+	}
+
+	/**
+	 * Updates all loaded slots. Columns are independent so large sweeps
+	 * run in parallel.  Chunk-level work (distance and retention) is done by
+	 * each chunk under its own lock before its slots are updated.
+	 */
+	void sweep(RenderChunk[] chunks, int loadedRegionCount) {
+		final TerrainIterator terrainIterator = worldRenderState.terrainIterator;
+		final CameraVisibility cameraPVS = terrainIterator.cameraVisibility;
+		final long cameraRegionOrigin = terrainIterator.cameraRegionOrigin();
+		final int frustumViewVersion = cameraPVS.frustumViewVersion();
+		final int frustumPositionVersion = cameraPVS.frustumPositionVersion();
+
+		sweepInputs.capture(worldRenderState);
+		distanceChanged = cameraRegionOrigin != lastCameraRegionOrigin;
+		// Position cannot change without view also changing
+		viewChanged = frustumViewVersion != lastFrustumViewVersion;
+		assert viewChanged || frustumPositionVersion == lastFrustumPositionVersion;
+
+		if (loadedRegionCount > PARALLEL_REGION_THRESHOLD) {
+			IntStream.range(0, PARALLEL_BATCH_COUNT).parallel().forEach(b -> {
+				final int limit = (b + 1) * TILES_PER_BATCH;
+
+				for (int t = b * TILES_PER_BATCH; t < limit; ++t) {
+					sweepTile(chunks, t);
+				}
+			});
+		} else {
+			for (int t = 0; t < TILE_COUNT; ++t) {
+				sweepTile(chunks, t);
+			}
+		}
+
+		if (distanceChanged || viewChanged) {
+			++priorityVersion;
+		}
+
+		lastCameraRegionOrigin = cameraRegionOrigin;
+		lastFrustumViewVersion = frustumViewVersion;
+		lastFrustumPositionVersion = frustumPositionVersion;
+	}
+
+	int priorityVersion() {
+		return priorityVersion;
+	}
+
+	/**
+	 * Chunk indices wrap every 128 chunks, a multiple of the tile size, and the loaded
+	 * diameter is less than that, so loaded chunks in a tile are spatially contiguous.
+	 */
+	private void sweepTile(RenderChunk[] chunks, int tile) {
+		final int baseX = (tile % TILES_PER_AXIS) * TILE_COLUMNS;
+		final int baseZ = (tile / TILES_PER_AXIS) * TILE_COLUMNS;
+		final int planeMask = viewChanged ? classifyTile(chunks, baseX, baseZ) : TerrainFrustum.ALL_PLANES;
+
+		for (int z = 0; z < TILE_COLUMNS; ++z) {
+			for (int x = 0; x < TILE_COLUMNS; ++x) {
+				chunks[(baseX + x) | ((baseZ + z) << RenderRegionIndexer.CHUNK_DIAMETER_BITS)].updatePositionAndVisibility(planeMask);
+			}
+		}
+	}
+
+	private int classifyTile(RenderChunk[] chunks, int baseX, int baseZ) {
+		for (int z = 0; z < TILE_COLUMNS; ++z) {
+			for (int x = 0; x < TILE_COLUMNS; ++x) {
+				final RenderChunk chunk = chunks[(baseX + x) | ((baseZ + z) << RenderRegionIndexer.CHUNK_DIAMETER_BITS)];
+
+				if (chunk.isOpen()) {
+					// Any loaded chunk gives us the world position of the tile
+					final Inputs in = sweepInputs;
+					final int originX = (chunk.chunkX() & -TILE_COLUMNS) << 4;
+					final int originZ = (chunk.chunkZ() & -TILE_COLUMNS) << 4;
+					final float half = TILE_COLUMNS * 8;
+					final float halfY = (in.maxBlockY - in.minBlockY) * 0.5f;
+
+					return in.cameraFrustum.classifyBox(
+						(float) (originX + half - in.cameraX),
+						(float) (in.minBlockY + halfY - in.cameraY),
+						(float) (originZ + half - in.cameraZ),
+						half, halfY, half, TerrainFrustum.ALL_PLANES);
+				}
+			}
+		}
+
+		return TerrainFrustum.ALL_PLANES;
+	}
+
+	/**
+	 * Called by the owning chunk with its lock held.
+	 *
+	 * @param planeMask frustum planes the containing tile isn't fully inside, or {@link TerrainFrustum#OUTSIDE}
+	 */
+	void updateColumn(int chunkX, int chunkZ, int horizontalSquaredDistance, int planeMask) {
+		final int base = RenderRegionIndexer.regionSlot(chunkX << 4, -RenderRegionIndexer.Y_BLOCKPOS_OFFSET, chunkZ << 4);
+		int minIndex = -1;
+		int maxIndex = -1;
+
+		for (int i = 0; i < RenderRegionIndexer.MAX_Y_REGIONS; ++i) {
+			if ((flags[base + i] & FLAG_LOADED) != 0) {
+				if (minIndex == -1) minIndex = i;
+				maxIndex = i;
+			}
+		}
+
+		if (minIndex == -1) {
+			return;
+		}
+
+		final Inputs in = sweepInputs;
+		final boolean distanceChanged = this.distanceChanged;
+		final boolean viewChanged = this.viewChanged;
+
+		// Bounds of loaded regions in the column
+		final float halfY = (maxIndex - minIndex + 1) * 8;
+		final float cx = (float) ((chunkX << 4) + 8 - in.cameraX);
+		final float cy = (float) (((minIndex - Y_SLOT_OFFSET) << 4) + halfY - in.cameraY);
+		final float cz = (float) ((chunkZ << 4) + 8 - in.cameraZ);
+
+		if (viewChanged && planeMask != TerrainFrustum.OUTSIDE) {
+			planeMask = in.cameraFrustum.classifyBox(cx, cy, cz, 8, halfY, 8, planeMask);
+		}
+
+		// Region centers are at most this far from the column center
+		final boolean mayContainCasters = in.shadowsEnabled && in.shadowVisibility.mayContainCasters(cx, cy, cz, halfY - 8);
+
+		for (int i = minIndex; i <= maxIndex; ++i) {
+			final int slot = base + i;
+
+			if ((flags[slot] & FLAG_LOADED) != 0) {
+				updateSlot(in, slot, chunkX, i - Y_SLOT_OFFSET, chunkZ, horizontalSquaredDistance, distanceChanged, viewChanged, planeMask, mayContainCasters);
+			}
+		}
+	}
+
+	/**
+	 * Marks the slot loaded and computes all values using current inputs.
+	 * Called by the owning chunk with its lock held.
+	 */
+	synchronized void load(int slot, long packedOrigin, int horizontalSquaredDistance) {
+		loadInputs.capture(worldRenderState);
+		flags[slot] = FLAG_LOADED;
+		updateSlot(loadInputs, slot, BlockPos.getX(packedOrigin) >> 4, BlockPos.getY(packedOrigin) >> 4, BlockPos.getZ(packedOrigin) >> 4, horizontalSquaredDistance, true, true, TerrainFrustum.ALL_PLANES, true);
+	}
+
+	void unload(int slot) {
+		flags[slot] = 0;
+	}
+
+	private void updateSlot(Inputs in, int slot, int chunkX, int chunkY, int chunkZ, int horizontalSquaredDistance, boolean distanceChanged, boolean viewChanged, int planeMask, boolean mayContainCasters) {
+		int f = flags[slot];
+
+		if (distanceChanged) {
+			final int dy = in.cameraChunkY - chunkY;
+			final int dist = horizontalSquaredDistance + dy * dy;
+			squaredCameraChunkDistance[slot] = dist;
+			f &= ~(FLAG_INSIDE_RENDER_DISTANCE | FLAG_NEAR);
+			if (dist <= in.maxSquaredChunkRenderDistance) f |= FLAG_INSIDE_RENDER_DISTANCE;
+			if (dist <= 3) f |= FLAG_NEAR;
+		}
+
+		final boolean inside = (f & FLAG_INSIDE_RENDER_DISTANCE) != 0;
+
+		// Only needed by frustum and shadow tests, which don't apply outside render distance
+		final float cx = (float) ((chunkX << 4) + 8 - in.cameraX);
+		final float cy = (float) ((chunkY << 4) + 8 - in.cameraY);
+		final float cz = (float) ((chunkZ << 4) + 8 - in.cameraZ);
+
+		if (viewChanged) {
+			visibleFaceFlags[slot] = (byte) in.cullingHelper.computeVisibleFaceFlags(chunkX, chunkY, chunkZ);
+
+			if (inside && planeMask != TerrainFrustum.OUTSIDE && in.cameraFrustum.isRegionVisible(cx, cy, cz, planeMask)) {
+				f |= FLAG_CAMERA_VISIBLE;
+			} else {
+				f &= ~FLAG_CAMERA_VISIBLE;
+			}
+		}
+
+		flags[slot] = (byte) f;
+
+		if (in.shadowsEnabled) {
+			if (inside && mayContainCasters) {
+				final int cascade = in.shadowVisibility.cascade(cx, cy, cz);
+				shadowCascade[slot] = (byte) cascade;
+				shadowDistanceRank[slot] = cascade == -1 ? -1 : in.shadowVisibility.distanceRank(chunkX, chunkY, chunkZ);
+			} else {
+				shadowCascade[slot] = -1;
+				shadowDistanceRank[slot] = -1;
+			}
+		} else {
+			shadowCascade[slot] = -1;
+		}
+	}
+
+	private static class Inputs {
+		private boolean shadowsEnabled;
+		private int cameraChunkY;
+		private int maxSquaredChunkRenderDistance;
+		private double cameraX;
+		private double cameraY;
+		private double cameraZ;
+		private int minBlockY;
+		private int maxBlockY;
+		private TerrainFrustum cameraFrustum;
+		private DrawListCullingHelper cullingHelper;
+		private ShadowVisibility shadowVisibility;
+
+		private void capture(WorldRenderState worldRenderState) {
+			final TerrainIterator terrainIterator = worldRenderState.terrainIterator;
+			final Vec3 cameraPos = terrainIterator.cameraVisibility.frustumCameraPos();
+			shadowsEnabled = worldRenderState.shadowsEnabled();
+			cameraChunkY = BlockPos.getY(terrainIterator.cameraRegionOrigin()) >> 4;
+			maxSquaredChunkRenderDistance = worldRenderState.maxSquaredChunkRenderDistance();
+			cameraX = cameraPos.x;
+			cameraY = cameraPos.y;
+			cameraZ = cameraPos.z;
+			minBlockY = worldRenderState.getWorld().getMinBuildHeight();
+			maxBlockY = worldRenderState.getWorld().getMaxBuildHeight();
+			cameraFrustum = worldRenderState.terrainFrustum;
+			cullingHelper = worldRenderState.drawListCullingHlper;
+			shadowVisibility = terrainIterator.shadowVisibility;
+		}
+	}
+}
@@ -20,10 +20,9 @@
 
 package grondag.canvas.terrain.region;
 
-import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
 
-import com.google.common.collect.Sets;
 import it.unimi.dsi.fastutil.objects.ObjectOpenHashSet;
 
 import net.minecraft.Util;
@@ -31,14 +30,38 @@ import net.minecraft.Util;
 import io.vram.frex.api.config.FlawlessFrames;
 import io.vram.sc.unordered.SimpleUnorderedArrayList;
 
+import grondag.canvas.config.Configurator;
+import grondag.canvas.render.world.WorldRenderState;
+
 /**
  * Tracks what regions require rebuilding and rebuilds them on demand.
  *
  * <p>Handles regions for both camera and shadow views.  "Near" regions
  * are exclusively a camera-view concept.
+ *
+ * <p>Scheduled regions are processed in priority order, see {@link RegionRebuildQueue}.
+ * Processing stops when the next region is predicted to overrun the deadline, using
+ * smoothed costs of recent off-thread captures and main-thread rebuilds.
  */
 public class RegionRebuildManager {
-	private final Set<RenderRegion> regionsToRebuild = Sets.newLinkedHashSet();
+	/** Weight of each new sample in the cost estimates is 1 / 2^COST_SMOOTHING_SHIFT. */
+	private static final int COST_SMOOTHING_SHIFT = 3;
+
+	private static final int[] DEPTH_BUCKET_LIMITS = {1, 5, 17};
+	private static final long[] AGE_LIMITS = {1000000000L, 5000000000L};
+
+	private final WorldRenderState worldRenderState;
+	private final RegionRebuildQueue regionsToRebuild = new RegionRebuildQueue();
+	private int lastPriorityVersion = -1;
+
+	/** Smoothed nanoseconds to capture a region and hand it to the terrain executor. */
+	private long captureCostEstimate = 50000;
+
+	/** Smoothed nanoseconds to rebuild a region on the main thread. */
+	private long mainThreadCostEstimate = 1000000;
+
+	private long nextReportTime;
+	private String report = "";
 
 	/**
 	 * Region rebuild requests accumulated on main thread that may impact visibility
@@ -49,6 +72,10 @@ public class RegionRebuildManager {
 	 */
 	private final Set<RenderRegion> externalBuildRequests = new ObjectOpenHashSet<>();
 
+	public RegionRebuildManager(WorldRenderState worldRenderState) {
+		this.worldRenderState = worldRenderState;
+	}
+
 	public void acceptExternalBuildRequest(RenderRegion region) {
 		externalBuildRequests.add(region);
 	}
@@ -59,14 +86,15 @@ public class RegionRebuildManager {
 		}
 
 		final boolean flawless = FlawlessFrames.isActive();
+		final long now = Util.getNanos();
 
 		for (final RenderRegion region : externalBuildRequests) {
 			if (flawless || region.needsRebuild() && !region.isClosed()) {
 				if (region.needsImportantRebuild() || region.origin.isNear()) {
 					regionsToRebuild.remove(region);
-					region.rebuildOnMainThread();
+					region.rebuildUrgently();
 				} else {
-					regionsToRebuild.add(region);
+					regionsToRebuild.add(region, now);
 				}
 			}
 		}
@@ -76,8 +104,8 @@ public class RegionRebuildManager {
 
 	/**
 	 * Iterates the given list of regions and if a region requires an urgent
-	 * rebuild or is near the camera, immediately rebuilds it on the calling
-	 * thread (which should always be the render thread), removing the region
+	 * rebuild or is near the camera, immediately rebuilds it via
+	 * {@link RenderRegion#rebuildUrgently()}, removing the region
 	 * from the set of regions scheduled for rebuild.
 	 *
 	 * <p>Otherwise the region is scheduled for rebuild off thread, unless it
@@ -93,21 +121,23 @@ public class RegionRebuildManager {
 	 */
 	public void scheduleOrBuild(SimpleUnorderedArrayList<RenderRegion> updateRegions) {
 		final int limit = updateRegions.size();
-		final Set<RenderRegion> regionsToRebuild = this.regionsToRebuild;
+		final RegionRebuildQueue regionsToRebuild = this.regionsToRebuild;
 
 		if (limit == 0) {
 			return;
 		}
 
+		final long now = Util.getNanos();
+
 		for (int i = 0; i < limit; ++i) {
 			final RenderRegion region = updateRegions.get(i);
 
 			if (region.needsRebuild()) {
 				if (region.needsImportantRebuild() || region.origin.isNear()) {
 					regionsToRebuild.remove(region);
-					region.rebuildOnMainThread();
+					region.rebuildUrgently();
 				} else {
-					regionsToRebuild.add(region);
+					regionsToRebuild.add(region, now);
 				}
 			}
 		}
@@ -130,56 +160,101 @@ public class RegionRebuildManager {
 	}
 
 	/**
-	 * Iterates regions awaiting rebuild and rebuilds them on the calling
-	 * thread if they are urgent/near.  For non-urgent regions, necessary
-	 * world data are captured on the calling thread and packaged into a
-	 * rebuild task that runs off thread.
+	 * Iterates regions awaiting rebuild in priority order and rebuilds them on the calling
+	 * thread if they are urgent.  For non-urgent regions, necessary world data are captured
+	 * on the calling thread and packaged into a rebuild task that runs off thread.
+	 *
+	 * <p>At least one region is processed per call. After that, processing ends when the
+	 * estimated cost of the next region would take us past the deadline.
 	 *
 	 * <p>Not thread-safe and meant to be called from the main render thread.
 	 *
 	 * @param endNanos The max end time for this task. (NOT the duration.)
-	 * Processing will end when the system nanotime exceeds this value.
 	 */
 	public void processScheduledRegions(long endNanos) {
-		final Set<RenderRegion> regionsToRebuild = this.regionsToRebuild;
+		final RegionRebuildQueue regionsToRebuild = this.regionsToRebuild;
+
+		if (regionsToRebuild.isEmpty()) {
+			return;
+		}
 
-		//final long start = Util.getMeasuringTimeNano();
-		//int builtCount = 0;
+		final int priorityVersion = worldRenderState.renderRegionStorage.priorityVersion();
 
-		if (!regionsToRebuild.isEmpty()) {
-			final Iterator<RenderRegion> iterator = regionsToRebuild.iterator();
-			final boolean flawless = FlawlessFrames.isActive();
+		if (priorityVersion != lastPriorityVersion) {
+			lastPriorityVersion = priorityVersion;
+			regionsToRebuild.reprioritize();
+		}
 
-			while (iterator.hasNext()) {
-				final RenderRegion region = iterator.next();
+		final boolean flawless = FlawlessFrames.isActive();
+		long now = Util.getNanos();
+		boolean didWork = false;
+		int bucket = regionsToRebuild.nextBucket(0);
+
+		while (bucket < RegionRebuildQueue.BUCKET_COUNT) {
+			// Last slot first because removal fills the vacated slot from the end
+			for (int slot = regionsToRebuild.count(bucket) - 1; slot >= 0; --slot) {
+				final RenderRegion region = regionsToRebuild.get(bucket, slot);
 
 				if (region.isClosed()) {
-					iterator.remove();
-				} else if (flawless || region.needsImportantRebuild()) {
+					regionsToRebuild.remove(region);
+					continue;
+				}
+
+				final boolean isUrgent = flawless || region.needsImportantRebuild();
+				final boolean onMainThread = isUrgent && (flawless || !Configurator.urgentRebuildsOffThread);
+
+				if (!onMainThread && !region.renderChunk.areCornersLoaded()) {
+					continue;
+				}
+
+				if (didWork && !flawless && now + (onMainThread ? mainThreadCostEstimate : captureCostEstimate) > endNanos) {
+					return;
+				}
+
+				if (onMainThread) {
 					region.rebuildOnMainThread();
-					iterator.remove();
-				} else if (region.renderChunk.areCornersLoaded()) {
+				} else if (isUrgent) {
+					region.prepareAndExecuteUrgentRebuildTask();
+				} else {
 					region.prepareAndExecuteRebuildTask();
-					iterator.remove();
 				}
 
-				// this seemed excessive
-				//				++builtCount;
-				//
-				//				final long now = Util.getMeasuringTimeNano();
-				//				final long elapsed = now - start;
-				//				final long avg = elapsed / builtCount;
-				//				final long remaining = endNanos - now;
-				//
-				//				if (remaining < avg) {
-				//					break;
-				//				}
-
-				if (!flawless && Util.getNanos() >= endNanos) {
-					break;
+				regionsToRebuild.remove(region);
+				didWork = true;
+
+				final long start = now;
+				now = Util.getNanos();
+
+				if (onMainThread) {
+					mainThreadCostEstimate += (now - start - mainThreadCostEstimate) >> COST_SMOOTHING_SHIFT;
+				} else {
+					captureCostEstimate += (now - start - captureCostEstimate) >> COST_SMOOTHING_SHIFT;
 				}
 			}
+
+			bucket = regionsToRebuild.nextBucket(bucket + 1);
+		}
+	}
+
+	/**
+	 * Queue depth by priority group, time spent in the queue, and current cost
+	 * estimates. Refreshed at most once per second.
+	 */
+	public void debugReport(List<String> target) {
+		final long now = Util.getNanos();
+
+		if (now > nextReportTime) {
+			nextReportTime = now + 1000000000L;
+			final int[] depth = new int[DEPTH_BUCKET_LIMITS.length + 1];
+			final int[] age = new int[AGE_LIMITS.length + 1];
+			regionsToRebuild.histogram(DEPTH_BUCKET_LIMITS, depth, AGE_LIMITS, age, now);
+
+			report = String.format("Rebuild queue: %d urgent: %d near: %d mid: %d far: %d  age <1s: %d <5s: %d older: %d  cost: %dus / %dus",
+					regionsToRebuild.size(), depth[0], depth[1], depth[2], depth[3], age[0], age[1], age[2],
+					captureCostEstimate / 1000, mainThreadCostEstimate / 1000);
 		}
+
+		target.add(report);
 	}
 
 	public void clear() {
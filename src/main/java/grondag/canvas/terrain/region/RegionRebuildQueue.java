@@ -0,0 +1,227 @@
+/*
+ * This file is part of Canvas Renderer and is licensed to the project under
+ * terms that are compatible with the GNU Lesser General Public License.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership and licensing.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package grondag.canvas.terrain.region;
+
+import java.util.Arrays;
+
+/**
+ * Regions awaiting rebuild, held in priority buckets so that urgent, near and
+ * visible regions are taken first.  Each queued region records its own bucket
+ * and slot so adding, removing and moving regions between buckets needs no hashing.
+ *
+ * <p>Bucket zero holds important rebuilds and the remaining buckets are one per
+ * chunk distance ring. Regions outside the camera frustum are pushed back
+ * {@link #HIDDEN_PENALTY} rings. Order within a bucket is not preserved.
+ *
+ * <p>Not thread-safe and meant to be used from the main render thread.
+ */
+class RegionRebuildQueue {
+	static final int BUCKET_COUNT = 64;
+	private static final int MAX_BUCKET = BUCKET_COUNT - 1;
+	private static final int HIDDEN_PENALTY = 16;
+	private static final int INITIAL_BUCKET_CAPACITY = 16;
+
+	private final RenderRegion[][] buckets = new RenderRegion[BUCKET_COUNT][];
+	private final int[] counts = new int[BUCKET_COUNT];
+
+	/** Bit for each non-empty bucket. */
+	private long occupancy;
+	private int size;
+
+	RegionRebuildQueue() {
+		for (int i = 0; i < BUCKET_COUNT; ++i) {
+			buckets[i] = new RenderRegion[INITIAL_BUCKET_CAPACITY];
+		}
+	}
+
+	private static int bucketIndex(RenderRegion region) {
+		if (region.needsImportantRebuild()) {
+			return 0;
+		}
+
+		final RegionPosition origin = region.origin;
+		final int ring = 1 + (int) Math.sqrt(origin.squaredCameraChunkDistance());
+		return Math.min(MAX_BUCKET, origin.isPotentiallyVisibleFromCamera() ? ring : ring + HIDDEN_PENALTY);
+	}
+
+	/**
+	 * Adds the region if not already present.  A region already in
+	 * the queue keeps its age but may move to a different bucket.
+	 */
+	void add(RenderRegion region, long nanos) {
+		if (region.rebuildBucket == -1) {
+			region.rebuildQueuedNanos = nanos;
+			insert(region, bucketIndex(region));
+			++size;
+		} else {
+			final int bucket = bucketIndex(region);
+
+			if (bucket != region.rebuildBucket) {
+				detach(region);
+				insert(region, bucket);
+			}
+		}
+	}
+
+	void remove(RenderRegion region) {
+		if (region.rebuildBucket != -1) {
+			detach(region);
+			region.rebuildBucket = -1;
+			--size;
+		}
+	}
+
+	private void insert(RenderRegion region, int bucket) {
+		RenderRegion[] regions = buckets[bucket];
+		final int slot = counts[bucket];
+
+		if (slot == regions.length) {
+			regions = Arrays.copyOf(regions, slot * 2);
+			buckets[bucket] = regions;
+		}
+
+		regions[slot] = region;
+		region.rebuildBucket = bucket;
+		region.rebuildSlot = slot;
+		counts[bucket] = slot + 1;
+		occupancy |= 1L << bucket;
+	}
+
+	/**
+	 * Fills the vacated slot with the last region in the bucket. Callers iterating a bucket
+	 * while removing must therefore go from the last slot to the first.
+	 */
+	private void detach(RenderRegion region) {
+		final int bucket = region.rebuildBucket;
+		final int slot = region.rebuildSlot;
+		final RenderRegion[] regions = buckets[bucket];
+		final int last = --counts[bucket];
+
+		if (slot != last) {
+			final RenderRegion moved = regions[last];
+			regions[slot] = moved;
+			moved.rebuildSlot = slot;
+		}
+
+		regions[last] = null;
+
+		if (last == 0) {
+			occupancy &= ~(1L << bucket);
+		}
+	}
+
+	/**
+	 * Recomputes the bucket of every queued region.  Needed only when camera
+	 * distance, frustum visibility or urgency of queued regions may have changed.
+	 * Regions moved to a later bucket are visited again there but won't move twice.
+	 */
+	void reprioritize() {
+		for (int bucket = 0; bucket < BUCKET_COUNT; ++bucket) {
+			final RenderRegion[] regions = buckets[bucket];
+
+			for (int slot = counts[bucket] - 1; slot >= 0; --slot) {
+				final RenderRegion region = regions[slot];
+				final int newBucket = bucketIndex(region);
+
+				if (newBucket != bucket) {
+					detach(region);
+					insert(region, newBucket);
+				}
+			}
+		}
+	}
+
+	/**
+	 * First non-empty bucket at or after the given bucket, or {@link #BUCKET_COUNT} if none.
+	 */
+	int nextBucket(int fromBucket) {
+		return fromBucket >= BUCKET_COUNT ? BUCKET_COUNT : Long.numberOfTrailingZeros(occupancy & (-1L << fromBucket));
+	}
+
+	int count(int bucket) {
+		return counts[bucket];
+	}
+
+	RenderRegion get(int bucket, int slot) {
+		return buckets[bucket][slot];
+	}
+
+	int size() {
+		return size;
+	}
+
+	boolean isEmpty() {
+		return size == 0;
+	}
+
+	void clear() {
+		for (int bucket = 0; bucket < BUCKET_COUNT; ++bucket) {
+			final RenderRegion[] regions = buckets[bucket];
+			final int limit = counts[bucket];
+
+			for (int slot = 0; slot < limit; ++slot) {
+				regions[slot].rebuildBucket = -1;
+				regions[slot] = null;
+			}
+
+			counts[bucket] = 0;
+		}
+
+		occupancy = 0;
+		size = 0;
+	}
+
+	/**
+	 * Adds the count of queued regions in each bucket group and each age group to the given arrays.
+	 * Bucket groups end before each value in {@code bucketLimits}, age groups before each value in {@code ageLimits}.
+	 * Both arrays of counts need one more element than the matching limits for the last, unbounded group.
+	 */
+	void histogram(int[] bucketLimits, int[] depthCounts, long[] ageLimits, int[] ageCounts, long nanos) {
+		for (int bucket = 0; bucket < BUCKET_COUNT; ++bucket) {
+			final int limit = counts[bucket];
+
+			if (limit == 0) {
+				continue;
+			}
+
+			int group = 0;
+
+			while (group < bucketLimits.length && bucket >= bucketLimits[group]) {
+				++group;
+			}
+
+			depthCounts[group] += limit;
+
+			final RenderRegion[] regions = buckets[bucket];
+
+			for (int slot = 0; slot < limit; ++slot) {
+				final long age = nanos - regions[slot].rebuildQueuedNanos;
+				int ageGroup = 0;
+
+				while (ageGroup < ageLimits.length && age >= ageLimits[ageGroup]) {
+					++ageGroup;
+				}
+
+				++ageCounts[ageGroup];
+			}
+		}
+	}
+}
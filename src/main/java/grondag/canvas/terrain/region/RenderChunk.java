@@ -82,19 +82,28 @@ public class RenderChunk {
 		return result;
 	}
 
-	synchronized void updatePositionAndVisibility() {
+	boolean isOpen() {
+		return regions != null;
+	}
+
+	int chunkX() {
+		return chunkX;
+	}
+
+	int chunkZ() {
+		return chunkZ;
+	}
+
+	/**
+	 * @param planeMask frustum planes still to be tested, or {@link grondag.canvas.render.frustum.TerrainFrustum#OUTSIDE}
+	 */
+	synchronized void updatePositionAndVisibility(int planeMask) {
 		computeChunkDistanceMetrics();
 
 		final RenderRegion[] regions = this.regions;
 
 		if (regions != null) {
-			for (int i = 0; i < RenderRegionIndexer.MAX_Y_REGIONS; ++i) {
-				final RenderRegion r = regions[i];
-
-				if (r != null) {
-					r.origin.update();
-				}
-			}
+			worldRenderState.renderRegionStorage.positionTable.updateColumn(chunkX, chunkZ, horizontalSquaredDistance, planeMask);
 
 			if (horizontalSquaredDistance > worldRenderState.maxSquaredChunkRetentionDistance()) {
 				worldRenderState.renderRegionStorage.scheduleClose(this);
@@ -45,18 +45,22 @@ import net.minecraft.world.level.block.state.BlockState;
 import net.minecraft.world.level.material.FluidState;
 import net.minecraft.world.phys.Vec3;
 
+import io.vram.frex.api.config.FlawlessFrames;
 import io.vram.frex.api.math.MatrixStack;
 import io.vram.frex.api.model.fluid.FluidModel;
 
 import grondag.canvas.apiimpl.rendercontext.CanvasTerrainRenderContext;
 import grondag.canvas.buffer.input.DrawableVertexCollector;
 import grondag.canvas.buffer.input.VertexCollectorList;
+import grondag.canvas.config.Configurator;
 import grondag.canvas.material.state.TerrainRenderStates;
 import grondag.canvas.perf.ChunkRebuildCounters;
 import grondag.canvas.pipeline.Pipeline;
 import grondag.canvas.render.terrain.TerrainSectorMap.RegionRenderSector;
 import grondag.canvas.render.terrain.base.DrawableRegion;
 import grondag.canvas.render.terrain.base.UploadableRegion;
+import grondag.canvas.render.terrain.base.UploadableRegionPatch;
+import grondag.canvas.render.terrain.cluster.ClusteredDrawableRegion;
 import grondag.canvas.render.world.WorldRenderState;
 import grondag.canvas.terrain.occlusion.camera.CameraRegionVisibility;
 import grondag.canvas.terrain.occlusion.geometry.RegionOcclusionCalculator;
@@ -109,10 +113,29 @@ public class RenderRegion implements TerrainExecutorTask {
 	private boolean needsImportantRebuild;
 	private DrawableRegion translucentDrawable = DrawableRegion.EMPTY_DRAWABLE;
 	private DrawableRegion solidDrawable = DrawableRegion.EMPTY_DRAWABLE;
+
+	/**
+	 * Build state and sort version of the translucent data held by {@link #translucentDrawable}.
+	 * Used only on render thread to decide if a partial resort upload can be applied.
+	 */
+	private RegionBuildState uploadedTranslucentState = null;
+	private int uploadedTranslucentVersion;
+
+	/**
+	 * Set when a partial resort upload could not be applied, meaning the next
+	 * resort must replace the complete translucent drawable.
+	 */
+	private volatile boolean needsFullTranslucentUpload = false;
+
 	public final BitSet animationBits = new BitSet();
 
 	private boolean isClosed = false;
 
+	/** Owned by {@link RegionRebuildQueue}. Bucket holding this region, or -1 if not queued. */
+	int rebuildBucket = -1;
+	int rebuildSlot;
+	long rebuildQueuedNanos;
+
 	public RenderRegion(RenderChunk chunk, long packedPos) {
 		worldRenderState = chunk.worldRenderState;
 		renderRegionBuilder = worldRenderState.regionBuilder();
@@ -175,6 +198,15 @@ public class RenderRegion implements TerrainExecutorTask {
 
 		translucentDrawable.releaseFromRegion();
 		translucentDrawable = DrawableRegion.EMPTY_DRAWABLE;
+		uploadedTranslucentState = null;
+	}
+
+	/**
+	 * Call on render thread after translucent drawable is replaced.
+	 */
+	private void setUploadedTranslucentState(RegionBuildState state, int version) {
+		uploadedTranslucentState = state;
+		uploadedTranslucentVersion = version;
 	}
 
 	public void markForBuild(boolean isImportant) {
@@ -200,18 +232,63 @@ public class RenderRegion implements TerrainExecutorTask {
 	}
 
 	public void prepareAndExecuteRebuildTask() {
+		prepareAndExecuteRebuildTask(false);
+	}
+
+	private void prepareAndExecuteRebuildTask(boolean isUrgent) {
 		final PackedInputRegion region = PackedInputRegion.claim(worldRenderState.getWorld(), origin);
 
+		// Signals are shared instances and never upload, so only real input can be urgent
+		if (isUrgent && !(region instanceof SignalInputRegion)) {
+			region.isUrgent = true;
+			region.urgentGeneration = renderRegionBuilder.beginUrgentBuild();
+		}
+
+		final PackedInputRegion priorRegion = inputState.getAndSet(region);
+
+		// Replaced input will never be built
+		if (priorRegion.isUrgent) {
+			renderRegionBuilder.completeUrgentBuild(priorRegion.urgentGeneration);
+		}
+
 		// Idle region is signal to reschedule
 		// If region is something other than idle, we are already in the queue
 		// and we only need to update the input protoRegion (which we do here.)
-		if (inputState.getAndSet(region) == SignalInputRegion.IDLE) {
+		// Queued tasks keep the priority they were pushed with, so a task that
+		// just became urgent is pushed again to run ahead. The later run finds idle input.
+		if (priorRegion == SignalInputRegion.IDLE || (region.isUrgent && !priorRegion.isUrgent)) {
 			TerrainExecutor.INSTANCE.execute(this);
 		}
 
 		markBuilt();
 	}
 
+	/**
+	 * Used instead of {@link #rebuildOnMainThread()} for near and important regions when
+	 * {@link Configurator#urgentRebuildsOffThread} is enabled.  The rebuild runs on the terrain
+	 * executor ahead of all normal tasks, and the render thread waits briefly for it at upload
+	 * time.  Until it is uploaded the previous drawables remain in use.
+	 *
+	 * <p>Urgency travels with the input so that only the build which consumes
+	 * that input completes the fence.
+	 */
+	public void prepareAndExecuteUrgentRebuildTask() {
+		prepareAndExecuteRebuildTask(true);
+	}
+
+	/**
+	 * Rebuilds on the terrain executor if so configured, otherwise on the calling thread,
+	 * which must be the render thread.  Flawless frames always rebuild on the calling thread,
+	 * as do regions without loaded neighbors because workers won't build those.
+	 */
+	public void rebuildUrgently() {
+		if (Configurator.urgentRebuildsOffThread && !FlawlessFrames.isActive() && renderChunk.areCornersLoaded()) {
+			prepareAndExecuteUrgentRebuildTask();
+		} else {
+			rebuildOnMainThread();
+		}
+	}
+
 	/**
 	 * Schedules a resort of this region if all of the following are true.
 	 * 1) region has translucency
@@ -242,13 +319,18 @@ public class RenderRegion implements TerrainExecutorTask {
 	}
 
 	protected void cancel() {
-		inputState.set(SignalInputRegion.INVALID);
+		final PackedInputRegion priorRegion = inputState.getAndSet(SignalInputRegion.INVALID);
+
+		if (priorRegion.isUrgent) {
+			renderRegionBuilder.completeUrgentBuild(priorRegion.urgentGeneration);
+		}
+
 		inputState = new AtomicReference<>(SignalInputRegion.IDLE);
 	}
 
 	@Override
 	public int priority() {
-		return origin.squaredCameraChunkDistance();
+		return inputState.get().isUrgent ? -1 : origin.squaredCameraChunkDistance();
 	}
 
 	private void notifyOcclusionChange() {
@@ -261,10 +343,26 @@ public class RenderRegion implements TerrainExecutorTask {
 		final AtomicReference<PackedInputRegion> runningState = inputState;
 		final PackedInputRegion protoRegion = runningState.getAndSet(SignalInputRegion.IDLE);
 
-		if (protoRegion == null || protoRegion == SignalInputRegion.INVALID) {
+		if (protoRegion == null || protoRegion == SignalInputRegion.IDLE || protoRegion == SignalInputRegion.INVALID) {
 			return;
 		}
 
+		// Read before build because a completed build releases the input
+		final boolean isUrgent = protoRegion.isUrgent;
+		final int urgentGeneration = protoRegion.urgentGeneration;
+
+		try {
+			build(context, runningState, protoRegion, isUrgent);
+		} finally {
+			// Upload, if any, has been scheduled by now
+			if (isUrgent) {
+				renderRegionBuilder.completeUrgentBuild(urgentGeneration);
+			}
+		}
+	}
+
+	private void build(CanvasTerrainRenderContext context, AtomicReference<PackedInputRegion> runningState, PackedInputRegion protoRegion, boolean isUrgent) {
+
 		if (protoRegion == SignalInputRegion.EMPTY) {
 			final RegionBuildState chunkData = new RegionBuildState();
 			chunkData.setOcclusionResult(RegionOcclusionCalculator.EMPTY_OCCLUSION_RESULT);
@@ -309,26 +407,22 @@ public class RenderRegion implements TerrainExecutorTask {
 				final DrawableVertexCollector collector = collectors.get(TerrainRenderStates.TRANSLUCENT_TERRAIN);
 				collector.loadState(state);
 
-				if (collector.sortTerrainQuads(worldRenderState.sectorManager.cameraPos(), renderSector)) {
-					regionData.translucentState = collector.saveState(state);
+				final boolean didSort = collector.sortTerrainQuads(worldRenderState.sectorManager.cameraPos(), renderSector);
+
+				// Full upload may be needed even if order didn't change because a prior partial upload failed
+				if (didSort || needsFullTranslucentUpload) {
+					final int[] sortedState = collector.saveState(state);
+					final int priorVersion = regionData.translucentVersion;
+					final int sortedVersion = priorVersion + 1;
+					regionData.translucentState = sortedState;
+					regionData.translucentVersion = sortedVersion;
 
 					if (runningState.get() != SignalInputRegion.INVALID) {
-						final UploadableRegion upload = collectors.toUploadableChunk(true, origin, worldRenderState);
-
-						if (upload != UploadableRegion.EMPTY_UPLOADABLE) {
-							renderRegionBuilder.scheduleUpload(() -> {
-								if (ChunkRebuildCounters.ENABLED) {
-									ChunkRebuildCounters.startUpload();
-								}
-
-								translucentDrawable.releaseFromRegion();
-								translucentDrawable = upload.produceDrawable();
-								worldRenderState.invalidateDrawLists();
-
-								if (ChunkRebuildCounters.ENABLED) {
-									ChunkRebuildCounters.completeUpload();
-								}
-							});
+						if (needsFullTranslucentUpload) {
+							needsFullTranslucentUpload = false;
+							scheduleFullResortUpload(collectors, regionData, sortedVersion);
+						} else {
+							schedulePartialResortUpload(collector, regionData, priorVersion, sortedState);
 						}
 					}
 				}
@@ -350,10 +444,18 @@ public class RenderRegion implements TerrainExecutorTask {
 			buildTerrain(context, newBuildState);
 
 			if (runningState.get() != SignalInputRegion.INVALID) {
+				final int byteCount = collectors.totalBytes(false) + collectors.totalBytes(true);
 				final UploadableRegion solidUpload = collectors.toUploadableChunk(false, origin, worldRenderState);
 				final UploadableRegion translucentUpload = collectors.toUploadableChunk(true, origin, worldRenderState);
 
-				renderRegionBuilder.scheduleUpload(() -> {
+				renderRegionBuilder.scheduleUpload(this, byteCount, isUrgent, () -> {
+					// Closed region has already released its drawables and would leak new ones
+					if (isClosed) {
+						solidUpload.discard();
+						translucentUpload.discard();
+						return;
+					}
+
 					if (ChunkRebuildCounters.ENABLED) {
 						ChunkRebuildCounters.startUpload();
 					}
@@ -361,6 +463,7 @@ public class RenderRegion implements TerrainExecutorTask {
 					releaseDrawables();
 					solidDrawable = solidUpload.produceDrawable();
 					translucentDrawable = translucentUpload.produceDrawable();
+					setUploadedTranslucentState(newBuildState, 0);
 					animationBits.clear();
 					animationBits.or(context.encoder.animationBits);
 					worldRenderState.invalidateDrawLists();
@@ -376,6 +479,79 @@ public class RenderRegion implements TerrainExecutorTask {
 		}
 	}
 
+	private void scheduleFullResortUpload(VertexCollectorList collectors, RegionBuildState regionData, int sortedVersion) {
+		final int byteCount = collectors.totalBytes(true);
+		final UploadableRegion upload = collectors.toUploadableChunk(true, origin, worldRenderState);
+
+		if (upload != UploadableRegion.EMPTY_UPLOADABLE) {
+			renderRegionBuilder.scheduleUpload(this, byteCount, false, () -> {
+				if (isClosed) {
+					upload.discard();
+					return;
+				}
+
+				if (ChunkRebuildCounters.ENABLED) {
+					ChunkRebuildCounters.startUpload();
+				}
+
+				translucentDrawable.releaseFromRegion();
+				translucentDrawable = upload.produceDrawable();
+				setUploadedTranslucentState(regionData, sortedVersion);
+				worldRenderState.invalidateDrawLists();
+
+				if (ChunkRebuildCounters.ENABLED) {
+					ChunkRebuildCounters.completeUpload();
+				}
+			});
+		}
+	}
+
+	/**
+	 * Uploads only the quads moved by the sort, writing over the existing drawable.
+	 * Applies only if the drawable still holds the exact data the sort started from.
+	 * Otherwise forces a complete upload on the next resort.
+	 */
+	private void schedulePartialResortUpload(DrawableVertexCollector collector, RegionBuildState regionData, int priorVersion, int[] sortedState) {
+		final int quadStrideInts = collector.integerSize() / collector.quadCount();
+		final int startInt = collector.sortDirtyStartQuad() * quadStrideInts;
+		final int lengthInts = collector.sortDirtyEndQuad() * quadStrideInts - startInt;
+		final UploadableRegionPatch patch = ClusteredDrawableRegion.patch(sortedState, startInt, lengthInts, collector.quadCount() * 4);
+
+		renderRegionBuilder.scheduleUpload(this, lengthInts * 4, false, () -> {
+			if (isClosed) {
+				// Must still release transfer buffer
+				patch.applyTo(DrawableRegion.EMPTY_DRAWABLE);
+				return;
+			}
+
+			if (ChunkRebuildCounters.ENABLED) {
+				ChunkRebuildCounters.startUpload();
+			}
+
+			final boolean isCurrent = uploadedTranslucentState == regionData && uploadedTranslucentVersion == priorVersion;
+
+			if (isCurrent && patch.applyTo(translucentDrawable)) {
+				// Allocation is unchanged so draw lists remain valid
+				uploadedTranslucentVersion = priorVersion + 1;
+			} else {
+				if (isCurrent) {
+					// Drawable can't be patched and no longer matches any sort state
+					uploadedTranslucentState = null;
+				} else {
+					// Must still release transfer buffer
+					patch.applyTo(DrawableRegion.EMPTY_DRAWABLE);
+				}
+
+				needsFullTranslucentUpload = true;
+				origin.forceSortNeeded();
+			}
+
+			if (ChunkRebuildCounters.ENABLED) {
+				ChunkRebuildCounters.completeUpload();
+			}
+		});
+	}
+
 	private RegionBuildState captureAndSetBuildState(CanvasTerrainRenderContext context, boolean isNear) {
 		final RegionBuildState newBuildState = new RegionBuildState();
 		newBuildState.setOcclusionResult(context.region.occlusion.build(isNear));
@@ -420,8 +596,15 @@ public class RenderRegion implements TerrainExecutorTask {
 		final BlockRenderDispatcher blockRenderManager = Minecraft.getInstance().getBlockRenderer();
 		final RegionOcclusionCalculator occlusionRegion = region.occlusion;
 
-		for (int i = 0; i < RenderRegionStateIndexer.INTERIOR_STATE_COUNT; i++) {
-			if (occlusionRegion.shouldRender(i)) {
+		// Visit only renderable positions, 64 at a time. Sections that are mostly
+		// air or hidden solid blocks have few or no renderable bits set.
+		for (int wordIndex = 0; wordIndex < RenderRegionStateIndexer.INTERIOR_CACHE_WORDS; wordIndex++) {
+			long word = occlusionRegion.renderableWord(wordIndex);
+
+			while (word != 0) {
+				final int i = (wordIndex << 6) | Long.numberOfTrailingZeros(word);
+				word &= word - 1;
+
 				final BlockState blockState = region.getLocalBlockState(i);
 				final FluidState fluidState = blockState.getFluidState();
 				final int x = i & 0xF;
@@ -539,6 +722,7 @@ public class RenderRegion implements TerrainExecutorTask {
 			releaseDrawables();
 			solidDrawable = solidUpload.produceDrawable();
 			translucentDrawable = translucentUpload.produceDrawable();
+			setUploadedTranslucentState(newBuildState, 0);
 			animationBits.clear();
 			animationBits.or(context.encoder.animationBits);
 
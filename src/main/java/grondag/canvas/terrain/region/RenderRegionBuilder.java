@@ -20,49 +20,284 @@
 
 package grondag.canvas.terrain.region;
 
+import java.util.Comparator;
+import java.util.List;
 import java.util.Queue;
+import java.util.concurrent.atomic.AtomicLong;
 
 import com.google.common.collect.Queues;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
 
 import com.mojang.blaze3d.systems.RenderSystem;
 
+import net.minecraft.Util;
+
+import io.vram.frex.api.config.FlawlessFrames;
+
 import grondag.canvas.apiimpl.rendercontext.CanvasTerrainRenderContext;
+import grondag.canvas.config.Configurator;
+import grondag.canvas.render.terrain.cluster.VertexClusterRealm;
 import grondag.canvas.terrain.util.TerrainExecutor;
 
+/**
+ * Hands region builds to the terrain executor and paces their uploads on the render thread.
+ *
+ * <p>Uploads arrive from workers in any order. Each frame the render thread moves them to a
+ * pending list that is ordered urgent first, then by camera visibility and distance ring.
+ * Within a ring, uploads to the same vertex cluster are kept together. The order is stable,
+ * so uploads for the same region always apply in the order they were scheduled.
+ *
+ * <p>Urgent uploads, and earlier uploads for the same region, always run. Others stop at the
+ * frame's deadline, or earlier if the next upload is larger than the measured upload rate
+ * can handle in the time left. At least one upload runs every frame.
+ */
 public class RenderRegionBuilder {
-	private final Queue<Runnable> uploadQueue = Queues.newConcurrentLinkedQueue();
+	/** Weight of each new sample in the throughput estimate is 1 / 2^THROUGHPUT_SMOOTHING_SHIFT. */
+	private static final int THROUGHPUT_SMOOTHING_SHIFT = 3;
+
+	/** Uploads smaller than this aren't timed for throughput because fixed costs dominate. */
+	private static final int MIN_SAMPLE_BYTES = 64 * 1024;
+
+	private static final Comparator<PendingUpload> UPLOAD_ORDER = Comparator
+			.comparingInt((PendingUpload u) -> u.rank)
+			.thenComparingLong(u -> u.clusterPos);
+
+	private final Queue<PendingUpload> uploadQueue = Queues.newConcurrentLinkedQueue();
+
+	/** Uploads drained from {@link #uploadQueue} but not yet run. Render thread only. */
+	private final ObjectArrayList<PendingUpload> pendingUploads = new ObjectArrayList<>();
+	private final ObjectArrayList<PendingUpload> deferredUploads = new ObjectArrayList<>();
+	private final ReferenceOpenHashSet<RenderRegion> urgentRegions = new ReferenceOpenHashSet<>();
+	private long pendingBytes;
+
+	/** Smoothed upload rate in bytes per microsecond. Starts conservatively at about 250 MB/s. */
+	private long bytesPerMicro = 250;
+
+	private int uploadsLastFrame;
+	private long bytesLastFrame;
+	private long nextReportTime;
+	private String report = "";
 	// for use by render thread rebuilds
 	CanvasTerrainRenderContext mainThreadContext = new CanvasTerrainRenderContext();
 
-	public String getDebugString() {
-		return String.format("not available");
-	}
+	/**
+	 * Urgent rebuilds sent to the terrain executor that haven't finished.  Uploads
+	 * wait for these, up to the configured fence time, so that block changes near
+	 * the player usually appear in the same frame as they would with main-thread builds.
+	 *
+	 * <p>Count is in the low 32 bits and the reset generation in the high 32 bits, so
+	 * builds started before a reset can't count down builds started after it.
+	 */
+	private final AtomicLong pendingUrgentBuilds = new AtomicLong();
+	private final Object urgentBuildMonitor = new Object();
 
-	public boolean upload() {
+	/**
+	 * Runs uploads in priority order until the deadline.
+	 *
+	 * @param endNanos System nano time after which only urgent uploads are run. (NOT the duration.)
+	 * @return true if any uploads were run
+	 */
+	public boolean upload(long endNanos) {
 		assert RenderSystem.isOnRenderThread();
 
-		Runnable task = uploadQueue.poll();
+		if ((int) pendingUrgentBuilds.get() > 0) {
+			awaitUrgentBuilds();
+		}
+
+		final ObjectArrayList<PendingUpload> pendingUploads = this.pendingUploads;
+		PendingUpload polled = uploadQueue.poll();
+
+		while (polled != null) {
+			pendingUploads.add(polled);
+			pendingBytes += polled.byteCount;
+			polled = uploadQueue.poll();
+		}
+
+		uploadsLastFrame = 0;
+		bytesLastFrame = 0;
+
+		if (pendingUploads.isEmpty()) {
+			return false;
+		}
 
-		final boolean didRun = task != null;
+		final int limit = pendingUploads.size();
 
-		while (task != null) {
-			task.run();
-			task = uploadQueue.poll();
+		for (int i = 0; i < limit; ++i) {
+			final PendingUpload upload = pendingUploads.get(i);
+			upload.updateRank();
+
+			if (upload.isUrgent) {
+				urgentRegions.add(upload.region);
+			}
 		}
 
-		return didRun;
+		// Older uploads for a region with an urgent upload must not run after it
+		if (!urgentRegions.isEmpty()) {
+			for (int i = 0; i < limit; ++i) {
+				final PendingUpload upload = pendingUploads.get(i);
+
+				if (urgentRegions.contains(upload.region)) {
+					upload.rank = 0;
+				}
+			}
+
+			urgentRegions.clear();
+		}
+
+		// Stable sort keeps uploads for the same region in the order they were scheduled
+		pendingUploads.sort(UPLOAD_ORDER);
+
+		final boolean flawless = FlawlessFrames.isActive();
+		final ObjectArrayList<PendingUpload> deferredUploads = this.deferredUploads;
+		long now = Util.getNanos();
+		boolean isOverBudget = false;
+
+		for (int i = 0; i < limit; ++i) {
+			final PendingUpload upload = pendingUploads.get(i);
+
+			if (upload.rank != 0 && !flawless && uploadsLastFrame > 0) {
+				isOverBudget = isOverBudget || upload.byteCount > (endNanos - now) / 1000L * bytesPerMicro;
+
+				if (isOverBudget) {
+					deferredUploads.add(upload);
+					continue;
+				}
+			}
+
+			upload.task.run();
+			++uploadsLastFrame;
+			bytesLastFrame += upload.byteCount;
+			pendingBytes -= upload.byteCount;
+
+			final long start = now;
+			now = Util.getNanos();
+
+			if (upload.byteCount >= MIN_SAMPLE_BYTES) {
+				final long sample = upload.byteCount / Math.max(1, (now - start) / 1000L);
+				bytesPerMicro = Math.max(1, bytesPerMicro + ((sample - bytesPerMicro) >> THROUGHPUT_SMOOTHING_SHIFT));
+			}
+		}
+
+		pendingUploads.clear();
+		pendingUploads.addAll(deferredUploads);
+		deferredUploads.clear();
+
+		return uploadsLastFrame > 0;
+	}
+
+	/**
+	 * Upload backlog and the most recent frame's throughput. Refreshed at most once per second.
+	 */
+	public void debugReport(List<String> target) {
+		final long now = Util.getNanos();
+
+		if (now > nextReportTime) {
+			nextReportTime = now + 1000000000L;
+			long oldest = now;
+
+			for (final PendingUpload upload : pendingUploads) {
+				oldest = Math.min(oldest, upload.queuedNanos);
+			}
+
+			report = String.format("Uploads pending: %d %,dKB oldest: %dms  last frame: %d %,dKB  rate: %dMB/s",
+					pendingUploads.size(), pendingBytes / 1024, (now - oldest) / 1000000L,
+					uploadsLastFrame, bytesLastFrame / 1024, bytesPerMicro);
+		}
+
+		target.add(report);
+	}
+
+	/**
+	 * @return Reset generation of the build, to be passed to {@link #completeUrgentBuild(int)}
+	 */
+	int beginUrgentBuild() {
+		return (int) (pendingUrgentBuilds.incrementAndGet() >>> 32);
+	}
+
+	void completeUrgentBuild(int generation) {
+		// Builds from before the last reset are no longer counted
+		final long state = pendingUrgentBuilds.updateAndGet(s -> (int) (s >>> 32) == generation && (int) s > 0 ? s - 1 : s);
+
+		if ((int) state == 0) {
+			synchronized (urgentBuildMonitor) {
+				urgentBuildMonitor.notifyAll();
+			}
+		}
+	}
+
+	/**
+	 * Waits until urgent builds are done or the fence expires. Builds still
+	 * running after that are uploaded on a later frame and prior drawables
+	 * are used until then.
+	 */
+	private void awaitUrgentBuilds() {
+		final long deadline = Util.getNanos() + Configurator.urgentRebuildFenceMillis * 1000000L;
+
+		synchronized (urgentBuildMonitor) {
+			long remaining;
+
+			while ((int) pendingUrgentBuilds.get() > 0 && (remaining = deadline - Util.getNanos()) > 0) {
+				try {
+					urgentBuildMonitor.wait(remaining / 1000000L, (int) (remaining % 1000000L));
+				} catch (final InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+			}
+		}
 	}
 
 	public void reset() {
+		// Next generation with a count of zero
+		pendingUrgentBuilds.updateAndGet(s -> ((s >>> 32) + 1) << 32);
 		TerrainExecutor.INSTANCE.clear();
 		mainThreadContext = new CanvasTerrainRenderContext();
 	}
 
-	public void scheduleUpload(Runnable task) {
-		uploadQueue.offer(task);
+	/**
+	 * Safe to call from any thread.
+	 *
+	 * @param region Region that will be affected by the upload
+	 * @param byteCount Approximate size of the upload, for pacing
+	 * @param isUrgent True if the upload should bypass pacing
+	 * @param task Performs the upload on the render thread
+	 */
+	void scheduleUpload(RenderRegion region, int byteCount, boolean isUrgent, Runnable task) {
+		uploadQueue.offer(new PendingUpload(region, byteCount, isUrgent, task));
 	}
 
 	public boolean isEmpty() {
-		return TerrainExecutor.INSTANCE.isEmpty() && uploadQueue.isEmpty();
+		return TerrainExecutor.INSTANCE.isEmpty() && uploadQueue.isEmpty() && pendingUploads.isEmpty();
+	}
+
+	private static class PendingUpload {
+		private final RenderRegion region;
+		private final int byteCount;
+		private final boolean isUrgent;
+		private final Runnable task;
+		private final long clusterPos;
+		private final long queuedNanos = Util.getNanos();
+
+		/** Lower runs sooner. Recomputed each frame because camera position and view change. */
+		private int rank;
+
+		private PendingUpload(RenderRegion region, int byteCount, boolean isUrgent, Runnable task) {
+			this.region = region;
+			this.byteCount = byteCount;
+			this.isUrgent = isUrgent;
+			this.task = task;
+			clusterPos = VertexClusterRealm.clusterPos(region.origin.asLong());
+		}
+
+		private void updateRank() {
+			if (isUrgent) {
+				rank = 0;
+			} else {
+				final RegionPosition origin = region.origin;
+				final int ring = 1 + (int) Math.sqrt(origin.squaredCameraChunkDistance());
+				rank = origin.isPotentiallyVisibleFromCamera() ? ring : ring + 0x10000;
+			}
+		}
 	}
 }
@@ -78,6 +78,19 @@ public final class RenderRegionIndexer {
 		return x | (z << 7);
 	}
 
+	/**
+	 * Index within an array of PADDED_REGION_INDEX_COUNT size that uniquely maps to a
+	 * loaded region.  Regions in the same chunk column have contiguous slots, ordered by Y.
+	 *
+	 * @param x x-axis coordinate of region block position
+	 * @param y y-axis coordinate of region block position
+	 * @param z z-axis coordinate of region block position
+	 * @return index to region array that uniquely maps to a region within max loading radius
+	 */
+	public static int regionSlot(int x, int y, int z) {
+		return chunkIndex(x, z) * MAX_Y_REGIONS + ((y + Y_BLOCKPOS_OFFSET) >> 4);
+	}
+
 	public static long blockPosToRegionOrigin(BlockPos pos) {
 		return blockPosToRegionOrigin(pos.getX(), pos.getY(), pos.getZ());
 	}
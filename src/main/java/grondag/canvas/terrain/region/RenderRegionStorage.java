@@ -32,6 +32,7 @@ import grondag.canvas.terrain.occlusion.OcclusionStatus;
 
 public class RenderRegionStorage {
 	private final AtomicInteger loadedRegionCount = new AtomicInteger();
+	final RegionPositionTable positionTable;
 
 	private final WorldRenderState worldRenderState;
 
@@ -40,6 +41,7 @@ public class RenderRegionStorage {
 
 	public RenderRegionStorage(WorldRenderState worldRenderState) {
 		this.worldRenderState = worldRenderState;
+		positionTable = new RegionPositionTable(worldRenderState);
 
 		for (int i = 0; i < RenderRegionIndexer.PADDED_CHUNK_INDEX_COUNT; ++i) {
 			chunks[i] = new RenderChunk(worldRenderState);
@@ -69,9 +71,15 @@ public class RenderRegionStorage {
 	}
 
 	public void updateRegionPositionAndVisibility() {
-		for (int i = 0; i < RenderRegionIndexer.PADDED_CHUNK_INDEX_COUNT; ++i) {
-			chunks[i].updatePositionAndVisibility();
-		}
+		positionTable.sweep(chunks, loadedRegionCount.get());
+	}
+
+	/**
+	 * Changes whenever a position sweep changes region distances or frustum visibility,
+	 * meaning priorities derived from them may be stale.
+	 */
+	public int priorityVersion() {
+		return positionTable.priorityVersion();
 	}
 
 	public int loadedRegionCount() {
@@ -22,10 +22,14 @@ package grondag.canvas.terrain.region.input;
 
 import static grondag.canvas.terrain.util.RenderRegionStateIndexer.regionIndex;
 
+import org.jetbrains.annotations.Nullable;
+
 import net.minecraft.core.BlockPos;
 import net.minecraft.world.level.Level;
+import net.minecraft.world.level.block.state.BlockState;
 import net.minecraft.world.level.chunk.LevelChunk;
 import net.minecraft.world.level.chunk.LevelChunkSection;
+import net.minecraft.world.level.chunk.PalettedContainer;
 
 /**
  * Tries to prevent InputRegion from being unreadably big. Fails.
@@ -41,6 +45,8 @@ public abstract class AbstractInputRegion {
 	protected int baseSectionIndex;
 	protected int chunkBaseZ;
 	protected Level world;
+	/** Copied block states and light when snapshot capture is enabled, null otherwise. */
+	@Nullable protected RegionSnapshot snapshot;
 
 	final boolean isInMainChunk(int x, int y, int z) {
 		return originX == (x & 0xFFFFFFF0) && originY == (y & 0xFFFFFFF0) && originZ == (z & 0xFFFFFFF0);
@@ -65,6 +71,22 @@ public abstract class AbstractInputRegion {
 		return index >= sections.length ? null : sections[index];
 	}
 
+	/**
+	 * Block states for a section in the 3x3x3 neighborhood, from the snapshot if there is one.
+	 * Null if the section is missing or contains only air.
+	 */
+	@Nullable
+	protected PalettedContainer<BlockState> getSectionStates(int x, int y, int z) {
+		final RegionSnapshot snapshot = this.snapshot;
+
+		if (snapshot != null) {
+			return snapshot.states(x, y, z);
+		}
+
+		final LevelChunkSection section = getSection(x, y, z);
+		return section == null || section.hasOnlyAir() ? null : section.getStates();
+	}
+
 	protected LevelChunk getChunk(int cx, int cz) {
 		final int chunkBaseX = this.chunkBaseX;
 		final int chunkBaseZ = this.chunkBaseZ;
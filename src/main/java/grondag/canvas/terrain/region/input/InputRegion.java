@@ -83,27 +83,34 @@ import net.minecraft.world.level.biome.Biome;
 import net.minecraft.world.level.block.Blocks;
 import net.minecraft.world.level.block.entity.BlockEntity;
 import net.minecraft.world.level.block.state.BlockState;
-import net.minecraft.world.level.chunk.LevelChunkSection;
+import net.minecraft.world.level.chunk.PalettedContainer;
 import net.minecraft.world.level.lighting.LevelLightEngine;
 import net.minecraft.world.level.material.FluidState;
 
 import io.vram.frex.api.world.RenderRegionBakeListener;
 
 import grondag.canvas.apiimpl.rendercontext.CanvasTerrainRenderContext;
+import grondag.canvas.perf.ChunkRebuildCounters;
 import grondag.canvas.terrain.occlusion.geometry.RegionOcclusionCalculator;
 import grondag.canvas.terrain.util.ChunkColorCache;
 
 // FIX: should not allow direct world access, esp from non-main threads
+// Snapshot capture covers block states and light in the 3x3x3 sections; block entities
+// outside the main section, biomes and anything beyond the neighborhood still read the world.
 public class InputRegion extends AbstractInputRegion implements BlockAndTintGetter {
-	private static final int[] EMPTY_AO_CACHE = new int[TOTAL_STATE_COUNT];
-	private static final int[] EMPTY_LIGHT_CACHE = new int[TOTAL_STATE_COUNT];
-	private static final Object[] EMPTY_RENDER_DATA = new Object[INTERIOR_STATE_COUNT];
-	private static final BlockEntity[] EMPTY_BLOCK_ENTITIES = new BlockEntity[INTERIOR_STATE_COUNT];
-
-	static {
-		Arrays.fill(EMPTY_AO_CACHE, Integer.MAX_VALUE);
-		Arrays.fill(EMPTY_LIGHT_CACHE, Integer.MAX_VALUE);
-	}
+	/*
+	 * Light and AO for each block share one long so that both are in the same cache line.
+	 * Bits 0-31 are packed light, 32-39 are AO level, 40 and 41 flag which of the two is set.
+	 * The high 16 bits hold the cache generation that wrote the entry. Entries from any other
+	 * generation are treated as empty, so the cache never needs to be cleared between regions.
+	 */
+	private static final long LIGHT_MASK = 0xFFFFFFFFL;
+	private static final int AO_SHIFT = 32;
+	private static final long AO_MASK = 0xFFL << AO_SHIFT;
+	private static final long LIGHT_VALID = 1L << 40;
+	private static final long AO_VALID = 1L << 41;
+	private static final int GENERATION_SHIFT = 48;
+	private static final int MAX_GENERATION = 0xFFFF;
 
 	public final BlockEntity[] blockEntities = new BlockEntity[INTERIOR_STATE_COUNT];
 	public final CanvasTerrainRenderContext terrainContext;
@@ -128,9 +135,17 @@ public class InputRegion extends AbstractInputRegion implements BlockAndTintGett
 		}
 	};
 
-	// PERF: pack for reduced memory, better LOC
-	private final int[] aoCache = new int[TOTAL_STATE_COUNT];
-	private final int[] lightCache = new int[TOTAL_STATE_COUNT];
+	private final long[] lightingCache = new long[TOTAL_STATE_COUNT];
+
+	/** Source of light for packed light lookups. This region when reading from a snapshot, otherwise the world. */
+	private BlockAndTintGetter lightView;
+
+	/** Stamp for current region. Zero is never used so zero-filled entries are always invalid. */
+	private long cacheGeneration = 0;
+
+	/** Interior indices populated by last call to {@link #copyBeData(PackedInputRegion)}, for cleanup. */
+	private final ShortArrayList populatedBlockEntityPos = new ShortArrayList();
+	private final ShortArrayList populatedRenderDataPos = new ShortArrayList();
 
 	public InputRegion(CanvasTerrainRenderContext terrainContext) {
 		this.terrainContext = terrainContext;
@@ -140,13 +155,17 @@ public class InputRegion extends AbstractInputRegion implements BlockAndTintGett
 		bakeListeners.clear();
 		bakeListeners.addAll(packedRegion.bakeListenerContext.listeners);
 
+		if (ChunkRebuildCounters.ENABLED) {
+			ChunkRebuildCounters.startPrepare();
+		}
+
 		System.arraycopy(packedRegion.chunks, 0, chunks, 0, 16);
-		System.arraycopy(EMPTY_BLOCK_ENTITIES, 0, blockEntities, 0, INTERIOR_STATE_COUNT);
-		System.arraycopy(EMPTY_RENDER_DATA, 0, renderData, 0, INTERIOR_STATE_COUNT);
-		System.arraycopy(EMPTY_AO_CACHE, 0, aoCache, 0, TOTAL_STATE_COUNT);
-		System.arraycopy(EMPTY_LIGHT_CACHE, 0, lightCache, 0, TOTAL_STATE_COUNT);
+		clearBeData();
+		nextCacheGeneration();
 
 		world = packedRegion.world;
+		snapshot = packedRegion.snapshot;
+		lightView = snapshot == null ? world : this;
 
 		originX = packedRegion.originX;
 		originY = packedRegion.originY;
@@ -156,12 +175,17 @@ public class InputRegion extends AbstractInputRegion implements BlockAndTintGett
 		baseSectionIndex = packedRegion.baseSectionIndex;
 		chunkBaseZ = packedRegion.chunkBaseZ;
 
-		final var mainSection = getSection(1, 1, 1);
-
-		for (int x = 0; x < 16; x++) {
-			for (int y = 0; y < 16; y++) {
-				for (int z = 0; z < 16; z++) {
-					states[interiorIndex(x, y, z)] = mainSection.getBlockState(x, y, z);
+		final PalettedContainer<BlockState> mainSection = getSectionStates(1, 1, 1);
+		final boolean isInteriorAir = mainSection == null;
+
+		if (isInteriorAir) {
+			Arrays.fill(states, 0, INTERIOR_STATE_COUNT, AIR);
+		} else {
+			for (int x = 0; x < 16; x++) {
+				for (int y = 0; y < 16; y++) {
+					for (int z = 0; z < 16; z++) {
+						states[interiorIndex(x, y, z)] = mainSection.get(x, y, z);
+					}
 				}
 			}
 		}
@@ -172,7 +196,21 @@ public class InputRegion extends AbstractInputRegion implements BlockAndTintGett
 
 		copyBeData(packedRegion);
 
-		occlusion.prepare();
+		occlusion.prepare(isInteriorAir);
+
+		if (ChunkRebuildCounters.ENABLED) {
+			ChunkRebuildCounters.completePrepare();
+		}
+	}
+
+	private void nextCacheGeneration() {
+		if (cacheGeneration == MAX_GENERATION) {
+			// Wrapped - entries from the prior cycle could now look current
+			Arrays.fill(lightingCache, 0);
+			cacheGeneration = 0;
+		}
+
+		++cacheGeneration;
 	}
 
 	private interface BlockStateFunction {
@@ -190,23 +228,23 @@ public class InputRegion extends AbstractInputRegion implements BlockAndTintGett
 	}
 
 	private void captureFaces() {
-		final LevelChunkSection lowX = getSection(0, 1, 1);
-		captureFace(SIDE_INDEX_X0, lowX == null ? AIR_FUNCTION : (i, j, k) -> lowX.getBlockState(14 + k, i, j));
+		final PalettedContainer<BlockState> lowX = getSectionStates(0, 1, 1);
+		captureFace(SIDE_INDEX_X0, lowX == null ? AIR_FUNCTION : (i, j, k) -> lowX.get(14 + k, i, j));
 
-		final LevelChunkSection highX = getSection(2, 1, 1);
-		captureFace(SIDE_INDEX_X2, highX == null ? AIR_FUNCTION : (i, j, k) -> highX.getBlockState(k, i, j));
+		final PalettedContainer<BlockState> highX = getSectionStates(2, 1, 1);
+		captureFace(SIDE_INDEX_X2, highX == null ? AIR_FUNCTION : (i, j, k) -> highX.get(k, i, j));
 
-		final LevelChunkSection lowZ = getSection(1, 1, 0);
-		captureFace(SIDE_INDEX_Z0, lowZ == null ? AIR_FUNCTION : (i, j, k) -> lowZ.getBlockState(i, j, 14 + k));
+		final PalettedContainer<BlockState> lowZ = getSectionStates(1, 1, 0);
+		captureFace(SIDE_INDEX_Z0, lowZ == null ? AIR_FUNCTION : (i, j, k) -> lowZ.get(i, j, 14 + k));
 
-		final LevelChunkSection highZ = getSection(1, 1, 2);
-		captureFace(SIDE_INDEX_Z2, highZ == null ? AIR_FUNCTION : (i, j, k) -> highZ.getBlockState(i, j, k));
+		final PalettedContainer<BlockState> highZ = getSectionStates(1, 1, 2);
+		captureFace(SIDE_INDEX_Z2, highZ == null ? AIR_FUNCTION : (i, j, k) -> highZ.get(i, j, k));
 
-		final LevelChunkSection lowY = getSection(1, 0, 1);
-		captureFace(SIDE_INDEX_Y0, lowY == null ? AIR_FUNCTION : (i, j, k) -> lowY.getBlockState(i, 14 + k, j));
+		final PalettedContainer<BlockState> lowY = getSectionStates(1, 0, 1);
+		captureFace(SIDE_INDEX_Y0, lowY == null ? AIR_FUNCTION : (i, j, k) -> lowY.get(i, 14 + k, j));
 
-		final LevelChunkSection highY = getSection(1, 2, 1);
-		captureFace(SIDE_INDEX_Y2, highY == null ? AIR_FUNCTION : (i, j, k) -> highY.getBlockState(i, k, j));
+		final PalettedContainer<BlockState> highY = getSectionStates(1, 2, 1);
+		captureFace(SIDE_INDEX_Y2, highY == null ? AIR_FUNCTION : (i, j, k) -> highY.get(i, k, j));
 	}
 
 	//NB: the addressing math here must match what is in RenderRegionAddressHelper
@@ -217,41 +255,41 @@ public class InputRegion extends AbstractInputRegion implements BlockAndTintGett
 	}
 
 	private void captureEdges() {
-		final LevelChunkSection aaZ = getSection(0, 0, 1);
-		captureEdge(EDGE_INDEX_Y0X0, aaZ == null ? AIR_FUNCTION : (i, j, k) -> aaZ.getBlockState(14 + i, 14 + j, k));
+		final PalettedContainer<BlockState> aaZ = getSectionStates(0, 0, 1);
+		captureEdge(EDGE_INDEX_Y0X0, aaZ == null ? AIR_FUNCTION : (i, j, k) -> aaZ.get(14 + i, 14 + j, k));
 
-		final LevelChunkSection abZ = getSection(0, 2, 1);
-		captureEdge(EDGE_INDEX_Y2X0, abZ == null ? AIR_FUNCTION : (i, j, k) -> abZ.getBlockState(14 + i, j, k));
+		final PalettedContainer<BlockState> abZ = getSectionStates(0, 2, 1);
+		captureEdge(EDGE_INDEX_Y2X0, abZ == null ? AIR_FUNCTION : (i, j, k) -> abZ.get(14 + i, j, k));
 
-		final LevelChunkSection baZ = getSection(2, 0, 1);
-		captureEdge(EDGE_INDEX_Y0X2, baZ == null ? AIR_FUNCTION : (i, j, k) -> baZ.getBlockState(i, 14 + j, k));
+		final PalettedContainer<BlockState> baZ = getSectionStates(2, 0, 1);
+		captureEdge(EDGE_INDEX_Y0X2, baZ == null ? AIR_FUNCTION : (i, j, k) -> baZ.get(i, 14 + j, k));
 
-		final LevelChunkSection bbZ = getSection(2, 2, 1);
-		captureEdge(EDGE_INDEX_Y2X2, bbZ == null ? AIR_FUNCTION : (i, j, k) -> bbZ.getBlockState(i, j, k));
+		final PalettedContainer<BlockState> bbZ = getSectionStates(2, 2, 1);
+		captureEdge(EDGE_INDEX_Y2X2, bbZ == null ? AIR_FUNCTION : (i, j, k) -> bbZ.get(i, j, k));
 
-		final LevelChunkSection aYa = getSection(0, 1, 0);
-		captureEdge(EDGE_INDEX_Z0X0, aYa == null ? AIR_FUNCTION : (i, j, k) -> aYa.getBlockState(14 + i, k, 14 + j));
+		final PalettedContainer<BlockState> aYa = getSectionStates(0, 1, 0);
+		captureEdge(EDGE_INDEX_Z0X0, aYa == null ? AIR_FUNCTION : (i, j, k) -> aYa.get(14 + i, k, 14 + j));
 
-		final LevelChunkSection aYb = getSection(0, 1, 2);
-		captureEdge(EDGE_INDEX_Z2X0, aYb == null ? AIR_FUNCTION : (i, j, k) -> aYb.getBlockState(14 + i, k, j));
+		final PalettedContainer<BlockState> aYb = getSectionStates(0, 1, 2);
+		captureEdge(EDGE_INDEX_Z2X0, aYb == null ? AIR_FUNCTION : (i, j, k) -> aYb.get(14 + i, k, j));
 
-		final LevelChunkSection bYa = getSection(2, 1, 0);
-		captureEdge(EDGE_INDEX_Z0X2, bYa == null ? AIR_FUNCTION : (i, j, k) -> bYa.getBlockState(i, k, 14 + j));
+		final PalettedContainer<BlockState> bYa = getSectionStates(2, 1, 0);
+		captureEdge(EDGE_INDEX_Z0X2, bYa == null ? AIR_FUNCTION : (i, j, k) -> bYa.get(i, k, 14 + j));
 
-		final LevelChunkSection bYb = getSection(2, 1, 2);
-		captureEdge(EDGE_INDEX_Z2X2, bYb == null ? AIR_FUNCTION : (i, j, k) -> bYb.getBlockState(i, k, j));
+		final PalettedContainer<BlockState> bYb = getSectionStates(2, 1, 2);
+		captureEdge(EDGE_INDEX_Z2X2, bYb == null ? AIR_FUNCTION : (i, j, k) -> bYb.get(i, k, j));
 
-		final LevelChunkSection Xaa = getSection(1, 0, 0);
-		captureEdge(EDGE_INDEX_Z0Y0, Xaa == null ? AIR_FUNCTION : (i, j, k) -> Xaa.getBlockState(k, 14 + i, 14 + j));
+		final PalettedContainer<BlockState> Xaa = getSectionStates(1, 0, 0);
+		captureEdge(EDGE_INDEX_Z0Y0, Xaa == null ? AIR_FUNCTION : (i, j, k) -> Xaa.get(k, 14 + i, 14 + j));
 
-		final LevelChunkSection Xab = getSection(1, 0, 2);
-		captureEdge(EDGE_INDEX_Z2Y0, Xab == null ? AIR_FUNCTION : (i, j, k) -> Xab.getBlockState(k, 14 + i, j));
+		final PalettedContainer<BlockState> Xab = getSectionStates(1, 0, 2);
+		captureEdge(EDGE_INDEX_Z2Y0, Xab == null ? AIR_FUNCTION : (i, j, k) -> Xab.get(k, 14 + i, j));
 
-		final LevelChunkSection Xba = getSection(1, 2, 0);
-		captureEdge(EDGE_INDEX_Z0Y2, Xba == null ? AIR_FUNCTION : (i, j, k) -> Xba.getBlockState(k, i, 14 + j));
+		final PalettedContainer<BlockState> Xba = getSectionStates(1, 2, 0);
+		captureEdge(EDGE_INDEX_Z0Y2, Xba == null ? AIR_FUNCTION : (i, j, k) -> Xba.get(k, i, 14 + j));
 
-		final LevelChunkSection Xbb = getSection(1, 2, 2);
-		captureEdge(EDGE_INDEX_Z2Y2, Xbb == null ? AIR_FUNCTION : (i, j, k) -> Xbb.getBlockState(k, i, j));
+		final PalettedContainer<BlockState> Xbb = getSectionStates(1, 2, 2);
+		captureEdge(EDGE_INDEX_Z2Y2, Xbb == null ? AIR_FUNCTION : (i, j, k) -> Xbb.get(k, i, j));
 	}
 
 	//NB: the addressing math here must match what is in RenderRegionAddressHelper
@@ -262,29 +300,51 @@ public class InputRegion extends AbstractInputRegion implements BlockAndTintGett
 	}
 
 	private void captureCorners() {
-		final LevelChunkSection xyz = getSection(0, 0, 0);
-		captureCorner(CORNER_INDEX_000, xyz == null ? AIR_FUNCTION : (i, j, k) -> xyz.getBlockState(14 + i, 14 + j, 14 + k));
+		final PalettedContainer<BlockState> xyz = getSectionStates(0, 0, 0);
+		captureCorner(CORNER_INDEX_000, xyz == null ? AIR_FUNCTION : (i, j, k) -> xyz.get(14 + i, 14 + j, 14 + k));
 
-		final LevelChunkSection xyZ = getSection(0, 0, 2);
-		captureCorner(CORNER_INDEX_200, xyZ == null ? AIR_FUNCTION : (i, j, k) -> xyZ.getBlockState(14 + i, 14 + j, k));
+		final PalettedContainer<BlockState> xyZ = getSectionStates(0, 0, 2);
+		captureCorner(CORNER_INDEX_200, xyZ == null ? AIR_FUNCTION : (i, j, k) -> xyZ.get(14 + i, 14 + j, k));
 
-		final LevelChunkSection xYz = getSection(0, 2, 0);
-		captureCorner(CORNER_INDEX_020, xYz == null ? AIR_FUNCTION : (i, j, k) -> xYz.getBlockState(14 + i, j, 14 + k));
+		final PalettedContainer<BlockState> xYz = getSectionStates(0, 2, 0);
+		captureCorner(CORNER_INDEX_020, xYz == null ? AIR_FUNCTION : (i, j, k) -> xYz.get(14 + i, j, 14 + k));
 
-		final LevelChunkSection xYZ = getSection(0, 2, 2);
-		captureCorner(CORNER_INDEX_220, xYZ == null ? AIR_FUNCTION : (i, j, k) -> xYZ.getBlockState(14 + i, j, k));
+		final PalettedContainer<BlockState> xYZ = getSectionStates(0, 2, 2);
+		captureCorner(CORNER_INDEX_220, xYZ == null ? AIR_FUNCTION : (i, j, k) -> xYZ.get(14 + i, j, k));
 
-		final LevelChunkSection Xyz = getSection(2, 0, 0);
-		captureCorner(CORNER_INDEX_002, Xyz == null ? AIR_FUNCTION : (i, j, k) -> Xyz.getBlockState(i, 14 + j, 14 + k));
+		final PalettedContainer<BlockState> Xyz = getSectionStates(2, 0, 0);
+		captureCorner(CORNER_INDEX_002, Xyz == null ? AIR_FUNCTION : (i, j, k) -> Xyz.get(i, 14 + j, 14 + k));
 
-		final LevelChunkSection XyZ = getSection(2, 0, 2);
-		captureCorner(CORNER_INDEX_202, XyZ == null ? AIR_FUNCTION : (i, j, k) -> XyZ.getBlockState(i, 14 + j, k));
+		final PalettedContainer<BlockState> XyZ = getSectionStates(2, 0, 2);
+		captureCorner(CORNER_INDEX_202, XyZ == null ? AIR_FUNCTION : (i, j, k) -> XyZ.get(i, 14 + j, k));
 
-		final LevelChunkSection XYz = getSection(2, 2, 0);
-		captureCorner(CORNER_INDEX_022, XYz == null ? AIR_FUNCTION : (i, j, k) -> XYz.getBlockState(i, j, 14 + k));
+		final PalettedContainer<BlockState> XYz = getSectionStates(2, 2, 0);
+		captureCorner(CORNER_INDEX_022, XYz == null ? AIR_FUNCTION : (i, j, k) -> XYz.get(i, j, 14 + k));
 
-		final LevelChunkSection XYZ = getSection(2, 2, 2);
-		captureCorner(CORNER_INDEX_222, XYZ == null ? AIR_FUNCTION : (i, j, k) -> XYZ.getBlockState(i, j, k));
+		final PalettedContainer<BlockState> XYZ = getSectionStates(2, 2, 2);
+		captureCorner(CORNER_INDEX_222, XYZ == null ? AIR_FUNCTION : (i, j, k) -> XYZ.get(i, j, k));
+	}
+
+	/**
+	 * Most regions have few or no block entities, so clearing only the
+	 * positions populated last time is much cheaper than clearing the arrays.
+	 */
+	private void clearBeData() {
+		final int beLimit = populatedBlockEntityPos.size();
+
+		for (int i = 0; i < beLimit; i++) {
+			blockEntities[populatedBlockEntityPos.getShort(i)] = null;
+		}
+
+		populatedBlockEntityPos.clear();
+
+		final int renderDataLimit = populatedRenderDataPos.size();
+
+		for (int i = 0; i < renderDataLimit; i++) {
+			renderData[populatedRenderDataPos.getShort(i)] = null;
+		}
+
+		populatedRenderDataPos.clear();
 	}
 
 	private void copyBeData(PackedInputRegion protoRegion) {
@@ -297,6 +357,8 @@ public class InputRegion extends AbstractInputRegion implements BlockAndTintGett
 			for (int i = 0; i < limit; i++) {
 				this.blockEntities[blockEntityPos.getShort(i)] = blockEntities.get(i);
 			}
+
+			populatedBlockEntityPos.addAll(blockEntityPos);
 		}
 
 		final ShortArrayList renderDataPos = protoRegion.renderDataPos;
@@ -308,6 +370,8 @@ public class InputRegion extends AbstractInputRegion implements BlockAndTintGett
 			for (int i = 0; i < limit; i++) {
 				this.renderData[renderDataPos.getShort(i)] = renderData.get(i);
 			}
+
+			populatedRenderDataPos.addAll(renderDataPos);
 		}
 	}
 
@@ -352,6 +416,16 @@ public class InputRegion extends AbstractInputRegion implements BlockAndTintGett
 
 	@Override
 	public int getBrightness(LightLayer type, BlockPos pos) {
+		final RegionSnapshot snapshot = this.snapshot;
+
+		if (snapshot != null) {
+			final int result = snapshot.brightness(type, pos.getX(), pos.getY(), pos.getZ());
+
+			if (result != -1) {
+				return result;
+			}
+		}
+
 		return world.getBrightness(type, pos);
 	}
 
@@ -365,18 +439,19 @@ public class InputRegion extends AbstractInputRegion implements BlockAndTintGett
 	}
 
 	public int cachedBrightness(int cacheIndex) {
-		int result = lightCache[cacheIndex];
+		final long entry = lightingCache[cacheIndex];
 
-		if (result == Integer.MAX_VALUE) {
-			final BlockState state = states[cacheIndex];
-			final int packedXyz5 = regionIndexToPackedSectionPos(cacheIndex);
-			final int x = (packedXyz5 & 31) - 2 + originX;
-			final int y = ((packedXyz5 >> 5) & 31) - 2 + originY;
-			final int z = (packedXyz5 >> 10) - 2 + originZ;
-			result = LevelRenderer.getLightColor(world, state, searchPos.set(x, y, z));
-			lightCache[cacheIndex] = result;
+		if ((entry >>> GENERATION_SHIFT) == cacheGeneration && (entry & LIGHT_VALID) != 0) {
+			return (int) entry;
 		}
 
+		final BlockState state = states[cacheIndex];
+		final int packedXyz5 = regionIndexToPackedSectionPos(cacheIndex);
+		final int x = (packedXyz5 & 31) - 2 + originX;
+		final int y = ((packedXyz5 >> 5) & 31) - 2 + originY;
+		final int z = (packedXyz5 >> 10) - 2 + originZ;
+		final int result = LevelRenderer.getLightColor(lightView, state, searchPos.set(x, y, z));
+		setCachedLight(cacheIndex, result);
 		return result;
 	}
 
@@ -384,11 +459,23 @@ public class InputRegion extends AbstractInputRegion implements BlockAndTintGett
 	 * For light smoothing.
 	 */
 	public void setLightCache(int x, int y, int z, int val) {
-		lightCache[blockIndex(x, y, z)] = val;
+		setCachedLight(blockIndex(x, y, z), val);
+	}
+
+	private void setCachedLight(int cacheIndex, int light) {
+		final long entry = lightingCache[cacheIndex];
+		// retain AO only if it belongs to this region
+		final long ao = (entry >>> GENERATION_SHIFT) == cacheGeneration ? entry & (AO_MASK | AO_VALID) : 0;
+		lightingCache[cacheIndex] = (cacheGeneration << GENERATION_SHIFT) | ao | LIGHT_VALID | (light & LIGHT_MASK);
 	}
 
 	public int directBrightness(BlockPos pos) {
-		return LevelRenderer.getLightColor(world, getBlockState(pos), pos);
+		return LevelRenderer.getLightColor(lightView, getBlockState(pos), pos);
+	}
+
+	/** Same as {@link #directBrightness(BlockPos)} for callers that already have the block state. */
+	public int directBrightness(BlockState state, BlockPos pos) {
+		return LevelRenderer.getLightColor(lightView, state, pos);
 	}
 
 	// TODO: do anything with this?
@@ -399,24 +486,29 @@ public class InputRegion extends AbstractInputRegion implements BlockAndTintGett
 	}
 
 	public int cachedAoLevel(int cacheIndex) {
-		int result = aoCache[cacheIndex];
-
-		if (result == Integer.MAX_VALUE) {
-			final BlockState state = states[cacheIndex];
-
-			if (state.getLightEmission() == 0) {
-				final int packedXyz5 = regionIndexToPackedSectionPos(cacheIndex);
-				final int x = (packedXyz5 & 31) - 2 + originX;
-				final int y = ((packedXyz5 >> 5) & 31) - 2 + originY;
-				final int z = (packedXyz5 >> 10) - 2 + originZ;
-				result = Math.round(255f * state.getShadeBrightness(this, searchPos.set(x, y, z)));
-			} else {
-				result = 255;
-			}
+		final long entry = lightingCache[cacheIndex];
+		final boolean isCurrent = (entry >>> GENERATION_SHIFT) == cacheGeneration;
+
+		if (isCurrent && (entry & AO_VALID) != 0) {
+			return (int) ((entry & AO_MASK) >>> AO_SHIFT);
+		}
+
+		final BlockState state = states[cacheIndex];
+		final int result;
 
-			aoCache[cacheIndex] = result;
+		if (state.getLightEmission() == 0) {
+			final int packedXyz5 = regionIndexToPackedSectionPos(cacheIndex);
+			final int x = (packedXyz5 & 31) - 2 + originX;
+			final int y = ((packedXyz5 >> 5) & 31) - 2 + originY;
+			final int z = (packedXyz5 >> 10) - 2 + originZ;
+			result = Math.round(255f * state.getShadeBrightness(this, searchPos.set(x, y, z)));
+		} else {
+			result = 255;
 		}
 
+		// retain light only if it belongs to this region
+		final long light = isCurrent ? entry & (LIGHT_MASK | LIGHT_VALID) : 0;
+		lightingCache[cacheIndex] = (cacheGeneration << GENERATION_SHIFT) | light | AO_VALID | ((long) result << AO_SHIFT);
 		return result;
 	}
 
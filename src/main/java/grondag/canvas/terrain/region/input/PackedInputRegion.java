@@ -39,12 +39,17 @@ import io.vram.frex.api.world.BlockEntityRenderData;
 import io.vram.frex.api.world.RenderRegionBakeListener;
 import io.vram.frex.impl.world.ChunkRenderConditionContext;
 
+import grondag.canvas.config.Configurator;
 import grondag.canvas.perf.ChunkRebuildCounters;
 
 /**
  * Serves as a container to capture world state data on the main thread as quickly as possible
  * for later consumption on possibly non-render threads for terrain render region rebuild.
  *
+ * <p>By default only chunk references are captured and block states and light are read
+ * from the live world during the build. When {@link Configurator#snapshotRegionInput} is
+ * enabled, block states and light for the surrounding sections are copied here instead.
+ *
  * <p>Also serves as a state indicator for rebuild activity.
  */
 public class PackedInputRegion extends AbstractInputRegion {
@@ -58,6 +63,19 @@ public class PackedInputRegion extends AbstractInputRegion {
 	final ObjectArrayList<Object> renderData = new ObjectArrayList<>();
 	final ShortArrayList blockEntityPos = new ShortArrayList();
 
+	/** Retained across pool cycles so light arrays can be reused. Created on first use. */
+	private RegionSnapshot snapshotBuffer;
+
+	/**
+	 * True if the build that consumes this input was requested urgently and is counted
+	 * as outstanding by the region builder. Set before the input is handed to the
+	 * region and never set on signals.
+	 */
+	public boolean isUrgent;
+
+	/** Generation of the urgent build count that includes this input. Meaningful only if urgent. */
+	public int urgentGeneration;
+
 	public static PackedInputRegion claim(ClientLevel world, BlockPos origin) {
 		final PackedInputRegion result = POOL.poll();
 		return (result == null ? new PackedInputRegion() : result).prepare(world, origin);
@@ -78,6 +96,7 @@ public class PackedInputRegion extends AbstractInputRegion {
 		}
 
 		this.world = world;
+		isUrgent = false;
 
 		final int originX = origin.getX();
 		final int originY = origin.getY();
@@ -117,6 +136,17 @@ public class PackedInputRegion extends AbstractInputRegion {
 			chunks[2 | (1 << 2)] = world.getChunk(chunkBaseX + 2, chunkBaseZ + 1);
 			chunks[2 | (2 << 2)] = world.getChunk(chunkBaseX + 2, chunkBaseZ + 2);
 
+			if (Configurator.snapshotRegionInput) {
+				if (snapshotBuffer == null) {
+					snapshotBuffer = new RegionSnapshot();
+				}
+
+				snapshotBuffer.capture(this);
+				snapshot = snapshotBuffer;
+			} else {
+				snapshot = null;
+			}
+
 			result = this;
 		}
 
@@ -167,6 +197,11 @@ public class PackedInputRegion extends AbstractInputRegion {
 		blockEntities.clear();
 		renderData.clear();
 
+		if (snapshot != null) {
+			snapshot.clear();
+			snapshot = null;
+		}
+
 		release(this);
 	}
 }
@@ -0,0 +1,196 @@
+/*
+ * This file is part of Canvas Renderer and is licensed to the project under
+ * terms that are compatible with the GNU Lesser General Public License.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership and licensing.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package grondag.canvas.terrain.region.input;
+
+import java.util.Arrays;
+
+import org.jetbrains.annotations.Nullable;
+
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.SectionPos;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.LightLayer;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.DataLayer;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+import net.minecraft.world.level.chunk.PalettedContainer;
+import net.minecraft.world.level.lighting.LayerLightEventListener;
+import net.minecraft.world.level.lighting.LevelLightEngine;
+
+/**
+ * Copies of block states and light for the 3x3x3 sections around a render region,
+ * taken on the main thread so that rebuilds on worker threads don't read live world data.
+ *
+ * <p>Light uses the same nibble layout as {@link DataLayer}. Light arrays belong to the
+ * snapshot and are reused each time the owning {@link PackedInputRegion} comes back from
+ * its pool. Sections with uniform light store only the value.
+ */
+final class RegionSnapshot {
+	private static final int SECTION_COUNT = 27;
+	private static final int NIBBLE_BYTES = 2048;
+	private static final int SLICE_BYTES = NIBBLE_BYTES / 16;
+	private static final int NOT_UNIFORM = -1;
+
+	@SuppressWarnings("unchecked")
+	private final PalettedContainer<BlockState>[] states = new PalettedContainer[SECTION_COUNT];
+	private final byte[][] blockLight = new byte[SECTION_COUNT][];
+	private final byte[][] skyLight = new byte[SECTION_COUNT][];
+	private final int[] blockUniform = new int[SECTION_COUNT];
+	private final int[] skyUniform = new int[SECTION_COUNT];
+	private final BlockPos.MutableBlockPos searchPos = new BlockPos.MutableBlockPos();
+	private int minX;
+	private int minY;
+	private int minZ;
+
+	private static int sectionIndex(int x, int y, int z) {
+		return x + y * 3 + z * 9;
+	}
+
+	/**
+	 * Region must already have its world, origin and chunks set.
+	 */
+	void capture(AbstractInputRegion region) {
+		final Level world = region.world;
+		minX = region.originX - 16;
+		minY = region.originY - 16;
+		minZ = region.originZ - 16;
+
+		final LevelLightEngine lighter = world.getLightEngine();
+		final LayerLightEventListener blockLayer = lighter.getLayerListener(LightLayer.BLOCK);
+		final LayerLightEventListener skyLayer = lighter.getLayerListener(LightLayer.SKY);
+		final boolean hasSky = world.dimensionType().hasSkyLight();
+		final int sectionX = SectionPos.blockToSectionCoord(minX);
+		final int sectionY = SectionPos.blockToSectionCoord(minY);
+		final int sectionZ = SectionPos.blockToSectionCoord(minZ);
+
+		for (int z = 0; z < 3; z++) {
+			for (int y = 0; y < 3; y++) {
+				for (int x = 0; x < 3; x++) {
+					final int i = sectionIndex(x, y, z);
+					final LevelChunkSection section = region.getSection(x, y, z);
+					states[i] = section == null || section.hasOnlyAir() ? null : section.getStates().copy();
+
+					final SectionPos sectionPos = SectionPos.of(sectionX + x, sectionY + y, sectionZ + z);
+					final DataLayer block = blockLayer.getDataLayerData(sectionPos);
+					// block light is zero where there is no data
+					blockUniform[i] = block == null ? 0 : copyLayer(block, blockLight, i);
+
+					if (!hasSky) {
+						skyUniform[i] = 0;
+					} else {
+						final DataLayer sky = skyLayer.getDataLayerData(sectionPos);
+						skyUniform[i] = sky == null ? captureSkyColumns(world, i, sectionPos) : copyLayer(sky, skyLight, i);
+					}
+				}
+			}
+		}
+	}
+
+	private static byte[] buffer(byte[][] buffers, int index) {
+		byte[] result = buffers[index];
+
+		if (result == null) {
+			result = new byte[NIBBLE_BYTES];
+			buffers[index] = result;
+		}
+
+		return result;
+	}
+
+	private static int copyLayer(DataLayer layer, byte[][] buffers, int index) {
+		if (layer.isDefinitelyHomogenous()) {
+			return layer.get(0, 0, 0);
+		}
+
+		System.arraycopy(layer.getData(), 0, buffer(buffers, index), 0, NIBBLE_BYTES);
+		return NOT_UNIFORM;
+	}
+
+	/**
+	 * Sky sections without data take their light from the nearest section above that
+	 * has it, so values vary only by column. We query the bottom slice and repeat it.
+	 */
+	private int captureSkyColumns(Level world, int index, SectionPos sectionPos) {
+		final int baseX = sectionPos.minBlockX();
+		final int baseY = sectionPos.minBlockY();
+		final int baseZ = sectionPos.minBlockZ();
+		final byte[] data = buffer(skyLight, index);
+		final int first = world.getBrightness(LightLayer.SKY, searchPos.set(baseX, baseY, baseZ));
+		boolean isUniform = true;
+
+		for (int z = 0; z < 16; z++) {
+			for (int x = 0; x < 16; x += 2) {
+				final int low = world.getBrightness(LightLayer.SKY, searchPos.set(baseX + x, baseY, baseZ + z));
+				final int high = world.getBrightness(LightLayer.SKY, searchPos.set(baseX + x + 1, baseY, baseZ + z));
+				isUniform &= low == first && high == first;
+				data[((z << 4) | x) >> 1] = (byte) (low | (high << 4));
+			}
+		}
+
+		if (isUniform) {
+			return first;
+		}
+
+		for (int y = 1; y < 16; y++) {
+			System.arraycopy(data, 0, data, y * SLICE_BYTES, SLICE_BYTES);
+		}
+
+		return NOT_UNIFORM;
+	}
+
+	/**
+	 * Same semantics as {@link AbstractInputRegion#getSection(int, int, int)} but returns
+	 * copied states, or null if the section is missing or contains only air.
+	 */
+	@Nullable
+	PalettedContainer<BlockState> states(int x, int y, int z) {
+		return states[sectionIndex(x, y, z)];
+	}
+
+	/**
+	 * Light level at the given world position, or -1 if the position isn't in a captured section.
+	 */
+	int brightness(LightLayer type, int x, int y, int z) {
+		final int rx = x - minX;
+		final int ry = y - minY;
+		final int rz = z - minZ;
+
+		if ((rx | ry | rz) < 0 || rx >= 48 || ry >= 48 || rz >= 48) {
+			return -1;
+		}
+
+		final int i = sectionIndex(rx >> 4, ry >> 4, rz >> 4);
+		final boolean isSky = type == LightLayer.SKY;
+		final int uniform = isSky ? skyUniform[i] : blockUniform[i];
+
+		if (uniform != NOT_UNIFORM) {
+			return uniform;
+		}
+
+		final int n = ((ry & 15) << 8) | ((rz & 15) << 4) | (rx & 15);
+		return ((isSky ? skyLight[i] : blockLight[i])[n >> 1] >> ((n & 1) << 2)) & 0xF;
+	}
+
+	/** Drops references to copied states. Light arrays are kept for reuse. */
+	void clear() {
+		Arrays.fill(states, null);
+	}
+}
@@ -35,6 +35,7 @@ import net.minecraft.world.level.chunk.ChunkAccess;
 import net.minecraft.world.level.chunk.LevelChunk;
 
 import grondag.canvas.mixinterface.LevelChunkExt;
+import grondag.canvas.perf.ChunkRebuildCounters;
 
 //FEAT: per-vertex blending (quality)
 public class ChunkColorCache implements BiomeManager.NoiseBiomeSource {
@@ -110,43 +111,45 @@ public class ChunkColorCache implements BiomeManager.NoiseBiomeSource {
 		}
 	}
 
+	/**
+	 * Caches base colors per column and a blended color plane for the whole chunk.
+	 *
+	 * <p>The blended plane is computed in one pass the first time any blended
+	 * color is requested. Base colors for the chunk plus a border of blend radius
+	 * are gathered into a padded grid, with neighbor caches resolved once per chunk
+	 * instead of once per sample, and then box filtered with running sums along
+	 * X and then Z.  Cost per chunk is proportional to the padded area
+	 * instead of 256 * (2r + 1)^2 samples.
+	 *
+	 * <p>Like base colors, blended colors are per column and use the Y
+	 * coordinate of the first request.
+	 */
 	private class BiomeColorCache {
-		private static final int BASE_INDEX = 0;
-		private static final int BASE_CONTROL = BASE_INDEX + 256;
-		private static final int BLENDED_INDEX = BASE_CONTROL + 8;
-		private static final int BLENDED_CONTROL = BLENDED_INDEX + 256;
 		private final ColorResolver colorResolver;
 		private final Function<ChunkColorCache, BiomeColorCache> cacheFunc;
-		private final int[] data = new int[512 + 16];
+		private final int[] baseColors = new int[256];
+		private final int[] baseControl = new int[8];
+
+		/** Null until computed.  Assigned only once filled so readers never see a partial plane. */
+		private volatile int[] blendedColors = null;
 
 		private BiomeColorCache(ColorResolver colorResolver, Function<ChunkColorCache, BiomeColorCache> cacheFunc) {
 			this.colorResolver = colorResolver;
 			this.cacheFunc = cacheFunc;
 		}
 
-		private int getBaseColor(int x, int y, int z) {
-			final int cx = x >> 4;
-			final int cz = z >> 4;
-
-			if (cx == chunkX && cz == chunkZ) {
-				return getLocalBaseColor(x, y, z);
-			} else {
-				return cacheFunc.apply(get(world.getChunk(cx, cz))).getLocalBaseColor(x, y, z);
-			}
-		}
-
 		private int getLocalBaseColor(int x, int y, int z) {
 			final int index = (x & 0xF) | ((z & 0xF) << 4);
-			final int controlIndex = BASE_CONTROL + (index >> 5);
+			final int controlIndex = index >> 5;
 			final int controlMask = 1 << (index & 31);
 
-			if ((data[controlIndex] & controlMask) == 0) {
+			if ((baseControl[controlIndex] & controlMask) == 0) {
 				final int result = computeLocalBaseColor(x, y, z);
-				data[controlIndex] |= controlMask;
-				data[index] = result;
+				baseColors[index] = result;
+				baseControl[controlIndex] |= controlMask;
 				return result;
 			} else {
-				return data[index];
+				return baseColors[index];
 			}
 		}
 
@@ -166,44 +169,135 @@ public class ChunkColorCache implements BiomeManager.NoiseBiomeSource {
 		}
 
 		private int getLocalBlendedColor(int x, int y, int z) {
-			final int index = (x & 0xF) | ((z & 0xF) << 4);
-			final int controlIndex = BLENDED_CONTROL + (index >> 5);
-			final int controlMask = 1 << (index & 31);
+			int[] blended = blendedColors;
 
-			if ((data[controlIndex] & controlMask) == 0) {
-				final int result = computeLocalBlendedColor(x, y, z);
-				data[controlIndex] |= controlMask;
-				data[index + BLENDED_INDEX] = result;
-				return result;
-			} else {
-				return data[index + BLENDED_INDEX];
+			if (blended == null) {
+				if (ChunkRebuildCounters.ENABLED) {
+					ChunkRebuildCounters.startBlend();
+				}
+
+				blended = computeBlendedColors(y);
+				blendedColors = blended;
+
+				if (ChunkRebuildCounters.ENABLED) {
+					ChunkRebuildCounters.completeBlend();
+				}
 			}
+
+			return blended[(x & 0xF) | ((z & 0xF) << 4)];
 		}
 
-		private int computeLocalBlendedColor(int xIn, int yIn, int zIn) {
+		private int[] computeBlendedColors(int y) {
 			final int radius = mc.options.biomeBlendRadius().get();
+			final int x0 = chunkX << 4;
+			final int z0 = chunkZ << 4;
+			final int[] result = new int[256];
 
 			if (radius == 0) {
-				return getLocalBaseColor(xIn, yIn, zIn);
-			} else {
-				final int sampleCount = (radius * 2 + 1) * (radius * 2 + 1);
+				for (int i = 0; i < 256; ++i) {
+					result[i] = getLocalBaseColor(x0 + (i & 0xF), y, z0 + (i >> 4));
+				}
+
+				return result;
+			}
+
+			final int span = 16 + radius * 2;
+			final int[] padded = new int[span * span];
+			fillPaddedBaseColors(padded, span, radius, x0, z0, y);
+
+			// Running sums along X: one row per padded Z, 16 outputs per row.
+			// Channels are summed separately so the result matches a direct average exactly.
+			final int diameter = radius * 2 + 1;
+			final int[] rowR = new int[span * 16];
+			final int[] rowG = new int[span * 16];
+			final int[] rowB = new int[span * 16];
+
+			for (int pz = 0; pz < span; ++pz) {
+				final int rowStart = pz * span;
 				int r = 0;
 				int g = 0;
 				int b = 0;
 
-				final int xMax = xIn + radius;
-				final int zMax = zIn + radius;
+				for (int px = 0; px < diameter; ++px) {
+					final int color = padded[rowStart + px];
+					r += (color >> 16) & 255;
+					g += (color >> 8) & 255;
+					b += color & 255;
+				}
+
+				final int outStart = pz * 16;
+
+				for (int x = 0; x < 16; ++x) {
+					rowR[outStart + x] = r;
+					rowG[outStart + x] = g;
+					rowB[outStart + x] = b;
 
-				for (int x = xIn - radius; x <= xMax; x++) {
-					for (int z = zIn - radius; z <= zMax; z++) {
-						final int color = getBaseColor(x, yIn, z);
-						g += (color >> 8) & 255;
-						r += (color >> 16) & 255;
-						b += color & 255;
+					if (x < 15) {
+						final int leaving = padded[rowStart + x];
+						final int entering = padded[rowStart + x + diameter];
+						r += ((entering >> 16) & 255) - ((leaving >> 16) & 255);
+						g += ((entering >> 8) & 255) - ((leaving >> 8) & 255);
+						b += (entering & 255) - (leaving & 255);
 					}
 				}
+			}
+
+			// Running sums along Z over the row sums
+			final int sampleCount = diameter * diameter;
+
+			for (int x = 0; x < 16; ++x) {
+				int r = 0;
+				int g = 0;
+				int b = 0;
 
-				return (r / sampleCount & 255) << 16 | (g / sampleCount & 255) << 8 | b / sampleCount & 255;
+				for (int pz = 0; pz < diameter; ++pz) {
+					r += rowR[pz * 16 + x];
+					g += rowG[pz * 16 + x];
+					b += rowB[pz * 16 + x];
+				}
+
+				for (int z = 0; z < 16; ++z) {
+					result[x | (z << 4)] = (r / sampleCount & 255) << 16 | (g / sampleCount & 255) << 8 | b / sampleCount & 255;
+
+					if (z < 15) {
+						final int leaving = z * 16 + x;
+						final int entering = (z + diameter) * 16 + x;
+						r += rowR[entering] - rowR[leaving];
+						g += rowG[entering] - rowG[leaving];
+						b += rowB[entering] - rowB[leaving];
+					}
+				}
+			}
+
+			return result;
+		}
+
+		/**
+		 * Gathers base colors for the chunk and its border, one neighbor chunk at a time.
+		 */
+		private void fillPaddedBaseColors(int[] padded, int span, int radius, int x0, int z0, int y) {
+			final int minX = x0 - radius;
+			final int minZ = z0 - radius;
+			final int maxX = minX + span - 1;
+			final int maxZ = minZ + span - 1;
+
+			for (int cz = minZ >> 4; cz <= maxZ >> 4; ++cz) {
+				final int zFrom = Math.max(minZ, cz << 4);
+				final int zTo = Math.min(maxZ, (cz << 4) + 15);
+
+				for (int cx = minX >> 4; cx <= maxX >> 4; ++cx) {
+					final BiomeColorCache source = cx == chunkX && cz == chunkZ ? this : cacheFunc.apply(get(world.getChunk(cx, cz)));
+					final int xFrom = Math.max(minX, cx << 4);
+					final int xTo = Math.min(maxX, (cx << 4) + 15);
+
+					for (int z = zFrom; z <= zTo; ++z) {
+						final int rowStart = (z - minZ) * span - minX;
+
+						for (int x = xFrom; x <= xTo; ++x) {
+							padded[rowStart + x] = source.getLocalBaseColor(x, y, z);
+						}
+					}
+				}
 			}
 		}
 	}
@@ -26,7 +26,7 @@ import java.util.concurrent.ExecutorService;
 import grondag.canvas.config.Configurator;
 
 public interface TerrainExecutor extends ExecutorService {
-	TerrainExecutor INSTANCE = Configurator.useCombinedThreadPool.get() ? new SharedTerrainExecutor() : new DedicatedTerrainExecutor();
+	TerrainExecutor INSTANCE = create();
 
 	void execute(TerrainExecutorTask task);
 
@@ -35,4 +35,14 @@ public interface TerrainExecutor extends ExecutorService {
 	boolean isEmpty();
 
 	void debugReport(List<String> target);
+
+	private static TerrainExecutor create() {
+		if (Configurator.useCombinedThreadPool.get()) {
+			return new SharedTerrainExecutor();
+		} else if (Configurator.useWorkStealingTerrainExecutor.get()) {
+			return new WorkStealingTerrainExecutor();
+		} else {
+			return new DedicatedTerrainExecutor();
+		}
+	}
 }
@@ -0,0 +1,383 @@
+/*
+ * This file is part of Canvas Renderer and is licensed to the project under
+ * terms that are compatible with the GNU Lesser General Public License.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership and licensing.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package grondag.canvas.terrain.util;
+
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import grondag.canvas.CanvasMod;
+import grondag.canvas.apiimpl.rendercontext.CanvasTerrainRenderContext;
+
+/**
+ * Terrain executor without a shared queue. Each worker owns a set of
+ * priority buckets and tasks are spread across workers as they are submitted.
+ * Idle workers steal from the best non-empty bucket of any other worker.
+ *
+ * <p>Bucket zero holds privileged tasks (priority == -1) and the remaining buckets
+ * are one per chunk distance ring.  Tasks within a bucket run in order of submission,
+ * so privileged tasks keep the same ordering guarantee as the other executors.
+ *
+ * <p>Each worker keeps a bit mask of buckets that may be non-empty. Bits are set after
+ * a task is added and cleared only after the bucket is confirmed empty, so the mask
+ * can contain false positives but never hides a queued task for long.
+ */
+public class WorkStealingTerrainExecutor extends AbstractExecutorService implements TerrainExecutor {
+	private static final int BUCKET_COUNT = 64;
+	private static final int MAX_DISTANCE_BUCKET = BUCKET_COUNT - 1;
+
+	private final int poolSize = threadCount();
+	private final Worker[] workers = new Worker[poolSize];
+
+	/** Round-robin cursor for distributing new tasks across workers. */
+	private final AtomicInteger nextWorker = new AtomicInteger();
+
+	private final AtomicInteger renderTaskCount = new AtomicInteger();
+	private final AtomicInteger stealCount = new AtomicInteger();
+	private int lastRenderTaskCount;
+	private int lastStealCount;
+	private long nextTime;
+	private String report = "";
+
+	WorkStealingTerrainExecutor() {
+		for (int i = 0; i < poolSize; i++) {
+			workers[i] = new Worker(i);
+		}
+
+		for (int i = 0; i < poolSize; i++) {
+			final Thread thread = new Thread(workers[i], "Canvas Render Thread - " + i);
+			thread.setDaemon(true);
+			workers[i].thread = thread;
+			thread.start();
+		}
+	}
+
+	private static int threadCount() {
+		final int threadCount = Runtime.getRuntime().availableProcessors() - 1;
+		return threadCount > 1 ? threadCount : 1;
+	}
+
+	/**
+	 * Privileged tasks go to bucket zero. Squared chunk distance maps to
+	 * chunk distance so that each bucket is roughly one distance ring.
+	 */
+	private static int bucketIndex(int priority) {
+		if (priority < 0) {
+			return 0;
+		}
+
+		return Math.min(MAX_DISTANCE_BUCKET, 1 + (int) Math.sqrt(priority));
+	}
+
+	@Override
+	public void execute(TerrainExecutorTask task) {
+		final int index = (nextWorker.getAndIncrement() & Integer.MAX_VALUE) % poolSize;
+		workers[index].push(task, bucketIndex(task.priority()));
+		renderTaskCount.incrementAndGet();
+		wakeIdleWorker(index);
+	}
+
+	/**
+	 * Wakes the worker that received the task if it is idle, otherwise any other idle worker
+	 * so that the task can be stolen without waiting for the owner to finish its current work.
+	 */
+	private void wakeIdleWorker(int preferred) {
+		for (int i = 0; i < poolSize; i++) {
+			final Worker w = workers[(preferred + i) % poolSize];
+
+			if (w.isIdle && w.wake()) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Drops all queued tasks. Each bucket is cleared independently and
+	 * there is no lock shared by submitters or workers.  Tasks already
+	 * running are not affected.
+	 */
+	@Override
+	public void clear() {
+		for (final Worker w : workers) {
+			w.clear();
+		}
+	}
+
+	@Override
+	public boolean isEmpty() {
+		for (final Worker w : workers) {
+			if (!w.isEmpty()) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private class Worker implements Runnable {
+		private final int index;
+
+		@SuppressWarnings("unchecked")
+		private final ConcurrentLinkedQueue<TerrainExecutorTask>[] buckets = new ConcurrentLinkedQueue[BUCKET_COUNT];
+
+		/** Bit for each bucket that may contain tasks. */
+		private final AtomicLong occupancy = new AtomicLong();
+
+		private CanvasTerrainRenderContext context = new CanvasTerrainRenderContext();
+		private volatile boolean resetContext = false;
+		private volatile boolean isIdle = false;
+		private Thread thread;
+
+		private Worker(int index) {
+			this.index = index;
+
+			for (int i = 0; i < BUCKET_COUNT; i++) {
+				buckets[i] = new ConcurrentLinkedQueue<>();
+			}
+		}
+
+		private void push(TerrainExecutorTask task, int bucket) {
+			buckets[bucket].offer(task);
+			setBit(bucket);
+		}
+
+		private void setBit(int bucket) {
+			final long bit = 1L << bucket;
+			long mask;
+
+			do {
+				mask = occupancy.get();
+			} while ((mask & bit) == 0 && !occupancy.compareAndSet(mask, mask | bit));
+		}
+
+		/**
+		 * Clears the occupancy bit for a bucket found empty. A concurrent push may
+		 * land between the empty check and the clear, so we check again afterwards
+		 * and restore the bit if needed.
+		 */
+		private void clearBit(int bucket) {
+			final long bit = 1L << bucket;
+			long mask;
+
+			do {
+				mask = occupancy.get();
+			} while ((mask & bit) != 0 && !occupancy.compareAndSet(mask, mask & ~bit));
+
+			if (!buckets[bucket].isEmpty()) {
+				setBit(bucket);
+			}
+		}
+
+		/**
+		 * Lowest bucket that may contain a task, or BUCKET_COUNT if none.
+		 */
+		private int firstBucket() {
+			return Long.numberOfTrailingZeros(occupancy.get());
+		}
+
+		/**
+		 * Removes the next task from the given bucket or from the first non-empty bucket
+		 * after it. Used both by the owner and by thieves.
+		 */
+		private TerrainExecutorTask poll(int bucket) {
+			while (bucket < BUCKET_COUNT) {
+				final TerrainExecutorTask result = buckets[bucket].poll();
+
+				if (result != null) {
+					return result;
+				}
+
+				clearBit(bucket);
+				bucket = firstBucket();
+			}
+
+			return null;
+		}
+
+		private boolean isEmpty() {
+			long mask = occupancy.get();
+
+			while (mask != 0) {
+				final int bucket = Long.numberOfTrailingZeros(mask);
+
+				if (!buckets[bucket].isEmpty()) {
+					return false;
+				}
+
+				mask &= mask - 1;
+			}
+
+			return true;
+		}
+
+		private void clear() {
+			// Mask first so a concurrent push re-marks its bucket after we drain it
+			occupancy.set(0);
+
+			for (int i = 0; i < BUCKET_COUNT; i++) {
+				buckets[i].clear();
+
+				if (!buckets[i].isEmpty()) {
+					setBit(i);
+				}
+			}
+
+			resetContext = true;
+		}
+
+		private int size() {
+			int result = 0;
+
+			for (int i = 0; i < BUCKET_COUNT; i++) {
+				result += buckets[i].size();
+			}
+
+			return result;
+		}
+
+		private boolean wake() {
+			if (isIdle) {
+				isIdle = false;
+				LockSupport.unpark(thread);
+				return true;
+			}
+
+			return false;
+		}
+
+		/**
+		 * Takes from our own buckets unless another worker has a task in a better bucket.
+		 */
+		private TerrainExecutorTask next() {
+			final int ownBucket = firstBucket();
+			int bestBucket = ownBucket;
+			Worker bestWorker = this;
+
+			for (int i = 1; i < poolSize; i++) {
+				final Worker w = workers[(index + i) % poolSize];
+				final int b = w.firstBucket();
+
+				if (b < bestBucket) {
+					bestBucket = b;
+					bestWorker = w;
+				}
+			}
+
+			if (bestWorker != this) {
+				final TerrainExecutorTask stolen = bestWorker.poll(bestBucket);
+
+				if (stolen != null) {
+					stealCount.incrementAndGet();
+					return stolen;
+				}
+			}
+
+			return ownBucket < BUCKET_COUNT ? poll(ownBucket) : null;
+		}
+
+		@Override
+		public void run() {
+			while (true) {
+				try {
+					if (resetContext) {
+						resetContext = false;
+						context = new CanvasTerrainRenderContext();
+					}
+
+					final TerrainExecutorTask t = next();
+
+					if (t != null) {
+						t.run(context);
+					} else {
+						isIdle = true;
+
+						// Check again after advertising idle state so a task pushed
+						// in the meantime can't be missed. An unpark that arrives
+						// before we park makes park return immediately.
+						if (WorkStealingTerrainExecutor.this.isEmpty()) {
+							LockSupport.park(this);
+						}
+
+						isIdle = false;
+					}
+				} catch (final Exception e) {
+					CanvasMod.LOG.error("Unhandled error during rendering. Impact unknown.", e);
+				}
+			}
+		}
+	}
+
+	@Override
+	public void execute(Runnable command) {
+		throw new UnsupportedOperationException("Work-stealing terrain executor received shared-mode task");
+	}
+
+	@Override
+	public void debugReport(List<String> target) {
+		final long newTime = System.currentTimeMillis();
+
+		if (newTime > nextTime) {
+			nextTime = newTime + 1000;
+			final int newRenderCount = renderTaskCount.get();
+			final int newStealCount = stealCount.get();
+			int queued = 0;
+
+			for (final Worker w : workers) {
+				queued += w.size();
+			}
+
+			report = String.format("Render tasks: %d rate: %d steals: %d", queued, newRenderCount - lastRenderTaskCount, newStealCount - lastStealCount);
+			lastRenderTaskCount = newRenderCount;
+			lastStealCount = newStealCount;
+		}
+
+		target.add(report);
+	}
+
+	@Override
+	public void shutdown() {
+		throw new UnsupportedOperationException("Work-stealing terrain executor used as generic service.");
+	}
+
+	@Override
+	public List<Runnable> shutdownNow() {
+		throw new UnsupportedOperationException("Work-stealing terrain executor used as generic service.");
+	}
+
+	@Override
+	public boolean isShutdown() {
+		throw new UnsupportedOperationException("Work-stealing terrain executor used as generic service.");
+	}
+
+	@Override
+	public boolean isTerminated() {
+		throw new UnsupportedOperationException("Work-stealing terrain executor used as generic service.");
+	}
+
+	@Override
+	public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+		throw new UnsupportedOperationException("Work-stealing terrain executor used as generic service.");
+	}
+}
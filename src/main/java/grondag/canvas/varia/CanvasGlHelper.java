@@ -35,6 +35,9 @@ public class CanvasGlHelper {
 	private static boolean supportsPersistentMapped = false;
 	private static boolean supportsKhrDebug = false;
 	private static boolean supportsArbConservativeDepth = false;
+	private static boolean supportsProgramBinary = false;
+	private static boolean supportsMultiDrawIndirect = false;
+	private static String driverString = "";
 
 	private static String maxGlVersion = "3.2";
 
@@ -50,6 +53,26 @@ public class CanvasGlHelper {
 		return supportsArbConservativeDepth;
 	}
 
+	/**
+	 * True when linked programs can be retrieved and reloaded as binaries.
+	 * Some drivers expose the entry points but report no binary formats.
+	 */
+	public static boolean supportsProgramBinary() {
+		return supportsProgramBinary;
+	}
+
+	public static boolean supportsMultiDrawIndirect() {
+		return supportsMultiDrawIndirect;
+	}
+
+	/**
+	 * Vendor, renderer and version strings.  Program binaries are only
+	 * valid for the driver that produced them.
+	 */
+	public static String driverString() {
+		return driverString;
+	}
+
 	public static String maxGlVersion() {
 		return maxGlVersion;
 	}
@@ -63,6 +86,9 @@ public class CanvasGlHelper {
 		supportsPersistentMapped = caps.glBufferStorage != 0;
 		supportsKhrDebug = caps.GL_KHR_debug;
 		supportsArbConservativeDepth = caps.GL_ARB_conservative_depth;
+		supportsMultiDrawIndirect = caps.glMultiDrawElementsIndirect != 0;
+		supportsProgramBinary = caps.glProgramBinary != 0 && GFX.getInteger(GFX.GL_NUM_PROGRAM_BINARY_FORMATS) > 0;
+		driverString = GFX.getString(GFX.GL_VENDOR) + " " + GFX.getString(GFX.GL_RENDERER) + " " + GFX.getString(GFX.GL_VERSION);
 		maxGlVersion = maxGlVersion(caps);
 
 		if (Configurator.logMachineInfo) {
@@ -83,6 +109,8 @@ public class CanvasGlHelper {
 		log.info(String.format(" glBufferStorage: %s", caps.glBufferStorage == 0 ? "N" : "Y"));
 		log.info(String.format(" KHR_debug: %s", supportsKhrDebug() ? "Y" : "N"));
 		log.info(String.format(" ARB_conservative_depth: %s", supportsArbConservativeDepth ? "Y" : "N"));
+		log.info(String.format(" Program binary: %s", supportsProgramBinary ? "Y" : "N"));
+		log.info(String.format(" Multi-draw indirect: %s", supportsMultiDrawIndirect ? "Y" : "N"));
 		log.info(" (This message can be disabled by configuring logMachineInfo = false.)");
 		log.info("========================================================================");
 	}
@@ -142,6 +142,22 @@ public class GFX extends GL46C {
 		return result;
 	}
 
+	public static int getUniformBlockIndex(int program, CharSequence name) {
+		final int result = glGetUniformBlockIndex(program, name);
+		assert logError(String.format("glGetUniformBlockIndex(%d, %s)", program, name));
+		return result;
+	}
+
+	public static void uniformBlockBinding(int program, int blockIndex, int blockBinding) {
+		glUniformBlockBinding(program, blockIndex, blockBinding);
+		assert logError(String.format("glUniformBlockBinding(%d, %d, %d)", program, blockIndex, blockBinding));
+	}
+
+	public static void bindBufferBase(int target, int index, int buffer) {
+		glBindBufferBase(target, index, buffer);
+		assert logError(String.format("glBindBufferBase(%s, %d, %d)", GlSymbolLookup.reverseLookup(target), index, buffer));
+	}
+
 	public static void cullFace(int mode) {
 		glCullFace(mode);
 		assert logError(String.format("glCullFace(%s)", GlSymbolLookup.reverseLookup(mode)));
@@ -511,6 +527,26 @@ public class GFX extends GL46C {
 		assert logError(String.format("glLinkProgram(%d)", program));
 	}
 
+	public static void multiDrawElementsIndirect(int mode, int type, long indirect, int drawCount, int stride) {
+		glMultiDrawElementsIndirect(mode, type, indirect, drawCount, stride);
+		assert logError("glMultiDrawElementsIndirect");
+	}
+
+	public static void programParameter(int program, int pname, int value) {
+		glProgramParameteri(program, pname, value);
+		assert logError(String.format("glProgramParameteri(%d, %s, %d)", program, GlSymbolLookup.reverseLookup(pname), value));
+	}
+
+	public static void getProgramBinary(int program, IntBuffer length, IntBuffer binaryFormat, ByteBuffer binary) {
+		glGetProgramBinary(program, length, binaryFormat, binary);
+		assert logError(String.format("glGetProgramBinary(%d)", program));
+	}
+
+	public static void programBinary(int program, int binaryFormat, ByteBuffer binary) {
+		glProgramBinary(program, binaryFormat, binary);
+		assert logError(String.format("glProgramBinary(%d, %d)", program, binaryFormat));
+	}
+
 	public static void uniform1fv(int location, FloatBuffer value) {
 		glUniform1fv(location, value);
 		assert logError(String.format("glUniform1fv(%d)", location));
@@ -21,8 +21,24 @@ in vec2 in_uv;
 in ivec2 in_lightmap;
 in int in_material;
 #define _CV_MATERIAL_ID in_material
+
+#ifdef _CV_VERTEX_COMPACT
+// Compact format has no per-vertex normal or tangent.  Both come from the face
+// index in high bits of in_region.x, ordered as Direction.get3DDataValue().
+const vec3[6] _CV_FACE_NORMALS = vec3[6](
+	vec3(0.0, -1.0, 0.0), vec3(0.0, 1.0, 0.0),
+	vec3(0.0, 0.0, -1.0), vec3(0.0, 0.0, 1.0),
+	vec3(-1.0, 0.0, 0.0), vec3(1.0, 0.0, 0.0));
+
+// Follows the direction of increasing U in vanilla block face textures
+const vec3[6] _CV_FACE_TANGENTS = vec3[6](
+	vec3(1.0, 0.0, 0.0), vec3(1.0, 0.0, 0.0),
+	vec3(-1.0, 0.0, 0.0), vec3(1.0, 0.0, 0.0),
+	vec3(0.0, 0.0, 1.0), vec3(0.0, 0.0, -1.0));
+#else
 // only x and y components, must derive Z
 in vec4 in_normal_tangent;
+#endif
 
 vec3 in_vertex;
 
@@ -37,12 +53,18 @@ void _cv_prepareForVertex() {
 	// Add intra-sector block pos and fractional block pos
 	in_vertex = origin + in_region.yzw / 65535.0 + in_blockpos_ao.xyz - 63;
 	
+#ifdef _CV_VERTEX_COMPACT
+	int face = min((in_region.x >> 13) & 7, 5);
+	in_normal = _CV_FACE_NORMALS[face];
+	in_tangent = vec4(_CV_FACE_TANGENTS[face], 1.0);
+#else
 	float normalSign = 1.0 - ((in_region.x >> 12) & 2);
 	in_normal = vec3(in_normal_tangent.xy, normalSign * sqrt(clamp(1.0 - dot(in_normal_tangent.xy, in_normal_tangent.xy), 0.0, 1.0)));
 	
 	float tangentSign = 1.0 - ((in_region.x >> 13) & 2);
 	float tangentInvert = 1.0 - ((in_region.x >> 14) & 2);
 	in_tangent = vec4(in_normal_tangent.zw, tangentSign * sqrt(clamp(1.0 - dot(in_normal_tangent.zw, in_normal_tangent.zw), 0.0, 1.0)), tangentInvert);
+#endif
 	
 	in_ao = in_blockpos_ao.w * (1.0 / 255.0);
 }
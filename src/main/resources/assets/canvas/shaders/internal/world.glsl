@@ -87,10 +87,15 @@
 #define _CV_PLAYER_FLAGS_INDEX 1
 #define _CV_CONDITION_FLAGS_START 2
 
+// per-frame data is shared by all programs in one uniform buffer when enabled
+#define _CV_FRAME_UNIFORM_BUFFER
+
+#ifndef _CV_FRAME_UNIFORM_BUFFER
 // update each frame
 uniform vec4[32] _cvu_world;
 uniform uint[1] _cvu_world_uint;
 uniform uint[4] _cvu_flags;
+#endif
 
 #define _CV_MODEL_TO_WORLD 0
 #define _CV_MODEL_TO_CAMERA 1
@@ -98,7 +103,9 @@ uniform uint[4] _cvu_flags;
 // updated each invocation as needed
 uniform vec4[2] _cvu_model_origin;
 uniform int _cvu_model_origin_type;
+#ifndef _CV_FRAME_UNIFORM_BUFFER
 uniform mat3 _cvu_normal_model_matrix;
+#endif
 uniform vec2 _cvu_fog_info;
 
 #define _CV_MAT_VIEW 0
@@ -123,7 +130,18 @@ uniform vec2 _cvu_fog_info;
 #define _CV_MAT_CLEAN_VIEW_PROJ_INVERSE 23
 #define _CV_MAT_CLEAN_VIEW_PROJ_LAST 24
 
+#ifdef _CV_FRAME_UNIFORM_BUFFER
+// update each frame - layout must match FrameUniformBuffer
+layout(std140) uniform _cvu_frame {
+	vec4 _cvu_world[32];
+	uint _cvu_world_uint[1];
+	uint _cvu_flags[4];
+	mat4 _cvu_matrix[25];
+	mat3 _cvu_normal_model_matrix;
+};
+#else
 uniform mat4[25] _cvu_matrix;
+#endif
 
 uniform mat4 _cvu_guiViewProjMatrix;
 